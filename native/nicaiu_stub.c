@@ -0,0 +1,365 @@
+/*
+ * Stand-in for the NI-DAQmx library (nicaiu) so the JNA bindings, the acquisition
+ * code and the benchmarks can be run on Linux without NI hardware or drivers.
+ *
+ * Build it with `make -C native`, then point JNA at it:
+ *     java -Djna.library.path=native ...
+ *
+ * Only the functions this program calls are provided. Tasks acquire on a simulated
+ * sample clock that starts when the task starts, and reads wait for it like the real
+ * driver. Configure a very high rate (the benchmark uses 1e9 S/s) and reads never wait,
+ * so a read costs only the call itself. Sample k of channel c is sin(2 pi k / rate) + c.
+ *
+ * StubSetDeviceLost(1) simulates the device dropping off the bus: every call that
+ * touches the device fails and running tasks stop with an error until
+ * StubSetDeviceLost(0) plugs it back in. StubGetTaskCount() returns how many tasks
+ * have been created and not yet cleared, so tests can check none are leaked.
+ */
+
+#include <math.h>
+#include <pthread.h>
+#include <stdint.h>
+#include <stdlib.h>
+#include <string.h>
+#include <time.h>
+#include <unistd.h>
+
+typedef int32_t int32;
+typedef uint32_t uInt32;
+typedef uint64_t uInt64;
+typedef double float64;
+typedef uint32_t bool32;
+typedef void *TaskHandle;
+
+typedef int32 (*DAQmxEveryNSamplesEventCallbackPtr)(TaskHandle taskHandle, int32 everyNsamplesEventType, uInt32 nSamples, void *callbackData);
+typedef int32 (*DAQmxDoneEventCallbackPtr)(TaskHandle taskHandle, int32 status, void *callbackData);
+
+#define DAQmx_Val_GroupByChannel 0
+#define DAQmx_Val_FiniteSamps 10178
+#define DAQmx_Val_ContSamps 10123
+#define DAQmx_Val_Task_Verify 2
+
+#define DAQmxErrorInvalidTask -200088
+#define DAQmxErrorReadBufferTooSmall -200229
+#define DAQmxErrorNoChannels -200478
+#define DAQmxErrorDeviceCannotBeAccessed -201003
+#define DAQmxErrorSamplesNotYetAvailable -200284
+
+#define STUB_MAX_RATE 250000.0
+
+static volatile int deviceLost = 0;
+static volatile int taskCount = 0;
+
+typedef struct {
+	int channels;
+	float64 rate;
+	int32 sampleMode;
+	uInt64 samplesPerChannel;
+	volatile int running;
+	struct timespec started;
+	uInt64 read;
+	DAQmxEveryNSamplesEventCallbackPtr everyN;
+	uInt32 everyNSamples;
+	void *everyNData;
+	DAQmxDoneEventCallbackPtr done;
+	void *doneData;
+	pthread_t eventThread;
+	int eventThreadStarted;
+} StubTask;
+
+/* Counts the channels in a list such as Dev1/ai0, Dev1/ai0:7 or Dev1/ai0,Dev1/ai3 */
+static int countChannels(const char *list) {
+	int count = 0;
+	const char *entry = list;
+	while(entry != NULL && *entry != '\0') {
+		const char *end = strchr(entry, ',');
+		size_t length = end == NULL ? strlen(entry) : (size_t) (end - entry);
+		const char *colon = memchr(entry, ':', length);
+		int channels = 1;
+		if(colon != NULL) {
+			const char *first = colon;
+			while(first > entry && first[-1] >= '0' && first[-1] <= '9') {
+				first--;
+			}
+			channels = abs(atoi(colon + 1) - atoi(first)) + 1;
+		}
+		count += channels;
+		entry = end == NULL ? NULL : end + 1;
+		while(entry != NULL && *entry == ' ') {
+			entry++;
+		}
+	}
+	return count;
+}
+
+static double secondsSince(const struct timespec *start) {
+	struct timespec now;
+	clock_gettime(CLOCK_MONOTONIC, &now);
+	return (now.tv_sec - start->tv_sec) + (now.tv_nsec - start->tv_nsec) / 1e9;
+}
+
+/* Samples per channel the simulated clock has taken since the task started */
+static uInt64 acquired(StubTask *task) {
+	if(!task->running) {
+		return task->read;
+	}
+	uInt64 taken = (uInt64) (secondsSince(&task->started) * task->rate);
+	if(task->sampleMode == DAQmx_Val_FiniteSamps && taken > task->samplesPerChannel) {
+		taken = task->samplesPerChannel;
+	}
+	return taken > task->read ? taken : task->read;
+}
+
+static void *everyNSamplesLoop(void *argument) {
+	StubTask *task = argument;
+	struct timespec period;
+	double seconds = task->everyNSamples / task->rate;
+	period.tv_sec = (time_t) seconds;
+	period.tv_nsec = (long) ((seconds - period.tv_sec) * 1e9);
+	while(task->running) {
+		nanosleep(&period, NULL);
+		if(task->running && deviceLost) {
+			task->running = 0;
+			if(task->done != NULL) {
+				task->done(task, DAQmxErrorDeviceCannotBeAccessed, task->doneData);
+			}
+		} else if(task->running) {
+			task->everyN(task, 1, task->everyNSamples, task->everyNData);
+		}
+	}
+	return NULL;
+}
+
+void StubSetDeviceLost(int lost) {
+	deviceLost = lost;
+}
+
+int32 StubGetTaskCount(void) {
+	return taskCount;
+}
+
+int32 DAQmxCreateTask(const char taskName[], TaskHandle *taskHandle) {
+	if(deviceLost) {
+		return DAQmxErrorDeviceCannotBeAccessed;
+	}
+	StubTask *task = calloc(1, sizeof(StubTask));
+	task->rate = 1000.0;
+	task->sampleMode = DAQmx_Val_ContSamps;
+	task->samplesPerChannel = 1000;
+	__sync_fetch_and_add(&taskCount, 1);
+	*taskHandle = task;
+	return 0;
+}
+
+int32 DAQmxCreateAIVoltageChan(TaskHandle taskHandle, const char physicalChannel[], const char nameToAssignToChannel[], int32 terminalConfig, float64 minVal, float64 maxVal, int32 units, const char customScaleName[]) {
+	if(taskHandle == NULL) {
+		return DAQmxErrorInvalidTask;
+	}
+	((StubTask *) taskHandle)->channels += countChannels(physicalChannel);
+	return 0;
+}
+
+int32 DAQmxCreateAICurrentChan(TaskHandle taskHandle, const char physicalChannel[], const char nameToAssignToChannel[], int32 terminalConfig, float64 minVal, float64 maxVal, int32 units, int32 shuntResistorLoc, float64 extShuntResistorVal, const char customScaleName[]) {
+	return DAQmxCreateAIVoltageChan(taskHandle, physicalChannel, nameToAssignToChannel, terminalConfig, minVal, maxVal, units, customScaleName);
+}
+
+int32 DAQmxCreateDOChan(TaskHandle taskHandle, const char lines[], const char nameToAssignToLines[], int32 lineGrouping) {
+	return taskHandle == NULL ? DAQmxErrorInvalidTask : 0;
+}
+
+int32 DAQmxCreateDIChan(TaskHandle taskHandle, const char lines[], const char nameToAssignToLines[], int32 lineGrouping) {
+	return taskHandle == NULL ? DAQmxErrorInvalidTask : 0;
+}
+
+int32 DAQmxCfgSampClkTiming(TaskHandle taskHandle, const char source[], float64 rate, int32 activeEdge, int32 sampleMode, uInt64 sampsPerChan) {
+	StubTask *task = taskHandle;
+	if(task == NULL) {
+		return DAQmxErrorInvalidTask;
+	}
+	task->rate = rate;
+	task->sampleMode = sampleMode;
+	task->samplesPerChannel = sampsPerChan;
+	return 0;
+}
+
+int32 DAQmxCfgDigEdgeStartTrig(TaskHandle taskHandle, const char triggerSource[], int32 triggerEdge) {
+	return taskHandle == NULL ? DAQmxErrorInvalidTask : 0;
+}
+
+int32 DAQmxRegisterEveryNSamplesEvent(TaskHandle taskHandle, int32 everyNsamplesEventType, uInt32 nSamples, uInt32 options, DAQmxEveryNSamplesEventCallbackPtr callbackFunction, void *callbackData) {
+	StubTask *task = taskHandle;
+	if(task == NULL) {
+		return DAQmxErrorInvalidTask;
+	}
+	task->everyN = callbackFunction;
+	task->everyNSamples = nSamples;
+	task->everyNData = callbackData;
+	return 0;
+}
+
+int32 DAQmxRegisterDoneEvent(TaskHandle taskHandle, uInt32 options, DAQmxDoneEventCallbackPtr callbackFunction, void *callbackData) {
+	StubTask *task = taskHandle;
+	if(task == NULL) {
+		return DAQmxErrorInvalidTask;
+	}
+	task->done = callbackFunction;
+	task->doneData = callbackData;
+	return 0;
+}
+
+int32 DAQmxStartTask(TaskHandle taskHandle) {
+	StubTask *task = taskHandle;
+	if(task == NULL) {
+		return DAQmxErrorInvalidTask;
+	}
+	if(task->channels == 0) {
+		return DAQmxErrorNoChannels;
+	}
+	if(deviceLost) {
+		return DAQmxErrorDeviceCannotBeAccessed;
+	}
+	if(task->running) {
+		return 0;
+	}
+	task->read = 0;
+	clock_gettime(CLOCK_MONOTONIC, &task->started);
+	task->running = 1;
+	if(task->everyN != NULL && task->everyNSamples > 0) {
+		task->eventThreadStarted = pthread_create(&task->eventThread, NULL, everyNSamplesLoop, task) == 0;
+	}
+	return 0;
+}
+
+int32 DAQmxStopTask(TaskHandle taskHandle) {
+	StubTask *task = taskHandle;
+	if(task == NULL) {
+		return DAQmxErrorInvalidTask;
+	}
+	task->running = 0;
+	if(task->eventThreadStarted && !pthread_equal(task->eventThread, pthread_self())) {
+		pthread_join(task->eventThread, NULL);
+		task->eventThreadStarted = 0;
+	}
+	return 0;
+}
+
+int32 DAQmxClearTask(TaskHandle taskHandle) {
+	int32 error = DAQmxStopTask(taskHandle);
+	if(taskHandle != NULL) {
+		__sync_fetch_and_sub(&taskCount, 1);
+	}
+	free(taskHandle);
+	return error;
+}
+
+int32 DAQmxTaskControl(TaskHandle taskHandle, int32 action) {
+	StubTask *task = taskHandle;
+	if(task == NULL) {
+		return DAQmxErrorInvalidTask;
+	}
+	if(deviceLost) {
+		return DAQmxErrorDeviceCannotBeAccessed;
+	}
+	if(action == DAQmx_Val_Task_Verify && task->channels == 0) {
+		return DAQmxErrorNoChannels;
+	}
+	return 0;
+}
+
+int32 DAQmxReadAnalogF64(TaskHandle taskHandle, int32 numSampsPerChan, float64 timeout, bool32 fillMode, float64 readArray[], uInt32 arraySizeInSamps, int32 *sampsPerChanRead, bool32 *reserved) {
+	StubTask *task = taskHandle;
+	if(task == NULL) {
+		return DAQmxErrorInvalidTask;
+	}
+	if(deviceLost) {
+		task->running = 0;
+		return DAQmxErrorDeviceCannotBeAccessed;
+	}
+	uInt64 samples;
+	if(numSampsPerChan >= 0) {
+		samples = (uInt64) numSampsPerChan;
+	} else if(task->sampleMode == DAQmx_Val_FiniteSamps) {
+		samples = task->samplesPerChannel > task->read ? task->samplesPerChannel - task->read : 0;
+	} else {
+		samples = acquired(task) - task->read;
+	}
+	//wait for the simulated clock to take the samples, as the driver does
+	struct timespec waitStart;
+	clock_gettime(CLOCK_MONOTONIC, &waitStart);
+	while(task->running && acquired(task) < task->read + samples) {
+		if(timeout >= 0 && secondsSince(&waitStart) >= timeout) {
+			if(sampsPerChanRead != NULL) {
+				*sampsPerChanRead = 0;
+			}
+			return DAQmxErrorSamplesNotYetAvailable;
+		}
+		struct timespec pause = {0, 1000000};
+		nanosleep(&pause, NULL);
+	}
+	if(samples * task->channels > arraySizeInSamps) {
+		if(sampsPerChanRead != NULL) {
+			*sampsPerChanRead = 0;
+		}
+		return DAQmxErrorReadBufferTooSmall;
+	}
+	for(uInt64 i = 0; i < samples; i++) {
+		double value = sin(2.0 * M_PI * (double) (task->read + i) / task->rate);
+		for(int c = 0; c < task->channels; c++) {
+			if(fillMode == DAQmx_Val_GroupByChannel) {
+				readArray[c * samples + i] = value + c;
+			} else {
+				readArray[i * task->channels + c] = value + c;
+			}
+		}
+	}
+	task->read += samples;
+	if(sampsPerChanRead != NULL) {
+		*sampsPerChanRead = (int32) samples;
+	}
+	return 0;
+}
+
+int32 DAQmxWriteDigitalLines(TaskHandle taskHandle, int32 numSampsPerChan, bool32 autoStart, float64 timeout, bool32 dataLayout, const uint8_t writeArray[], int32 *sampsPerChanWritten, bool32 *reserved) {
+	if(taskHandle == NULL) {
+		return DAQmxErrorInvalidTask;
+	}
+	if(sampsPerChanWritten != NULL) {
+		*sampsPerChanWritten = numSampsPerChan;
+	}
+	return 0;
+}
+
+int32 DAQmxGetReadAvailSampPerChan(TaskHandle taskHandle, uInt32 *data) {
+	StubTask *task = taskHandle;
+	if(task == NULL) {
+		return DAQmxErrorInvalidTask;
+	}
+	if(deviceLost) {
+		return DAQmxErrorDeviceCannotBeAccessed;
+	}
+	*data = (uInt32) (acquired(task) - task->read);
+	return 0;
+}
+
+int32 DAQmxGetReadTotalSampPerChanAcquired(TaskHandle taskHandle, uInt64 *data) {
+	StubTask *task = taskHandle;
+	if(task == NULL) {
+		return DAQmxErrorInvalidTask;
+	}
+	*data = acquired(task);
+	return 0;
+}
+
+int32 DAQmxGetDevAIMaxSingleChanRate(const char device[], float64 *data) {
+	*data = STUB_MAX_RATE;
+	return 0;
+}
+
+int32 DAQmxGetDevAIMaxMultiChanRate(const char device[], float64 *data) {
+	*data = STUB_MAX_RATE;
+	return 0;
+}
+
+int32 DAQmxResetDevice(const char deviceName[]) {
+	return 0;
+}
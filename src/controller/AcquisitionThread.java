@@ -0,0 +1,322 @@
+package controller;
+
+import kirkwood.nidaq.access.NiDaqException;
+import model.AITask;
+import model.BlockListener;
+import model.SampleBlock;
+import model.SampleSource;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Producer side of the graphing pipeline.
+ * Blocks on hardware-clocked reads from the sample source and hands every full block to the
+ * processing stage through a bounded queue, so a slow chart update never delays a read.
+ * When the source supports block events the driver pushes each block as soon as it is ready instead.
+ * Runs on the scheduler shared by every session, see SessionManager.
+ *
+ * Also supervises the device. If a read fails, or the driver stops the task with an error, the source is
+ * rebuilt and restarted, retrying until the reconnect timeout runs out. Acquisition then carries on into the
+ * same session, the sample indices skipping over whatever was lost while disconnected.
+ */
+public class AcquisitionThread implements Runnable, BlockListener {
+    //number of blocks the queue can hold before the processing stage is considered stalled (10 seconds of data)
+    public static final int QUEUE_CAPACITY = AITask.UPDATES_PER_SECOND * 10;
+    //first wait between reconnect attempts, doubled after each failed attempt up to the maximum
+    public static final long RECONNECT_RETRY_MILLIS = 100;
+    public static final long MAX_RECONNECT_RETRY_MILLIS = 1000;
+
+    private final SampleSource source;
+    private final BlockingQueue<SampleBlock> filledBlocks;
+    private final BlockingQueue<SampleBlock> freeBlocks;
+    private final SampleBlock overflowBlock;
+    private final AtomicBoolean done = new AtomicBoolean(false);
+    private final AtomicBoolean run = new AtomicBoolean(false);
+    private final AtomicLong droppedBlocks = new AtomicLong(0);
+    private final AtomicLong reconnects = new AtomicLong(0);
+    private final AtomicBoolean lost = new AtomicBoolean(false);
+    private volatile boolean reconnecting = false;
+    private volatile boolean failed = false;
+    private final long reconnectTimeout;
+    private final boolean eventDriven;
+
+    /**
+     * @param source a source that readyToRun has been called on
+     * @throws NiDaqException if the source supports block events but they could not be registered
+     */
+    public AcquisitionThread(SampleSource source) throws NiDaqException {
+        this(source, 0, 0);
+    }
+
+    /**
+     * @param source a source that readyToRun has been called on
+     * @param heldBlocks number of blocks the processing stage may hold on to, added to the pool so the queue never runs short
+     * @param reconnectTimeout milliseconds to keep trying to reconnect a lost device, 0 to give up straight away
+     * @throws NiDaqException if the source supports block events but they could not be registered
+     */
+    public AcquisitionThread(SampleSource source, int heldBlocks, long reconnectTimeout) throws NiDaqException {
+        this.source = source;
+        this.reconnectTimeout = reconnectTimeout;
+        filledBlocks = new ArrayBlockingQueue<>(QUEUE_CAPACITY + heldBlocks);
+        freeBlocks = new ArrayBlockingQueue<>(QUEUE_CAPACITY + heldBlocks);
+        for(int i = 0; i < QUEUE_CAPACITY + heldBlocks; i++){
+            freeBlocks.add(new SampleBlock(source.getChannels(), source.getBlockCapacity()));
+        }
+        overflowBlock = new SampleBlock(source.getChannels(), source.getBlockCapacity());
+
+        eventDriven = source.supportsBlockEvents();
+        if(eventDriven){
+            source.setBlockListener(this);
+        }
+    }
+
+    /**
+     * Runs the acquisition thread.
+     * Each pass waits on the device sample clock, so the loop runs at exactly the hardware rate.
+     * Sources that push blocks through events do not need polling, so the thread only wakes to reconnect them.
+     */
+    @Override
+    public void run() {
+        while(!done.get()) {
+            try {
+                synchronized (this){
+                    while(!done.get() && (!run.get() || failed || (eventDriven && !lost.get()))) {
+                        wait();
+                    }
+                }
+            } catch (InterruptedException e) {
+                //do nothing
+            }
+
+            if(done.get()) {
+                return;
+            }
+
+            if(lost.get()){
+                reconnect();
+            }else if(!acquireBlock() && !lost.get()){
+                //wait one block period so a failing device does not spin this thread
+                try {
+                    Thread.sleep(1000 / AITask.UPDATES_PER_SECOND);
+                } catch (InterruptedException e) {
+                    //do nothing
+                }
+            }
+        }
+    }
+
+    /**
+     * Called from the driver thread each time a block is ready to be read without waiting
+     * @param source the source that has the block ready
+     */
+    @Override
+    public void blockReady(SampleSource source) {
+        //a catch-up read may already have taken the samples this event is for
+        if(run.get() && !done.get() && !lost.get() && source.getAvailableSamples() >= source.getSamplesPerBlock()){
+            acquireBlock();
+        }
+    }
+
+    /**
+     * Called from the driver thread when the task stops because of an error
+     * @param status the error code that stopped the task
+     */
+    @Override
+    public void sourceDone(int status) {
+        if(status != 0 && run.get()){
+            System.err.println("AcquisitionThread: acquisition stopped with " + new NiDaqException(status));
+            deviceLost();
+        }
+    }
+
+    /*
+     * Flags the device as lost and wakes the loop to reconnect it
+     */
+    private synchronized void deviceLost(){
+        lost.set(true);
+        notifyAll();
+    }
+
+    /*
+     * Rebuilds the source until it starts or the reconnect timeout runs out. No attempt is started after the deadline,
+     * so recovery takes at most the timeout plus one attempt. Gives up early if paused or terminated.
+     */
+    private void reconnect(){
+        if(!source.supportsReconnect() || reconnectTimeout <= 0){
+            giveUp();
+            return;
+        }
+        reconnecting = true;
+        long deadline = System.nanoTime() + reconnectTimeout * 1000000L;
+        long retry = RECONNECT_RETRY_MILLIS;
+        try {
+            while(run.get() && !done.get()){
+                try {
+                    source.reconnect();
+                    lost.set(false);
+                    reconnects.incrementAndGet();
+                    System.err.println("AcquisitionThread: reconnected after the device was lost.");
+                    return;
+                } catch (NiDaqException e) {
+                    long remaining = (deadline - System.nanoTime()) / 1000000L;
+                    if(remaining <= 0){
+                        break;
+                    }
+                    try {
+                        Thread.sleep(Math.min(retry, remaining));
+                    } catch (InterruptedException e2) {
+                        //do nothing
+                    }
+                    retry = Math.min(retry * 2, MAX_RECONNECT_RETRY_MILLIS);
+                }
+            }
+            //a pause in the middle leaves the device flagged as lost, so the next collect tries again
+            if(run.get() && !done.get()){
+                giveUp();
+            }
+        } finally {
+            reconnecting = false;
+        }
+    }
+
+    /*
+     * Stops trying to reconnect until the next collect
+     */
+    private void giveUp(){
+        failed = true;
+        System.err.println("AcquisitionThread: could not reconnect to the device within " + reconnectTimeout + " ms.");
+    }
+
+    /*
+     * Reads one block and queues it for the processing stage
+     * Returns false if the read failed while the thread should have been running
+     */
+    private boolean acquireBlock(){
+        //keep reading even when the processing stage has fallen behind, otherwise the device buffer overruns
+        SampleBlock block = freeBlocks.poll();
+        boolean dropped = block == null;
+        if(dropped){
+            block = overflowBlock;
+        }
+
+        try {
+            source.readBlock(block);
+        } catch (NiDaqException e) {
+            if(!dropped) {
+                freeBlocks.offer(block);
+            }
+            //reads are expected to fail while the task is being stopped
+            if(run.get()) {
+                e.printStackTrace();
+                //the source recovers from an overrun by itself, anything else means the task has to be rebuilt
+                if(e.getErrorCode() != AITask.ERROR_SAMPLES_OVERWRITTEN) {
+                    deviceLost();
+                }
+                return false;
+            }
+            return true;
+        }
+
+        if(dropped){
+            droppedBlocks.incrementAndGet();
+        }else{
+            filledBlocks.offer(block);
+        }
+        return true;
+    }
+
+    /**
+     * Waits for the next full block
+     * @param timeout how long to wait in milliseconds
+     * @return the next block, or null if none arrived in time. Must be handed back with release
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public SampleBlock take(long timeout) throws InterruptedException {
+        return filledBlocks.poll(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Hands a processed block back so it can be filled again
+     * @param block the block returned from take
+     */
+    public void release(SampleBlock block){
+        freeBlocks.offer(block);
+    }
+
+    /**
+     * Throws away any blocks that have not been processed yet
+     */
+    public void clear(){
+        SampleBlock block;
+        while((block = filledBlocks.poll()) != null){
+            freeBlocks.offer(block);
+        }
+    }
+
+    /**
+     * Pauses the acquisition thread and stops the task
+     */
+    public void pause(){
+        run.set(false);
+        source.pause();
+    }
+
+    /**
+     * Resumes the acquisition thread and starts the source
+     */
+    public synchronized void collect(){
+        run.set(true);
+        failed = false;
+        //a lost device is started by the reconnect instead
+        if(!lost.get()){
+            source.start();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Stops the thread permanently
+     */
+    public synchronized void terminate(){
+        done.set(true);
+        notifyAll();
+    }
+
+    /**
+     * @return the source this thread reads from
+     */
+    public SampleSource getSource(){
+        return source;
+    }
+
+    /**
+     * @return true while the device is lost and being reconnected
+     */
+    public boolean isReconnecting(){
+        return reconnecting;
+    }
+
+    /**
+     * @return true if the device was lost and could not be reconnected before the timeout, until the next collect
+     */
+    public boolean hasFailed(){
+        return failed;
+    }
+
+    /**
+     * @return number of times the device was lost and reconnected
+     */
+    public long getReconnects(){
+        return reconnects.get();
+    }
+
+    /**
+     * @return number of blocks read while every queue slot was full
+     */
+    public long getDroppedBlocks(){
+        return droppedBlocks.get();
+    }
+}
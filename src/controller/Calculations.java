@@ -123,6 +123,18 @@ public class Calculations {
         return force/area;
     }
 
+    /**
+     * Calculate the stress on an offset line, the elastic line moved along by the offset strain
+     * @param strain strain to find the stress at
+     * @param modulus slope of the elastic line
+     * @param intercept stress where the elastic line meets zero strain
+     * @param offset strain the line is moved by, 0.002 for the 0.2% offset yield strength
+     * @return stress on the offset line
+     */
+    public static double calculateOffsetStress(double strain, double modulus, double intercept, double offset){
+        return modulus * (strain - offset) + intercept;
+    }
+
     /**
      * Calculate the area of the cross section for a rectangular piece
      * @param width width of the cross section
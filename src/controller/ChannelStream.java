@@ -0,0 +1,213 @@
+package controller;
+
+import controller.filter.FilterChain;
+import model.CalibrationCurve;
+import model.ChannelConfig;
+import model.SampleBlock;
+
+/**
+ * Processing for one channel of a multiplexed block.
+ * Runs the channel's filter chain over its raw samples a block at a time, decimates them down to the
+ * display rate through anti-aliasing filters and converts the result to units. Channels without a filter
+ * chain can also average the displayed points over their filter window.
+ */
+public class ChannelStream {
+    private final ChannelConfig config;
+    private final int index;
+    private final MultirateDecimator decimator;
+    private final SlidingAverage smoothed;
+    private final FilterChain filter;
+    private final CalibrationCurve calibration;
+    private double[] filtered = new double[0]; //the channel's samples from the current block after filtering
+    private double value = 0.0;
+    private volatile double units = 0.0; //value in units, read by the status line while samples are still being added
+    private double zero = 0.0;
+    private double drift = 0.0; //volts per sample the zero moves by
+    private long zeroIndex = 0; //sample clock index the zero was measured at
+    private long driftHorizon = 0; //samples past zeroIndex the drift is followed for, the zero holds still after
+    private double zeroUnits = 0.0; //the zero voltage converted to units, what every reading is measured from
+    private long firstIndex = 0; //sample clock index of the first sample filtered from the current block
+    private long sampleIndex = 0; //sample clock index of the last sample added
+    private final long delay; //raw samples each smoothed value lags the last sample added by
+
+    /**
+     * @param config the channel this stream processes
+     * @param index position of the channel in each block
+     * @param decimation number of raw samples for each displayed point
+     * @param sampleRate raw samples per second, the rate the filter chain runs at
+     * @throws IllegalArgumentException if the channel's filter chain is not valid
+     */
+    public ChannelStream(ChannelConfig config, int index, int decimation, double sampleRate){
+        this.config = config;
+        this.index = index;
+        decimator = MultirateDecimator.forFactor(decimation);
+        filter = FilterChain.parse(config.getFilter(), sampleRate);
+        calibration = config.getCalibration();
+        zeroUnits = calibration.toUnits(0.0);
+        //the decimator already filters down to the display rate, so points are only averaged again if the channel asks,
+        //a filter chain replaces that average and a window of 1 passes the decimated points straight through
+        smoothed = new SlidingAverage(filter.isEmpty() && config.getFilterWindow() > 0 ? config.getFilterWindow() : 1);
+        //the filter chain, the decimators' FIRs and the point average each hold the value back, the last at the display rate
+        delay = Math.round(filter.getDelay() + decimator.getDelay() + (smoothed.getSize() - 1) / 2.0 * decimator.getFactor());
+    }
+
+    /**
+     * Copies this channel's samples out of a block and runs the filter chain over them,
+     * ready to be added one at a time with addFiltered
+     * @param block the block just read
+     * @param from index in the block of the first sample to use
+     */
+    public void filter(SampleBlock block, int from){
+        int length = block.getSamplesPerChannel() - from;
+        if(filtered.length < length){
+            filtered = new double[block.getCapacity()];
+        }
+        firstIndex = block.getSampleIndex(from);
+        block.copyChannel(index, from, filtered, 0, length);
+        filter.process(filtered, 0, length);
+    }
+
+    /**
+     * Adds one sample filtered by the last call to filter
+     * @param i position of the sample from the first one filtered
+     * @return true if a new smoothed value is ready from getVoltage and getValue, for the sample at getSampleIndex
+     */
+    public boolean addFiltered(int i){
+        sampleIndex = firstIndex + i;
+        return addSample(filtered[i]);
+    }
+
+    /*
+     * Decimates one filtered sample, smoothing each decimated point
+     */
+    private boolean addSample(double sample){
+        if(decimator.addData(sample) < decimator.getLevels()){
+            return false;
+        }
+        value = smoothed.addData(decimator.getValue());
+        units = toUnits(value, getSampleIndex());
+        return true;
+    }
+
+    /**
+     * Throws away any partly decimated samples, the filter history and the points being averaged, used when
+     * acquisition resumes after a pause or samples were lost
+     */
+    public void reset(){
+        decimator.reset();
+        filter.reset();
+        smoothed.reset();
+    }
+
+    /**
+     * @return sample clock index the latest smoothed value describes, the last sample added less the filter delays
+     */
+    public long getSampleIndex(){
+        return sampleIndex - delay;
+    }
+
+    /**
+     * @return raw samples each smoothed value lags the last sample added by
+     */
+    public long getDelay(){
+        return delay;
+    }
+
+    /**
+     * @return the latest smoothed voltage
+     */
+    public double getVoltage(){
+        return value;
+    }
+
+    /**
+     * @return the latest smoothed value converted to units, measured from the zero voltage at the sample it describes
+     */
+    public double getValue(){
+        return units;
+    }
+
+    /**
+     * Converts a voltage through the channel's calibration, measured from the zero
+     * Drift is taken off the voltage first, it comes from the electronics rather than the load
+     * @param volts voltage read from this channel
+     * @param sampleIndex sample clock index the voltage was read at
+     * @return the reading in units, 0 at the zero voltage
+     */
+    public double toUnits(double volts, long sampleIndex){
+        return calibration.toUnits(volts - drift * driftSamples(sampleIndex)) - zeroUnits;
+    }
+
+    /**
+     * Sets a zero voltage that moves in a straight line as the test goes on
+     * @param zero the zero voltage at the given sample
+     * @param drift volts per sample the zero moves by
+     * @param zeroIndex sample clock index the zero was measured at
+     * @param driftHorizon samples past zeroIndex to follow the drift for, the zero holds still after
+     */
+    public void setZero(double zero, double drift, long zeroIndex, long driftHorizon){
+        this.zero = zero;
+        this.drift = drift;
+        this.zeroIndex = zeroIndex;
+        this.driftHorizon = driftHorizon;
+        zeroUnits = calibration.toUnits(zero);
+    }
+
+    /**
+     * @return the zero voltage where it was measured
+     */
+    public double getZero(){
+        return zero;
+    }
+
+    /**
+     * @return volts per sample the zero moves by
+     */
+    public double getDrift(){
+        return drift;
+    }
+
+    /**
+     * @return sample clock index the zero was measured at
+     */
+    public long getZeroIndex(){
+        return zeroIndex;
+    }
+
+    /**
+     * @return samples past the zero index the drift is followed for
+     */
+    public long getDriftHorizon(){
+        return driftHorizon;
+    }
+
+    /**
+     * @param sampleIndex sample clock index to find the zero at
+     * @return the zero voltage at that sample, following the drift up to the horizon
+     */
+    public double getZero(long sampleIndex){
+        return zero + drift * driftSamples(sampleIndex);
+    }
+
+    /*
+     * Samples of drift to apply at the given index, stopping at the horizon
+     */
+    private long driftSamples(long sampleIndex){
+        return Math.min(sampleIndex - zeroIndex, driftHorizon);
+    }
+
+    /**
+     * @return number of samples the channel's spike rejection has replaced
+     */
+    public long getRejectedSamples(){
+        return filter.getRejected();
+    }
+
+    public int getIndex(){
+        return index;
+    }
+
+    public ChannelConfig getConfig(){
+        return config;
+    }
+}
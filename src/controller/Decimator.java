@@ -0,0 +1,139 @@
+package controller;
+
+/**
+ * Reduces a stream of samples to one value for every factor samples through an anti-aliasing low-pass FIR,
+ * used to bring the acquisition rate down to a lower rate without folding noise above the new Nyquist
+ * frequency back into the signal the way plain averaging does.
+ * The filter is a Hamming windowed sinc of tapsPerPhase * factor taps with its cutoff at 80% of the output
+ * Nyquist frequency. It runs in polyphase form: each sample is multiplied into the tapsPerPhase outputs it
+ * contributes to and one output completes every factor samples, so every sample costs tapsPerPhase
+ * multiply-adds whatever the factor, and only tapsPerPhase partial sums are kept.
+ * The filter starts settled at the first sample, so there is no ramp up from zero
+ */
+public class Decimator {
+    public static final int DEFAULT_TAPS_PER_PHASE = 6;
+    private static final double CUTOFF = 0.8; //fraction of the output Nyquist frequency passed
+
+    private final int factor;
+    private final double[] taps;
+    private final double[] tailSums; //tailSums[j] is the sum of taps j onwards, used to settle the filter
+    private final double[] partials; //one partial sum for each output still being built, oldest at next
+    private int next = 0;
+    private int phase = 0;
+    private boolean primed = false;
+    private double value = 0.0;
+
+    /**
+     * @param factor number of input samples for each output value, 1 passes every sample through
+     */
+    public Decimator(int factor){
+        this(factor, DEFAULT_TAPS_PER_PHASE);
+    }
+
+    /**
+     * @param factor number of input samples for each output value, 1 passes every sample through
+     * @param tapsPerPhase filter length in output samples, longer gives sharper filtering but more delay
+     */
+    public Decimator(int factor, int tapsPerPhase){
+        if(factor < 1){
+            throw new IllegalArgumentException("Decimation factor must be at least 1");
+        }
+        if(tapsPerPhase < 1){
+            throw new IllegalArgumentException("Decimator needs at least 1 tap per phase");
+        }
+        this.factor = factor;
+        taps = factor == 1 ? new double[]{1.0} : lowPass(factor * tapsPerPhase, CUTOFF * 0.5 / factor);
+        partials = new double[taps.length / factor];
+        tailSums = new double[taps.length + 1];
+        for(int j = taps.length - 1; j >= 0; j--){
+            tailSums[j] = tailSums[j + 1] + taps[j];
+        }
+    }
+
+    /*
+     * Hamming windowed sinc low-pass, cutoff in cycles per input sample, scaled for a gain of 1 at DC
+     */
+    private static double[] lowPass(int length, double cutoff){
+        double[] taps = new double[length];
+        double centre = (length - 1) / 2.0;
+        double total = 0.0;
+        for(int j = 0; j < length; j++){
+            double t = j - centre;
+            double sinc = t == 0 ? 2 * cutoff : Math.sin(2 * Math.PI * cutoff * t) / (Math.PI * t);
+            double window = 0.54 - 0.46 * Math.cos(2 * Math.PI * j / (length - 1));
+            taps[j] = sinc * window;
+            total += taps[j];
+        }
+        for(int j = 0; j < length; j++){
+            taps[j] /= total;
+        }
+        return taps;
+    }
+
+    /**
+     * Adds a sample to the decimator
+     * @param newPoint the sample to be added
+     * @return true if a new decimated value is ready from getValue
+     */
+    public boolean addData(double newPoint){
+        if(!primed){
+            settle(newPoint);
+            primed = true;
+        }
+        //this sample meets tap k * factor + (factor - 1 - phase) of the output k places after the oldest
+        int tap = factor - 1 - phase;
+        int slot = next;
+        for(int k = 0; k < partials.length; k++){
+            partials[slot] += taps[tap] * newPoint;
+            tap += factor;
+            if(++slot == partials.length){
+                slot = 0;
+            }
+        }
+        if(++phase < factor){
+            return false;
+        }
+        //the oldest output has had every tap, its slot starts the newest output
+        value = partials[next];
+        partials[next] = 0.0;
+        next = (next + 1) % partials.length;
+        phase = 0;
+        return true;
+    }
+
+    /*
+     * Fills the partial sums as if the value had been coming in forever
+     */
+    private void settle(double value){
+        for(int k = 0; k < partials.length; k++){
+            partials[(next + k) % partials.length] = value * tailSums[(k + 1) * factor];
+        }
+    }
+
+    /**
+     * @return the most recent decimated value
+     */
+    public double getValue(){
+        return value;
+    }
+
+    /**
+     * Throws away any partly collected samples and the filter history
+     */
+    public void reset(){
+        next = 0;
+        phase = 0;
+        primed = false;
+    }
+
+    public int getFactor(){
+        return factor;
+    }
+
+    /**
+     * @return delay of the filter in input samples, half its length
+     */
+    public double getDelay(){
+        return (taps.length - 1) / 2.0;
+    }
+}
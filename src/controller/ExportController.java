@@ -1,5 +1,8 @@
 package controller;
 
+import controller.Calculations.Units;
+import model.SampleIndexList;
+import model.SampleStore;
 import org.jfree.data.xy.XYSeries;
 import view.ExportWindow;
 import javax.swing.*;
@@ -7,6 +10,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.PrintWriter;
+import java.util.List;
 
 /**
  * Sets up and controls the functions of the ExportWindow
@@ -40,6 +44,15 @@ public class ExportController {
         return exportWindow.getExportValuesCheckBox().isSelected();
     }
 
+    /**
+     * Determines if export raw samples check box is selected
+     * if checked, every raw voltage sample is written to a second file
+     * @return if export raw check box is selected
+     */
+    public boolean isExportRawSelected() {
+        return exportWindow.getExportRawCheckBox().isSelected();
+    }
+
     /*
      * Writes data to a csv file
      */
@@ -59,25 +72,22 @@ public class ExportController {
         try {
            if(file != null) {
                outfile = new PrintWriter(new FileOutputStream(file));
-               if (isExportValuesSelected()) {//unit system, input values, gauge length
-                   double gaugeLength = Calculations.convertLength(mainController.stringToUnits(mainController.getUnitSystem()), mainController.stringToUnits(inputController.getUnitSystem()), mainController.getGaugeLength());
-                   double width = Calculations.convertLength(mainController.stringToUnits(mainController.getUnitSystem()), mainController.stringToUnits(inputController.getUnitSystem()), mainController.getWidth());
-                   double depth = Calculations.convertLength(mainController.stringToUnits(mainController.getUnitSystem()), mainController.stringToUnits(inputController.getUnitSystem()), mainController.getDepth());
-                   double diameter = Calculations.convertLength(mainController.stringToUnits(mainController.getUnitSystem()), mainController.stringToUnits(inputController.getUnitSystem()), mainController.getDiameter());
-                   outfile.write("Unit System: " + inputController.getUnitSystem() + "\n");
-                   outfile.write("Gauge Length: " + gaugeLength + "\n");
-                   if (inputController.isRectangularSelected()) {
-                       outfile.write("Width: " + width + "\n");
-                       outfile.write("Depth: " + depth + "\n");
-                   } else {
-                       outfile.write("Diameter: " + diameter + "\n");
+               SessionManager sessions = mainController.getSessions();
+               writeSeries(outfile, xySeries, sessions == null ? null : sessions.getSessions().get(0));
+               if (sessions != null) {
+                   //the first frame is in the chosen file, any others go in files named after their device
+                   List<GraphUpdater> frames = sessions.getSessions();
+                   for (int i = 0; i < frames.size(); i++) {
+                       String suffix = i == 0 ? "" : "_" + frames.get(i).getDeviceName();
+                       if (i > 0) {
+                           PrintWriter frameOut = new PrintWriter(new FileOutputStream(sibling(suffix + ".csv")));
+                           writeSeries(frameOut, frames.get(i).getSeries(), frames.get(i));
+                           frameOut.close();
+                       }
+                       if (isExportRawSelected()) {
+                           writeRawSamples(sibling(suffix + "_raw.csv"), frames.get(i));
+                       }
                    }
-                   outfile.write("\n");
-               }
-               double[][] data = xySeries.toArray();
-               outfile.write("Strain,Stress\n");
-               for (int i = 0; i < data[0].length; i++) {
-                   outfile.format("%.6f,%.6f%n", data[0][i], data[1][i]);
                }
            }
         } catch (FileNotFoundException fileNotFoundException) {
@@ -90,6 +100,97 @@ public class ExportController {
         isUnsaved = false;
     }
 
+    /*
+     * Writes the input values if they are selected, then every point of the series with the time it was taken
+     * The frame gives the point times, without one the time column is left out
+     */
+    private void writeSeries(PrintWriter outfile, XYSeries series, GraphUpdater frame){
+        if (isExportValuesSelected()) {//unit system, input values, gauge length
+            double gaugeLength = Calculations.convertLength(mainController.stringToUnits(mainController.getUnitSystem()), mainController.stringToUnits(inputController.getUnitSystem()), mainController.getGaugeLength());
+            double width = Calculations.convertLength(mainController.stringToUnits(mainController.getUnitSystem()), mainController.stringToUnits(inputController.getUnitSystem()), mainController.getWidth());
+            double depth = Calculations.convertLength(mainController.stringToUnits(mainController.getUnitSystem()), mainController.stringToUnits(inputController.getUnitSystem()), mainController.getDepth());
+            double diameter = Calculations.convertLength(mainController.stringToUnits(mainController.getUnitSystem()), mainController.stringToUnits(inputController.getUnitSystem()), mainController.getDiameter());
+            outfile.write("Unit System: " + inputController.getUnitSystem() + "\n");
+            outfile.write("Gauge Length: " + gaugeLength + "\n");
+            if (inputController.isRectangularSelected()) {
+                outfile.write("Width: " + width + "\n");
+                outfile.write("Depth: " + depth + "\n");
+            } else {
+                outfile.write("Diameter: " + diameter + "\n");
+            }
+            if (frame != null) {
+                Units units = mainController.stringToUnits(inputController.getUnitSystem());
+                double modulus = frame.getModulus(units);
+                double yieldStress = frame.getYieldStress(units);
+                if (!Double.isNaN(modulus)) {
+                    outfile.write("Elastic Modulus: " + modulus + "\n");
+                }
+                if (!Double.isNaN(yieldStress)) {
+                    outfile.write("Yield Strength (" + YieldDetector.DEFAULT_OFFSET * 100 + "% offset): " + yieldStress + "\n");
+                }
+            }
+            outfile.write("\n");
+        }
+        double[][] data = series.toArray();
+        SampleIndexList times = frame == null ? null : frame.getPointIndices();
+        if (times != null && times.size() == data[0].length) {
+            outfile.write("Time (s),Strain,Stress\n");
+            for (int i = 0; i < data[0].length; i++) {
+                outfile.format("%.6f,%.6f,%.6f%n", times.get(i) / frame.getSampleRate(), data[0][i], data[1][i]);
+            }
+        } else {
+            outfile.write("Strain,Stress\n");
+            for (int i = 0; i < data[0].length; i++) {
+                outfile.format("%.6f,%.6f%n", data[0][i], data[1][i]);
+            }
+        }
+    }
+
+    /*
+     * Gets a file next to the exported file, named after it with the given ending
+     */
+    private File sibling(String ending){
+        return new File(file.getPath().replaceAll("\\.csv$", "") + ending);
+    }
+
+    /*
+     * Writes every raw voltage sample to a file, one row per sample and one column per channel
+     */
+    private void writeRawSamples(File rawFile, GraphUpdater frame) throws FileNotFoundException {
+        SampleStore store = frame.getRawStore();
+        PrintWriter rawOut = new PrintWriter(new FileOutputStream(rawFile));
+        try {
+            int size = store.size();
+            double rate = frame.getSampleRate();
+            double[][] channels = new double[store.getChannels()][SampleStore.CHUNK_SIZE];
+            long[] indices = new long[SampleStore.CHUNK_SIZE];
+            StringBuilder header = new StringBuilder("Sample,Time (s)");
+            for (int j = 0; j < channels.length; j++) {
+                header.append(",").append(frame.getStreams()[j].getConfig().getName()).append(" (V)");
+            }
+            rawOut.write(header + "\n");
+            for (int start = 0; start < size; start += SampleStore.CHUNK_SIZE) {
+                int length = Math.min(SampleStore.CHUNK_SIZE, size - start);
+                store.copySampleIndices(start, indices, 0, length);
+                for (int j = 0; j < channels.length; j++) {
+                    store.copy(j, start, channels[j], 0, length);
+                }
+                for (int i = 0; i < length; i++) {
+                    rawOut.print(indices[i]);
+                    rawOut.print(',');
+                    rawOut.print(indices[i] / rate);
+                    for (double[] channel : channels) {
+                        rawOut.print(',');
+                        rawOut.print(channel[i]);
+                    }
+                    rawOut.println();
+                }
+            }
+        } finally {
+            rawOut.close();
+        }
+    }
+
     public ExportWindow getExportWindow() {
         return exportWindow;
     }
@@ -2,56 +2,185 @@ package controller;
 
 import kirkwood.nidaq.access.NiDaqException;
 import model.AITask;
+import model.ChannelConfig;
+import model.ReplaySource;
+import model.SampleBlock;
+import model.SampleIndexList;
+import model.SampleSource;
+import model.SampleStore;
 import org.jfree.data.xy.XYSeries;
 import controller.Calculations.Units;
+import javax.swing.SwingUtilities;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Live graphs data
+ * Live graphs data for one test frame
+ * Points are worked out on the graph thread but only added to the series on the event dispatch thread,
+ * a block's worth at a time, so the chart is never redrawn while the series is being changed
  */
-public class GraphUpdater extends Thread{
+public class GraphUpdater implements Runnable {
     private final XYSeries series;
     private final AtomicBoolean done = new AtomicBoolean(false);
     private final AtomicBoolean run = new AtomicBoolean(false);
-    private final AITask aiTask;
+    private final SampleSource aiTask;
+    private final AcquisitionThread acquisition;
     private final MainController mainController;
-    private double stressZero = 0.0; //force 0 -> stress
-    private double strainZero = 0.0; //elongation -> strain (Extensometer)
+    private final SampleStore rawStore;
+    private final SampleIndexList pointIndices = new SampleIndexList(); //changed on the event dispatch thread, like the series
+    private PointBatch pendingPoints = new PointBatch(); //points the graph thread has not handed over yet
+    private final ChannelStream[] streams;
+    private final ChannelStream forceStream;
+    private final ChannelStream elongationStream;
+    private final String deviceName;
+    private final AtomicBoolean restarted = new AtomicBoolean(false);
+    private final AtomicBoolean armed = new AtomicBoolean(false);
+    private final ChannelStream triggerStream;
+    private final double triggerLevel;
+    private final long preTriggerSamples;
+    private final RingBuffer<SampleBlock> preTrigger;
+    private final AtomicBoolean taring = new AtomicBoolean(false);
+    private final TareEngine tare;
+    private final boolean hardwareTrigger;
+    private final boolean correctDrift;
+    private volatile String tareRejection = null;
+    private volatile TestSnapshot snapshot; //conversions for the test running now, replaced whole when the tare finishes
+    private final ModulusEstimator modulus;
+    private final YieldDetector yieldDetector;
+    private long nextSampleIndex = -1; //index the next processed sample should have, -1 until the first after a restart
+    private int gaps = 0;
 
-    private static double LBS_PER_VOLT;
-    private static double INCHES_PER_VOLT;
+    /**
+     * @param series the series this frame's curve is drawn in
+     * @param mainController the controller holding the specimen inputs
+     * @param settingsController the controller holding the channel and rate settings
+     * @param deviceName the name NI MAX gives the device wired to this frame, such as Dev1
+     * @throws NiDaqException if the device could not be set up
+     */
+    public GraphUpdater(XYSeries series, MainController mainController, SettingsController settingsController, String deviceName) throws NiDaqException {
+        this.deviceName = deviceName;
+        List<ChannelConfig> channels = settingsController.getSettingsWindow().getChannelConfigs();
+        aiTask = createSampleSource(deviceName, channels.size());
+        try {
+            aiTask.setSampleRate(settingsController.getSettingsWindow().getSampleRate());
+            //every channel is on one task, so each hardware read returns a sample of all of them
+            for(ChannelConfig channel : channels){
+                aiTask.createAIChannel(channel.getChannel(), channel.getMode());
+            }
+            aiTask.setStartTrigger(settingsController.getSettingsWindow().getHardwareTrigger(), settingsController.getSettingsWindow().isHardwareTriggerRising());
+            aiTask.readyToRun();
 
-    public GraphUpdater(XYSeries series, MainController mainController, SettingsController settingsController) throws NiDaqException {
-        aiTask = new AITask();
-        // DO NOT CHANGE THE ORDER OF THE NEXT 2 LINES
-        aiTask.createAIChannel(settingsController.getSettingsWindow().getForceChannel(), settingsController.getSettingsWindow().getForceMode()); //Force
-        aiTask.createAIChannel(settingsController.getSettingsWindow().getElongationChannel(), settingsController.getSettingsWindow().getElongationMode()); //Elongation
-        aiTask.readyToRun();
+            //while armed the last pre-trigger seconds of blocks are held back, one extra covers the block the trigger lands in
+            preTriggerSamples = (long) Math.ceil(settingsController.getSettingsWindow().getPreTriggerSeconds() * aiTask.getSampleRate());
+            preTrigger = new RingBuffer<>((int) (preTriggerSamples / aiTask.getSamplesPerBlock()) + 1);
+            long reconnectTimeout = Math.round(settingsController.getSettingsWindow().getReconnectTimeout() * 1000);
+            acquisition = new AcquisitionThread(aiTask, preTrigger.getCapacity(), reconnectTimeout);
+            rawStore = new SampleStore(aiTask.getChannels());
 
-        LBS_PER_VOLT = settingsController.getSettingsWindow().getForceVoltage2UnitConstant();
-        INCHES_PER_VOLT = settingsController.getSettingsWindow().getElongationVoltage2UnitConstant();
+            //kept as a double, display rates under one point a second are allowed
+            double displayRate = Math.min(settingsController.getSettingsWindow().getDisplayRate(), aiTask.getSampleRate());
+            //the chart only needs displayRate points a second, the raw store keeps the full rate
+            //the decimators low-pass filter on the way down, so nothing needs averaging after them
+            int decimation = (int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.round(aiTask.getSampleRate() / displayRate)));
+            streams = new ChannelStream[channels.size()];
+            for(int j = 0; j < streams.length; j++){
+                streams[j] = new ChannelStream(channels.get(j), j, decimation, aiTask.getSampleRate());
+            }
+            forceStream = getStream(ChannelConfig.FORCE);
+            elongationStream = getStream(ChannelConfig.ELONGATION);
+            String triggerChannel = settingsController.getSettingsWindow().getTriggerChannel();
+            triggerStream = triggerChannel == null ? null : getStream(triggerChannel);
+            triggerLevel = settingsController.getSettingsWindow().getTriggerLevel();
+            //with a hardware trigger the tare is taken with the trigger disarmed, then the trigger is armed for the test
+            hardwareTrigger = settingsController.getSettingsWindow().getHardwareTrigger() != null;
+            long tareSamples = Math.max(3, Math.round(settingsController.getSettingsWindow().getTareSeconds() * aiTask.getSampleRate()));
+            tare = new TareEngine(channels, tareSamples, aiTask.getSampleRate(),
+                    settingsController.getSettingsWindow().getTareNoiseLimit(), settingsController.getSettingsWindow().getTareDriftLimit());
+            correctDrift = settingsController.getSettingsWindow().isDriftCorrected();
+            modulus = new ModulusEstimator(settingsController.getSettingsWindow().getModulusFromStrain(),
+                    settingsController.getSettingsWindow().getModulusToStrain(), settingsController.getSettingsWindow().getModulusPoints());
+            yieldDetector = new YieldDetector(modulus, YieldDetector.DEFAULT_OFFSET);
+        } catch (NiDaqException | RuntimeException e) {
+            //the task holds the device until it is closed, so a session that never starts has to let it go
+            aiTask.close();
+            throw e;
+        }
 
         this.mainController = mainController;
         this.series = series;
     }
 
+    /*
+     * Uses the National Instruments device unless a replay is requested with -Dtensile.replay=<csv file|synthetic>.
+     * -Dtensile.replay.speed sets how many times faster than real time to replay, 0 runs as fast as possible.
+     * Recorded files replay the stress column on the force channel and the strain column on the elongation channel.
+     */
+    private static SampleSource createSampleSource(String deviceName, int channelCount) throws NiDaqException {
+        String replay = System.getProperty("tensile.replay");
+        if(replay == null){
+            return new AITask(deviceName);
+        }
+        double speed = Double.parseDouble(System.getProperty("tensile.replay.speed", "1"));
+        if(replay.equals("synthetic")){
+            return ReplaySource.synthetic(speed, 600, channelCount);
+        }
+        try {
+            File file = new File(replay);
+            //only stress and strain are recorded, so extra channels replay the strain column
+            int[] columns = new int[channelCount];
+            Arrays.fill(columns, ReplaySource.findColumn(file, "Strain", 0));
+            columns[0] = ReplaySource.findColumn(file, "Stress", 1);
+            return new ReplaySource(file, speed, columns);
+        } catch (FileNotFoundException e) {
+            throw new IllegalArgumentException("Replay file not found: " + replay, e);
+        }
+    }
+
+    /**
+     * Starts this frame's acquisition and graphing loops
+     * @param scheduler the executor shared by every session
+     */
+    public void start(ExecutorService scheduler){
+        scheduler.execute(acquisition);
+        scheduler.execute(this);
+    }
+
     /**
-     * Runs the graph updater thread.
-     * Adds data from National Instruments Chip to the series
+     * Runs the graph updater loop.
+     * Takes the blocks read by the acquisition thread and adds them to the series.
+     * Each collect starts by taring, the blocks go to the tare engine until its window is full.
+     * A hardware start trigger is only armed once the tare is done, so the tare never waits for the edge.
+     * While armed, blocks are held in the pre-trigger ring buffer until the trigger channel crosses its level
      */
     @Override
     public void run() {
-        SlidingAverage forceAveraged = new SlidingAverage(AITask.UPDATES_PER_SECOND);
-        SlidingAverage elongationAveraged = new SlidingAverage(AITask.UPDATES_PER_SECOND);
-        while(!done.get()) {//call code from class that gets data from the chip.
+        while(!done.get()) {
+            SampleBlock block = null;
             try {
                 if(!run.get()){
                     synchronized (this){
-                        wait();
+                        while(!run.get() && !done.get()) {
+                            wait();
+                        }
+                    }
+                }
+                if(restarted.getAndSet(false)){
+                    releasePreTrigger();
+                    nextSampleIndex = -1;
+                    tare.reset();
+                    modulus.reset();
+                    yieldDetector.reset();
+                    for(ChannelStream stream : streams){
+                        stream.reset();
                     }
                 }
 
-                Thread.sleep(50);
+                //time out so a pause or terminate is noticed even when no blocks are arriving
+                block = acquisition.take(1000 / AITask.UPDATES_PER_SECOND);
             } catch (InterruptedException e) {
                 //do nothing
             }
@@ -59,73 +188,287 @@ public class GraphUpdater extends Thread{
             if(done.get()) {
                 return;
             }
+            if(block == null){
+                continue;
+            }
+
+            if(taring.get() || tareRejection != null){
+                if(tareRejection == null){
+                    tare.add(block);
+                    if(tare.isComplete()){
+                        finishTare();
+                    }
+                }
+                acquisition.release(block);
+                continue;
+            }
+
+            if(!armed.get()){
+                process(block, 0);
+                acquisition.release(block);
+                continue;
+            }
+
+            int trigger = findTrigger(block);
+            if(trigger < 0){
+                SampleBlock oldest = preTrigger.add(block);
+                if(oldest != null){
+                    acquisition.release(oldest);
+                }
+                continue;
+            }
+
+            //record the pre-trigger window straight out of the held blocks, then the rest of this block
+            armed.set(false);
+            long skip = trigger - preTriggerSamples;
+            for(int k = 0; k < preTrigger.size(); k++){
+                skip += preTrigger.get(k).getSamplesPerChannel();
+            }
+            for(int k = 0; k < preTrigger.size(); k++){
+                SampleBlock held = preTrigger.get(k);
+                if(skip < held.getSamplesPerChannel()){
+                    process(held, (int) Math.max(0, skip));
+                }
+                skip -= held.getSamplesPerChannel();
+            }
+            process(block, (int) Math.max(0, skip));
+            acquisition.release(block);
+            releasePreTrigger();
+        }
+    }
+
+    /*
+     * Stores the samples of the block from the given index on and adds any points they complete to the series
+     */
+    private void process(SampleBlock block, int from){
+        if(from >= block.getSamplesPerChannel()){
+            return;
+        }
+        //samples missing between blocks were lost to an overrun or a reconnect
+        if(nextSampleIndex >= 0 && block.getSampleIndex(from) != nextSampleIndex){
+            markGap(block.getSampleIndex(from));
+        }
+        nextSampleIndex = block.getSampleIndex(block.getSamplesPerChannel() - 1) + 1;
+        rawStore.append(block, from);
+        //fan the multiplexed block out to each channel, every stream decimates at the same rate so they stay in step
+        for(ChannelStream stream : streams){
+            stream.filter(block, from);
+        }
+        TestSnapshot test = snapshot;
+        for(int i = from; i < block.getSamplesPerChannel(); i++){
+            boolean pointReady = false;
+            for(ChannelStream stream : streams){
+                pointReady = stream.addFiltered(i - from);
+            }
+            if(pointReady){
+                addPoint(test, forceStream.getVoltage(), forceStream.getSampleIndex(), elongationStream.getVoltage(), elongationStream.getSampleIndex());
+            }
+        }
+        flushPoints();
+    }
+
+    /*
+     * Zeros every channel from a full tare window and moves on to recording, or holds recording back if
+     * the tare was too noisy or drifting, for the main controller to stop the test
+     */
+    private void finishTare(){
+        tareRejection = tare.getRejection();
+        if(tareRejection == null){
+            for(ChannelStream stream : streams){
+                int j = stream.getIndex();
+                stream.setZero(tare.getZero(j), correctDrift ? tare.getDriftPerSample(j) : 0.0, tare.getLastIndex(), tare.getDriftHorizon());
+            }
+            snapshot = withStreamZeros(snapshot);
+            armed.set(triggerStream != null);
+            if(hardwareTrigger){
+                armHardwareTrigger();
+            }
+        }
+        taring.set(false);
+    }
+
+    /*
+     * Stops the untriggered acquisition the tare was taken from and starts it again waiting for the hardware edge.
+     * Any blocks read after the tare window are thrown away, the test starts at the edge
+     */
+    private synchronized void armHardwareTrigger(){
+        //paused while the tare finished, the next collect tares again
+        if(!run.get()){
+            return;
+        }
+        acquisition.pause();
+        try {
+            aiTask.setStartTriggerArmed(true);
+        } catch (NiDaqException e) {
+            e.printStackTrace();
+            tareRejection = "the hardware trigger could not be armed: " + e.getMessage();
+            return;
+        }
+        acquisition.clear();
+        acquisition.collect();
+    }
+
+    /*
+     * Breaks the curve where samples are missing with a point that has no stress, which the chart leaves
+     * a gap for and the export writes as NaN. Partly averaged points are thrown away so no point spans the gap.
+     * The raw store needs no marker, its sample indices jump over the missing samples
+     */
+    private void markGap(long sampleIndex){
+        gaps++;
+        for(ChannelStream stream : streams){
+            stream.reset();
+        }
+        pendingPoints.add(Double.NaN, Double.NaN, sampleIndex);
+    }
+
+    /*
+     * Finds the first sample where the trigger channel reaches the trigger level
+     * Positive levels trigger on rising past them, negative levels on falling past them
+     * Returns -1 if the block never reaches it
+     */
+    private int findTrigger(SampleBlock block){
+        for(int i = 0; i < block.getSamplesPerChannel(); i++){
+            double value = triggerStream.toUnits(block.getSample(triggerStream.getIndex(), i), block.getSampleIndex(i));
+            if(triggerLevel >= 0 ? value >= triggerLevel : value <= triggerLevel){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Hands every held block back to the acquisition thread
+     */
+    private void releasePreTrigger(){
+        for(int k = 0; k < preTrigger.size(); k++){
+            acquisition.release(preTrigger.get(k));
+        }
+        preTrigger.clear();
+    }
 
-            aiTask.collectData();
-            double force = aiTask.getChannelData(0);
-            double length = aiTask.getChannelData(1); // raw voltage data
+    /*
+     * Converts one smoothed pair of force and elongation voltages to stress and strain and adds it to the series
+     * along with the index of the force sample it describes, and to the modulus fit and yield detector.
+     * Each voltage is taken at its own index, which is behind the newest sample by its channel's filter delay
+     */
+    private void addPoint(TestSnapshot test, double forceVolts, long forceIndex, double elongationVolts, long elongationIndex){
+        double strain = test.strain(elongationVolts, elongationIndex);
+        double stress = test.stress(forceVolts, forceIndex);
+        modulus.add(strain, stress);
+        yieldDetector.add(strain, stress);
+        pendingPoints.add(strain, stress, forceIndex);
+    }
 
-            double forceValue = (LBS_PER_VOLT * (forceAveraged.addData(force)  - stressZero));
-            double elongationValue = (INCHES_PER_VOLT * (elongationAveraged.addData(length)  - strainZero));
+    /*
+     * Hands the points added since the last flush to the event dispatch thread
+     */
+    private void flushPoints(){
+        if(pendingPoints.size == 0){
+            return;
+        }
+        PointBatch batch = pendingPoints;
+        pendingPoints = new PointBatch();
+        SwingUtilities.invokeLater(() -> addPoints(batch));
+    }
 
-            if(mainController.getUnitSystem().equals("Metric")){
-                forceValue = Calculations.convertForce(Calculations.Units.ENGLISH, Calculations.Units.METRIC,forceValue);
-                elongationValue = Calculations.convertLength(Calculations.Units.ENGLISH, Calculations.Units.METRIC, elongationValue);
+    /*
+     * Adds a batch of points to the series and their sample indices to the index list, then redraws once.
+     * Runs on the event dispatch thread. A gap only goes in after a point, at the same strain
+     */
+    private void addPoints(PointBatch batch){
+        for(int i = 0; i < batch.size; i++){
+            if(Double.isNaN(batch.stresses[i])){
+                if(!series.isEmpty()){
+                    pointIndices.add(batch.indices[i]);
+                    series.add(series.getX(series.getItemCount() - 1), null, false);
+                }
             }else{
-                forceValue /= 1000;
+                pointIndices.add(batch.indices[i]);
+                series.add(batch.strains[i], batch.stresses[i], false);
             }
+        }
+        series.fireSeriesChanged();
+    }
 
-            double stressValue = Calculations.calculateStress(forceValue, mainController.findArea());
-            double strainValue = Calculations.calculateStrain(elongationValue, mainController.getGaugeLength());
+    /*
+     * Points worked out on the graph thread waiting to be added to the series, a NaN stress marks a gap
+     */
+    private static final class PointBatch {
+        private double[] strains = new double[16];
+        private double[] stresses = new double[16];
+        private long[] indices = new long[16];
+        private int size = 0;
 
-            series.add(strainValue, stressValue, true);
+        void add(double strain, double stress, long sampleIndex){
+            if(size == indices.length){
+                strains = Arrays.copyOf(strains, size * 2);
+                stresses = Arrays.copyOf(stresses, size * 2);
+                indices = Arrays.copyOf(indices, size * 2);
+            }
+            strains[size] = strain;
+            stresses[size] = stress;
+            indices[size] = sampleIndex;
+            size++;
         }
     }
 
+    /*
+     * Folds the force and elongation streams' current zeros into a copy of a snapshot
+     */
+    private TestSnapshot withStreamZeros(TestSnapshot test){
+        //both channels are tared together, the elongation zero is read at the force zero's index in case they ever differ
+        long zeroIndex = forceStream.getZeroIndex();
+        return test.withZeros(forceStream.getZero(), forceStream.getDrift(), elongationStream.getZero(zeroIndex), elongationStream.getDrift(),
+                zeroIndex, forceStream.getDriftHorizon());
+    }
+
     /**
      * Pauses the graph updater thread
      */
-    public void pause(){
+    public synchronized void pause(){
         run.set(false);
-        aiTask.pause();
-
+        acquisition.pause();
     }
 
     /**
      * Resumes the graph updater thread
+     * The specimen inputs are read once here, nothing is looked up again until the next collect
+     * @param units unit system the curve is drawn in
+     * @param area cross section area of the specimen
+     * @param gaugeLength gauge length of the specimen
      */
-    public synchronized void collect(){
+    public synchronized void collect(Units units, double area, double gaugeLength){
+        snapshot = withStreamZeros(new TestSnapshot(units, area, gaugeLength,
+                forceStream.getConfig().getCalibration(), elongationStream.getConfig().getCalibration()));
+        acquisition.clear();
+        restarted.set(true);
+        tareRejection = null;
+        taring.set(true);
+        armed.set(false);
+        if(hardwareTrigger){
+            try {
+                aiTask.setStartTriggerArmed(false);
+            } catch (NiDaqException e) {
+                //still triggered, a tare taken now would wait for the edge and read the loaded specimen
+                e.printStackTrace();
+                tareRejection = "could not sample without the hardware trigger to tare: " + e.getMessage();
+            }
+        }
         run.set(true);
+        acquisition.collect();
         notifyAll();
     }
 
     /**
-     * Stops the tread permanently
+     * Stops the tread permanently and releases the device
      */
     public synchronized void terminate() {
         done.set(true);
+        acquisition.terminate();
+        aiTask.close();
         notifyAll();
     }
 
-    /*
-     * Updates the zero points for the voltages
-     */
-    protected void updateZeros(){
-        double forceTotal = 0.0;
-        double elongationTotal = 0.0;
-        aiTask.collectData();
-
-        for(int i = 0; i < AITask.UPDATES_PER_SECOND; i++){
-            double channel0 = aiTask.getChannelData(AITask.FORCE_CHANNEL);
-            double channel1 = aiTask.getChannelData(AITask.LENGTH_CHANNEL);
-
-            forceTotal += channel0;
-            elongationTotal += channel1;
-        }
-
-        stressZero = forceTotal / AITask.UPDATES_PER_SECOND;
-        strainZero = elongationTotal / AITask.UPDATES_PER_SECOND;
-    }
-
     /**
      * Updates the graph units based on starting and ending units
      * @param startingUnits the units that currently appear on the graph
@@ -134,6 +477,10 @@ public class GraphUpdater extends Thread{
      */
     public void updateGraphUnits(Units startingUnits, Units endingUnits, XYSeries series){
         for(int i = 0; i < series.getItemCount(); i++){
+            //gaps have no stress to convert
+            if(series.getY(i) == null){
+                continue;
+            }
             double yValue = series.getY(i).doubleValue();
             yValue = Calculations.convertPressure(startingUnits, endingUnits, yValue);
             series.updateByIndex(i, yValue);
@@ -143,4 +490,128 @@ public class GraphUpdater extends Thread{
     public XYSeries getSeries() {
         return series;
     }
+
+    /**
+     * @return the sample clock index of each point in the series, in the same order, kept in step on the event dispatch thread
+     */
+    public SampleIndexList getPointIndices() {
+        return pointIndices;
+    }
+
+    /**
+     * @return samples per second per channel, the sample clock indices divide by this to give seconds
+     */
+    public double getSampleRate() {
+        return aiTask.getSampleRate();
+    }
+
+    public String getDeviceName() {
+        return deviceName;
+    }
+
+    /**
+     * @return a one line summary of how well acquisition is keeping up with the device,
+     * followed by the latest reading of each extra channel in its calibrated units
+     */
+    public String getStatus() {
+        String state = taring.get() ? " (taring)" : armed.get() ? " (armed)" : "";
+        if(acquisition.hasFailed()){
+            state = " (device lost)";
+        }else if(acquisition.isReconnecting()){
+            state = " (reconnecting)";
+        }
+        long spikes = 0;
+        for(ChannelStream stream : streams){
+            spikes += stream.getRejectedSamples();
+        }
+        String status = String.format("%s%s: backlog %d samples, latency %.0f ms, overruns %d, dropped blocks %d, reconnects %d, gaps %d, spikes %d",
+                deviceName, state, aiTask.getBacklog(), aiTask.getReadLatency() * 1000, aiTask.getOverruns(), acquisition.getDroppedBlocks(), acquisition.getReconnects(), gaps, spikes);
+        for(ChannelStream stream : streams){
+            if(stream != forceStream && stream != elongationStream){
+                status += String.format(", %s %.4g", stream.getConfig().getName(), stream.getValue());
+            }
+        }
+        return status;
+    }
+
+    /**
+     * @return the elastic modulus fitted so far this test with its R^2, or that there are not enough points yet,
+     * followed by the offset yield strength once the curve has reached it
+     */
+    public String getModulusStatus() {
+        TestSnapshot test = snapshot;
+        double fitted = modulus.getModulus();
+        if(test == null || Double.isNaN(fitted)){
+            return String.format("%s: E waiting for strain %g to %g", deviceName, modulus.getFromStrain(), modulus.getToStrain());
+        }
+        //stress is in MPa or KSI, the modulus reads better in GPa or ksi
+        boolean metric = test.getUnits() == Units.METRIC;
+        String value = metric ? String.format("%.1f GPa", fitted / 1000) : String.format("%.0f ksi", fitted);
+        String status = String.format("%s: E = %s, R\u00b2 %.5f over %d points", deviceName, value, modulus.getRSquared(), modulus.getPoints());
+        if(yieldDetector.isFound()){
+            status += String.format(", %.1f%% offset yield %.1f %s at strain %.5f", yieldDetector.getOffset() * 100,
+                    yieldDetector.getYieldStress(), metric ? "MPa" : "ksi", yieldDetector.getYieldStrain());
+        }
+        return status;
+    }
+
+    /**
+     * @param units unit system to give the modulus in
+     * @return stress per unit strain fitted to the elastic region, or NaN if there is no fit
+     */
+    public double getModulus(Units units) {
+        TestSnapshot test = snapshot;
+        return test == null ? Double.NaN : Calculations.convertPressure(test.getUnits(), units, modulus.getModulus());
+    }
+
+    /**
+     * @param units unit system to give the stress in
+     * @return offset yield strength, or NaN if the curve has not reached it
+     */
+    public double getYieldStress(Units units) {
+        TestSnapshot test = snapshot;
+        return test == null ? Double.NaN : Calculations.convertPressure(test.getUnits(), units, yieldDetector.getYieldStress());
+    }
+
+    /**
+     * @return why the last tare was rejected, or null if it was good or is still being taken
+     */
+    public String getTareRejection() {
+        return tareRejection;
+    }
+
+    /**
+     * @return true if the device was lost and could not be reconnected in time, acquisition stays stopped until the next collect
+     */
+    public boolean isDeviceLost() {
+        return acquisition.hasFailed();
+    }
+
+    /**
+     * Finds the stream for the named channel
+     * @param name name of the channel
+     * @return the stream, or null if there is no channel with that name
+     */
+    public ChannelStream getStream(String name){
+        for(ChannelStream stream : streams){
+            if(stream.getConfig().getName().equals(name)){
+                return stream;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return one stream per channel in the order they are read, force and elongation first
+     */
+    public ChannelStream[] getStreams(){
+        return streams;
+    }
+
+    /**
+     * @return every raw voltage sample acquired since the graph was last cleared, at the full sample rate
+     */
+    public SampleStore getRawStore() {
+        return rawStore;
+    }
 }
@@ -33,7 +33,7 @@ public class InputController {
 
         inputWindow.getOkButton().addActionListener(e -> {
             inputWindow.setVisible(false);
-            if(mainController.getUpdater() == null || mainController.getUpdater().getSeries().isEmpty()){
+            if(mainController.getSessions() == null || mainController.getSessions().isEmpty()){
                 mainController.getMainWindow().getStartButton().setEnabled(true);
             }
             pullInputValues(); //actually store the inputs
@@ -83,8 +83,8 @@ public class InputController {
         //convert the values to the correct unit system
         double convertedValue;
         if (inputWindow.getUnitSelectionBox().getSelectedItem().equals("English")) {
-            if(mainController.getUpdater() != null){
-                mainController.getUpdater().updateGraphUnits(inputWindow.getCurrentUnitSystem(), Units.ENGLISH, mainController.getMainWindow().getSeries());
+            if(mainController.getSessions() != null){
+                mainController.getSessions().updateGraphUnits(inputWindow.getCurrentUnitSystem(), Units.ENGLISH);
             }
             convertedValue = Calculations.convertLength(inputWindow.getCurrentUnitSystem(), Units.ENGLISH, getGaugeLengthInput());
             inputWindow.setCurrentUnitSystem(Units.ENGLISH);
@@ -99,8 +99,8 @@ public class InputController {
             inputWindow.getDiameterLabel().setText("Diameter (in): ");
             inputWindow.getWidthLabel().setText("Width (in): ");
         }else {
-            if(mainController.getUpdater() != null) {
-                mainController.getUpdater().updateGraphUnits(inputWindow.getCurrentUnitSystem(), Units.METRIC, mainController.getMainWindow().getSeries());
+            if(mainController.getSessions() != null) {
+                mainController.getSessions().updateGraphUnits(inputWindow.getCurrentUnitSystem(), Units.METRIC);
             }
             convertedValue = Calculations.convertLength(inputWindow.getCurrentUnitSystem(), Units.METRIC, getGaugeLengthInput());
             inputWindow.setCurrentUnitSystem(Units.METRIC);
@@ -6,6 +6,7 @@ import view.MainWindow;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import javax.swing.*;
+import java.util.List;
 
 /**
  * Root of the entire program, controls all the main window functionality and some interactions between windows
@@ -18,7 +19,9 @@ public class MainController {
     private final SettingsController settingsController;
     private final ExportController exportController;
     private boolean isStart = true;
-    private GraphUpdater updater;
+    private SessionManager sessions;
+    private boolean settingsChanged = false; //true once saved settings differ from the ones the sessions were built with
+    private final Timer statusTimer;
 
     //These are the values we are only going to populate when we start pulling data
     private String unitSystem;
@@ -34,6 +37,20 @@ public class MainController {
         settingsController = new SettingsController(inputController, this);
         exportController = new ExportController(mainWindow.getSeries(), this, inputController);
 
+        //refresh the acquisition status twice a second, reading it never touches the driver
+        statusTimer = new Timer(500, e -> {
+            if(sessions != null){
+                mainWindow.getStatusLabel().setText(sessions.getStatus());
+                if(!isStart){
+                    //only refreshed while collecting, so the last fit stays up after Stop until the graph is cleared
+                    mainWindow.getModulusLabel().setText(sessions.getModulusStatus());
+                    warnIfDeviceLost();
+                    warnIfTareRejected();
+                }
+            }
+        });
+        statusTimer.start();
+
         mainWindow.getInput().addActionListener(e ->inputController.getInputWindow().setVisible(true));
         mainWindow.getSettings().addActionListener(e -> settingsController.getSettingsWindow().setVisible(true));
 
@@ -79,9 +96,14 @@ public class MainController {
         mainWindow.getStartButton().addActionListener(e -> {
             if(isStart){
                 try {
-                    if (updater == null) {
-                        updater = new GraphUpdater(mainWindow.getSeries(), this, settingsController);
-                        updater.start();
+                    //new channel, rate or device settings take effect here, by building the sessions again
+                    if (sessions != null && settingsChanged) {
+                        sessions.terminate();
+                        sessions = null;
+                    }
+                    if (sessions == null) {
+                        sessions = new SessionManager(this, settingsController);
+                        settingsChanged = false;
                     }
                     //if no input values at all give a warning
                     if (!inputController.haveInputs()) {
@@ -100,9 +122,8 @@ public class MainController {
                         startDataCollection();
                     }
                 }catch (NiDaqException exception){
-                    updater = null;
-                    JOptionPane.showMessageDialog(null, "Failed to start data collection.\nCheck that National Instruments device is connected via USB port, then restart this program.", "Device Connected?", JOptionPane.ERROR_MESSAGE);
-                    disposeAll();
+                    sessions = null;
+                    JOptionPane.showMessageDialog(null, "Failed to start data collection.\nCheck that National Instruments device is connected via USB port, then press Start again.", "Device Connected?", JOptionPane.ERROR_MESSAGE);
                 }
             }else {
                 stopDataCollection();
@@ -148,8 +169,9 @@ public class MainController {
         settingsController.getSettingsWindow().dispose();
         exportController.getExportWindow().dispose();
         mainWindow.dispose();
-        if(updater != null){
-            updater.terminate();
+        statusTimer.stop();
+        if(sessions != null){
+            sessions.terminate();
         }
     }
 
@@ -164,9 +186,10 @@ public class MainController {
         mainWindow.getReset().setEnabled(false);
         mainWindow.getSettings().setEnabled(false);
         mainWindow.getInput().setEnabled(false);
-        updater.updateZeros();
-        updater.pause();
-        updater.collect();
+        //collecting starts with a tare of every channel
+        //the specimen inputs cannot change while collecting, so they are read here once instead of for every point
+        sessions.pause();
+        sessions.collect(stringToUnits(unitSystem), findArea(), gaugeLength);
         isStart = false;
         exportController.isUnsaved = true;
     }
@@ -186,8 +209,8 @@ public class MainController {
         mainWindow.getExportButton().setEnabled(true);
         setInputFieldsEnabled(false);
         isStart = true;
-        if(updater != null) {
-            updater.pause();
+        if(sessions != null) {
+            sessions.pause();
         }
     }
 
@@ -196,6 +219,10 @@ public class MainController {
      */
     private void clearGraph(){
         mainWindow.getSeries().clear();
+        mainWindow.getModulusLabel().setText(" ");
+        if(sessions != null){
+            sessions.clear();
+        }
         mainWindow.getStartButton().setEnabled(true);
         mainWindow.getClearButton().setEnabled(false);
         mainWindow.getInputButton().setEnabled(true);
@@ -246,6 +273,31 @@ public class MainController {
 
     }
 
+    /*
+     * Stops collecting if any frame lost its device and could not reconnect in time
+     * The data collected before the device was lost is kept so it can still be exported
+     */
+    private void warnIfDeviceLost(){
+        List<String> lost = sessions.getLostDevices();
+        if(!lost.isEmpty()){
+            stopDataCollection();
+            JOptionPane.showMessageDialog(null, "Lost connection to " + String.join(", ", lost) + " and could not reconnect.\nThe data collected so far has been kept.", "Device Disconnected", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /*
+     * Stops collecting if a tare was too noisy or drifting, nothing has been recorded yet so Start can be pressed again
+     */
+    private void warnIfTareRejected(){
+        List<String> rejections = sessions.getTareRejections();
+        if(!rejections.isEmpty() && !isStart){
+            stopDataCollection();
+            clearGraph();
+            JOptionPane.showMessageDialog(null, "The tare was rejected:\n" + String.join("\n", rejections) +
+                    "\nMake sure the specimen is unloaded and the signals have settled, then press Start again.", "Tare Rejected", JOptionPane.WARNING_MESSAGE);
+        }
+    }
+
     /*
      * Confirm exit of program while actively pulling data
      */
@@ -324,7 +376,12 @@ public class MainController {
 
     public double getDiameter() { return diameter; }
 
-    public GraphUpdater getUpdater() { return updater; }
+    public SessionManager getSessions() { return sessions; }
+
+    /**
+     * Called when new settings are saved, so the next Start builds the sessions from them
+     */
+    public void onSettingsChanged() { settingsChanged = true; }
 
     public static void main(String[] args){
         try{
@@ -0,0 +1,191 @@
+package controller;
+
+/**
+ * Fits the elastic modulus to the stress-strain points as they are drawn.
+ * Keeps the sums LinearRegression makes its two passes for (x, y, xy, x^2 and y^2) and works the slope and
+ * R^2 out from them after every point, so the fit costs the same however many points it covers.
+ * Only points with a strain inside the elastic range are used. By default the fit grows to cover every one,
+ * or it can slide over the most recent few. The sums are taken about the first point used, which keeps them
+ * small enough that the differences the fit is made from do not lose their precision. Taking points back off
+ * a sliding fit leaves their rounding behind, so each time the window has turned over its sums are rebuilt
+ * from the points it holds, about the oldest of them
+ */
+public class ModulusEstimator {
+    private final double fromStrain;
+    private final double toStrain;
+    private final double[] strains; //points in a sliding fit, oldest first from next, empty for a growing one
+    private final double[] stresses;
+    private int next = 0;
+    private int removed = 0; //points taken off a sliding fit since its sums were last rebuilt
+
+    private int count = 0;
+    private double originStrain = 0.0;
+    private double originStress = 0.0;
+    private double sumX = 0.0;
+    private double sumY = 0.0;
+    private double sumXY = 0.0;
+    private double sumXX = 0.0;
+    private double sumYY = 0.0;
+    //read from the event thread while points are added on the graph thread
+    private volatile double modulus = Double.NaN;
+    private volatile double rSquared = Double.NaN;
+    private volatile double intercept = Double.NaN;
+    private volatile int points = 0;
+
+    /**
+     * @param fromStrain lowest strain used in the fit
+     * @param toStrain highest strain used in the fit
+     * @param maxPoints most recent points fitted, 0 to fit every point in the range
+     */
+    public ModulusEstimator(double fromStrain, double toStrain, int maxPoints){
+        if(!(toStrain > fromStrain)){
+            throw new IllegalArgumentException("Modulus strain range must run from a lower to a higher strain");
+        }
+        if(maxPoints < 0 || maxPoints == 1){
+            throw new IllegalArgumentException("Modulus fit needs at least 2 points, or 0 for every point");
+        }
+        this.fromStrain = fromStrain;
+        this.toStrain = toStrain;
+        strains = new double[maxPoints];
+        stresses = new double[maxPoints];
+    }
+
+    /**
+     * Adds a point to the fit if its strain is in the elastic range
+     * @param strain strain of the point
+     * @param stress stress of the point
+     * @return true if the point was used
+     */
+    public boolean add(double strain, double stress){
+        if(!(strain >= fromStrain && strain <= toStrain) || Double.isNaN(stress)){
+            return false;
+        }
+        if(count == 0){
+            originStrain = strain;
+            originStress = stress;
+        }
+        if(strains.length > 0){
+            if(count == strains.length){
+                accumulate(strains[next], stresses[next], -1);
+                count--;
+                removed++;
+            }
+            strains[next] = strain;
+            stresses[next] = stress;
+            next = (next + 1) % strains.length;
+        }
+        accumulate(strain, stress, 1);
+        count++;
+        if(removed == strains.length && removed > 0){
+            rebuild();
+        }
+        update();
+        return true;
+    }
+
+    /*
+     * Adds a point's terms to the sums, or takes them off again with a sign of -1
+     */
+    private void accumulate(double strain, double stress, int sign){
+        double x = strain - originStrain;
+        double y = stress - originStress;
+        sumX += sign * x;
+        sumY += sign * y;
+        sumXY += sign * x * y;
+        sumXX += sign * x * x;
+        sumYY += sign * y * y;
+    }
+
+    /*
+     * Sums the full sliding window again from scratch, about its oldest point
+     */
+    private void rebuild(){
+        removed = 0;
+        originStrain = strains[next];
+        originStress = stresses[next];
+        sumX = 0.0;
+        sumY = 0.0;
+        sumXY = 0.0;
+        sumXX = 0.0;
+        sumYY = 0.0;
+        for(int k = 0; k < count; k++){
+            accumulate(strains[k], stresses[k], 1);
+        }
+    }
+
+    /*
+     * The summary statistics of LinearRegression's second pass, taken from the sums in one go
+     */
+    private void update(){
+        double xxbar = sumXX - sumX * sumX / count;
+        double yybar = sumYY - sumY * sumY / count;
+        double xybar = sumXY - sumX * sumY / count;
+        points = count;
+        if(count < 2 || xxbar <= 0.0){
+            modulus = Double.NaN;
+            rSquared = Double.NaN;
+            intercept = Double.NaN;
+            return;
+        }
+        double slope = xybar / xxbar;
+        //ybar - slope * xbar, moved back from about the first point
+        intercept = originStress + sumY / count - slope * (originStrain + sumX / count);
+        modulus = slope;
+        //the regression sum of squares over the total, slope^2 * xxbar / yybar
+        rSquared = yybar > 0.0 ? xybar * xybar / (xxbar * yybar) : Double.NaN;
+    }
+
+    /**
+     * @return stress per unit strain, in the units the stress is in, or NaN until two different strains are fitted
+     */
+    public double getModulus(){
+        return modulus;
+    }
+
+    /**
+     * @return stress where the fitted line meets zero strain, or NaN until there is a fit
+     */
+    public double getIntercept(){
+        return intercept;
+    }
+
+    /**
+     * @return the coefficient of determination of the fit, or NaN until there is one
+     */
+    public double getRSquared(){
+        return rSquared;
+    }
+
+    /**
+     * @return number of points in the fit
+     */
+    public int getPoints(){
+        return points;
+    }
+
+    public double getFromStrain(){
+        return fromStrain;
+    }
+
+    public double getToStrain(){
+        return toStrain;
+    }
+
+    /**
+     * Empties the fit for a new test
+     */
+    public void reset(){
+        count = 0;
+        next = 0;
+        removed = 0;
+        sumX = 0.0;
+        sumY = 0.0;
+        sumXY = 0.0;
+        sumXX = 0.0;
+        sumYY = 0.0;
+        modulus = Double.NaN;
+        rSquared = Double.NaN;
+        intercept = Double.NaN;
+        points = 0;
+    }
+}
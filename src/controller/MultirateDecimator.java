@@ -0,0 +1,135 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A cascade of decimators that turns one raw stream into anti-aliased streams at several lower rates,
+ * each level running on the output of the one before it. Every level's filter is designed for its own
+ * step down, so long overall factors need only short filters, and the work per raw sample stays constant:
+ * the first level's taps per phase, plus a fraction of that for each level after it.
+ */
+public class MultirateDecimator {
+    private static final int MAX_STAGE_FACTOR = 10;
+
+    private final Decimator[] levels;
+
+    /**
+     * @param factors step down of each level from the level before it, the first from the raw rate
+     */
+    public MultirateDecimator(int... factors){
+        if(factors.length == 0){
+            throw new IllegalArgumentException("A multirate decimator needs at least one level");
+        }
+        levels = new Decimator[factors.length];
+        for(int i = 0; i < factors.length; i++){
+            levels[i] = new Decimator(factors[i]);
+        }
+    }
+
+    /**
+     * Builds a cascade for one overall factor, split into steps of at most 10 where the factor allows
+     * @param factor overall number of raw samples for each value out of the last level
+     * @return the cascade, its last level gives the requested rate
+     */
+    public static MultirateDecimator forFactor(int factor){
+        if(factor < 1){
+            throw new IllegalArgumentException("Decimation factor must be at least 1");
+        }
+        List<Integer> steps = new ArrayList<>();
+        int step = 1;
+        int remaining = factor;
+        for(int prime = 2; remaining > 1; prime++){
+            while(remaining % prime == 0){
+                if(step * prime > MAX_STAGE_FACTOR && step > 1){
+                    steps.add(step);
+                    step = 1;
+                }
+                step *= prime;
+                remaining /= prime;
+            }
+        }
+        steps.add(step);
+        int[] factors = new int[steps.size()];
+        for(int i = 0; i < factors.length; i++){
+            factors[i] = steps.get(i);
+        }
+        return new MultirateDecimator(factors);
+    }
+
+    /**
+     * Adds a raw sample
+     * @param newPoint the sample to be added
+     * @return how many levels have a new value, counted from the first, so the last level has one if this equals getLevels
+     */
+    public int addData(double newPoint){
+        double value = newPoint;
+        for(int i = 0; i < levels.length; i++){
+            if(!levels[i].addData(value)){
+                return i;
+            }
+            value = levels[i].getValue();
+        }
+        return levels.length;
+    }
+
+    /**
+     * @param level level to read, 0 is the first step down from the raw rate
+     * @return the most recent value of that level
+     */
+    public double getValue(int level){
+        return levels[level].getValue();
+    }
+
+    /**
+     * @return the most recent value of the last, lowest rate level
+     */
+    public double getValue(){
+        return levels[levels.length - 1].getValue();
+    }
+
+    /**
+     * @param level level to ask about
+     * @return number of raw samples for each value of that level
+     */
+    public int getFactor(int level){
+        int factor = 1;
+        for(int i = 0; i <= level; i++){
+            factor *= levels[i].getFactor();
+        }
+        return factor;
+    }
+
+    /**
+     * @return number of raw samples for each value out of the last level
+     */
+    public int getFactor(){
+        return getFactor(levels.length - 1);
+    }
+
+    public int getLevels(){
+        return levels.length;
+    }
+
+    /**
+     * @return delay of the whole cascade in raw samples
+     */
+    public double getDelay(){
+        double delay = 0.0;
+        int rate = 1;
+        for(Decimator level : levels){
+            delay += level.getDelay() * rate;
+            rate *= level.getFactor();
+        }
+        return delay;
+    }
+
+    /**
+     * Throws away any partly collected samples and the filter history of every level
+     */
+    public void reset(){
+        for(Decimator level : levels){
+            level.reset();
+        }
+    }
+}
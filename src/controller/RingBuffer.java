@@ -0,0 +1,73 @@
+package controller;
+
+/**
+ * Fixed size circular buffer that keeps the most recent items added.
+ * Used to hold the blocks read while waiting for a trigger, so they can be processed
+ * in place once it fires instead of being copied out.
+ * @param <T> type of item held
+ */
+public class RingBuffer<T> {
+    private final Object[] items;
+    private int start = 0;
+    private int size = 0;
+
+    /**
+     * @param capacity most items held at once
+     */
+    public RingBuffer(int capacity){
+        if(capacity < 1){
+            throw new IllegalArgumentException("Ring buffer capacity must be at least 1");
+        }
+        items = new Object[capacity];
+    }
+
+    /**
+     * Adds an item after the newest one
+     * @param item the item to add
+     * @return the oldest item if it had to be pushed out to make room, otherwise null
+     */
+    @SuppressWarnings("unchecked")
+    public T add(T item){
+        T evicted = null;
+        if(size == items.length){
+            evicted = (T) items[start];
+            items[start] = item;
+            start = (start + 1) % items.length;
+        }else{
+            items[(start + size) % items.length] = item;
+            size++;
+        }
+        return evicted;
+    }
+
+    /**
+     * @param index position counted from the oldest item
+     * @return the item at that position
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int index){
+        if(index < 0 || index >= size){
+            throw new IndexOutOfBoundsException("Index " + index + " out of " + size);
+        }
+        return (T) items[(start + index) % items.length];
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public int getCapacity(){
+        return items.length;
+    }
+
+    /**
+     * Removes every item
+     */
+    public void clear(){
+        for(int i = 0; i < items.length; i++){
+            items[i] = null;
+        }
+        start = 0;
+        size = 0;
+    }
+}
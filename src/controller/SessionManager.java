@@ -0,0 +1,196 @@
+package controller;
+
+import controller.Calculations.Units;
+import kirkwood.nidaq.access.NiDaqException;
+import org.jfree.data.xy.XYSeries;
+import view.MainWindow;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs one GraphUpdater per test frame from a single window.
+ * Every session has its own device, acquisition loop, raw store and series, and nothing is shared
+ * between them but the scheduler, so a slow frame never holds up the others.
+ * The scheduler gives every loop its own thread, letting sessions run on separate cores.
+ */
+public class SessionManager {
+    private final List<GraphUpdater> sessions = new ArrayList<>();
+    private final ExecutorService scheduler;
+    private final MainWindow mainWindow;
+
+    /**
+     * Sets up a session for each device in the settings.
+     * The first device draws on the main series, the rest get a series of their own
+     * @param mainController the controller that owns the main window
+     * @param settingsController the controller holding the device names
+     * @throws NiDaqException if any device could not be set up, no session is left running
+     */
+    public SessionManager(MainController mainController, SettingsController settingsController) throws NiDaqException {
+        mainWindow = mainController.getMainWindow();
+        AtomicInteger threadCount = new AtomicInteger();
+        scheduler = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "Session-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        List<String> devices = settingsController.getSettingsWindow().getDeviceNames();
+        XYSeries newSeries = null; //an extra curve whose session is still being built
+        try {
+            for(int i = 0; i < devices.size(); i++){
+                String device = devices.get(i);
+                if(i == 0){
+                    sessions.add(new GraphUpdater(mainController.getMainWindow().getSeries(), mainController, settingsController, device));
+                }else{
+                    newSeries = mainController.getMainWindow().addSeries(device + " Stress-Strain Curve");
+                    sessions.add(new GraphUpdater(newSeries, mainController, settingsController, device));
+                    newSeries = null;
+                }
+            }
+        } catch (NiDaqException | RuntimeException e) {
+            //nothing has started yet, so Start can simply build every session again
+            terminate();
+            //the session that failed never got into the list, so its curve is taken off here
+            if(newSeries != null){
+                mainWindow.removeSeries(newSeries);
+            }
+            throw e;
+        }
+        for(GraphUpdater session : sessions){
+            session.start(scheduler);
+        }
+    }
+
+    /**
+     * Pauses every frame
+     */
+    public void pause(){
+        for(GraphUpdater session : sessions){
+            session.pause();
+        }
+    }
+
+    /**
+     * Resumes every frame
+     * @param units unit system the curves are drawn in
+     * @param area cross section area of the specimen
+     * @param gaugeLength gauge length of the specimen
+     */
+    public void collect(Units units, double area, double gaugeLength){
+        for(GraphUpdater session : sessions){
+            session.collect(units, area, gaugeLength);
+        }
+    }
+
+    /**
+     * Clears the curve and raw samples of every frame
+     */
+    public void clear(){
+        for(GraphUpdater session : sessions){
+            session.getSeries().clear();
+            session.getPointIndices().clear();
+            session.getRawStore().clear();
+        }
+    }
+
+    /**
+     * Converts the stress on every frame's curve
+     * @param startingUnits the units that currently appear on the graph
+     * @param endingUnits the units a user wants to convert to
+     */
+    public void updateGraphUnits(Units startingUnits, Units endingUnits){
+        for(GraphUpdater session : sessions){
+            session.updateGraphUnits(startingUnits, endingUnits, session.getSeries());
+        }
+    }
+
+    /**
+     * @return true if no frame has drawn any points
+     */
+    public boolean isEmpty(){
+        for(GraphUpdater session : sessions){
+            if(!session.getSeries().isEmpty()){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the acquisition status of every frame, separated by bars
+     */
+    public String getStatus(){
+        StringBuilder status = new StringBuilder();
+        for(GraphUpdater session : sessions){
+            if(status.length() > 0){
+                status.append("  |  ");
+            }
+            status.append(session.getStatus());
+        }
+        return status.toString();
+    }
+
+    /**
+     * @return the modulus fitted on every frame, separated by bars
+     */
+    public String getModulusStatus(){
+        StringBuilder status = new StringBuilder();
+        for(GraphUpdater session : sessions){
+            if(status.length() > 0){
+                status.append("  |  ");
+            }
+            status.append(session.getModulusStatus());
+        }
+        return status.toString();
+    }
+
+    /**
+     * @return the device names of every frame that lost its device and could not reconnect, empty if none did
+     */
+    public List<String> getLostDevices(){
+        List<String> lost = new ArrayList<>();
+        for(GraphUpdater session : sessions){
+            if(session.isDeviceLost()){
+                lost.add(session.getDeviceName());
+            }
+        }
+        return lost;
+    }
+
+    /**
+     * @return the reason each frame's tare was rejected, with the device name, empty if none were
+     */
+    public List<String> getTareRejections(){
+        List<String> rejections = new ArrayList<>();
+        for(GraphUpdater session : sessions){
+            if(session.getTareRejection() != null){
+                rejections.add(session.getDeviceName() + ": " + session.getTareRejection());
+            }
+        }
+        return rejections;
+    }
+
+    /**
+     * Stops every frame permanently, releasing their devices and the scheduler threads.
+     * The curves added for the extra frames are taken off the graph, so a new manager can be built in its place
+     */
+    public void terminate(){
+        for(int i = 0; i < sessions.size(); i++){
+            sessions.get(i).terminate();
+            if(i > 0){
+                mainWindow.removeSeries(sessions.get(i).getSeries());
+            }
+        }
+        scheduler.shutdown();
+    }
+
+    /**
+     * @return one session per device, in the order the devices are listed in the settings
+     */
+    public List<GraphUpdater> getSessions(){
+        return sessions;
+    }
+}
@@ -1,5 +1,9 @@
 package controller;
 
+import controller.filter.FilterChain;
+import model.CalibrationCurve;
+import model.ChannelConfig;
+import model.SampleSource;
 import view.SettingsView;
 import javax.swing.*;
 import java.awt.event.WindowAdapter;
@@ -8,6 +12,9 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Scanner;
 import controller.Calculations.Units;
 
@@ -27,8 +34,27 @@ public class SettingsController {
     private int elongationChannel;
     private String forceMode;
     private String elongationMode;
-    private double forceVoltageConstant;
-    private double elongationVoltageConstant;
+    private String forceCalibration;
+    private String elongationCalibration;
+    private String sampleRate;
+    private String displayRate;
+    private String extraChannels;
+    private String deviceNames;
+    private String triggerChannel;
+    private String triggerLevel;
+    private String preTrigger;
+    private String hardwareTrigger;
+    private String hardwareTriggerEdge;
+    private String reconnectTimeout;
+    private String forceFilter;
+    private String elongationFilter;
+    private String tareWindow;
+    private String tareNoise;
+    private String tareDrift;
+    private boolean driftCorrected;
+    private String modulusFrom;
+    private String modulusTo;
+    private String modulusPoints;
 
     public SettingsController(InputController inputController, MainController mainController){
         this.inputController = inputController;
@@ -55,13 +81,13 @@ public class SettingsController {
                         "between instances of the program.\n" +
                         "These changes will also affect all other users.\n" +
                         "These values should not be changed unless you are sure what you are changing is correct.\n\n" +
-                        "If you change channel and mode values, you MUST restart the program.\n\n" +
+                        "Channel, mode, rate, trigger and device changes take effect the next time Start is pressed.\n\n" +
                         "Do you wish to continue?", "Confirm Settings Change", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE, null, new Object[]{"Yes", "No"}, JOptionPane.NO_OPTION);
                 if (option == JOptionPane.YES_OPTION) {
                     try {
                         double value = settingsWindow.getDefaultGaugeLength();
-                        double forceConstant = settingsWindow.getForceVoltage2UnitConstant();
-                        double elongationConstant = settingsWindow.getElongationVoltage2UnitConstant();
+                        CalibrationCurve forceCalibration = settingsWindow.getForceCalibration();
+                        CalibrationCurve elongationCalibration = settingsWindow.getElongationCalibration();
                         updateUnitsSystem();
 
                         PrintWriter out = new PrintWriter(new FileOutputStream(CONFIG_FILE));
@@ -69,13 +95,37 @@ public class SettingsController {
                         out.println(value);
                         out.println(settingsWindow.getForceChannelComboBox().getSelectedItem());
                         out.println(settingsWindow.getForceModeComboBox().getSelectedItem());
-                        out.println(forceConstant);
+                        out.println(forceCalibration);
                         out.println(settingsWindow.getElongationChannelComboBox().getSelectedItem());
                         out.println(settingsWindow.getElongationModeComboBox().getSelectedItem());
-                        out.println(elongationConstant);
+                        out.println(elongationCalibration);
+                        out.println(settingsWindow.getSampleRate());
+                        out.println(settingsWindow.getDisplayRate());
+                        List<ChannelConfig> channels = settingsWindow.getExtraChannels();
+                        out.println(channels.size());
+                        for(ChannelConfig channel : channels){
+                            out.println(channel);
+                        }
+                        out.println(String.join(",", settingsWindow.getDeviceNames()));
+                        out.println(settingsWindow.getTriggerChannelComboBox().getSelectedItem());
+                        out.println(settingsWindow.getTriggerLevel());
+                        out.println(settingsWindow.getPreTriggerSeconds());
+                        out.println(settingsWindow.getHardwareTrigger() == null ? "None" : settingsWindow.getHardwareTrigger());
+                        out.println(settingsWindow.getHardwareTriggerEdgeComboBox().getSelectedItem());
+                        out.println(settingsWindow.getReconnectTimeout());
+                        out.println(settingsWindow.getForceFilter());
+                        out.println(settingsWindow.getElongationFilter());
+                        out.println(settingsWindow.getTareSeconds());
+                        out.println(settingsWindow.getTareNoiseLimit());
+                        out.println(settingsWindow.getTareDriftLimit());
+                        out.println(settingsWindow.isDriftCorrected());
+                        out.println(settingsWindow.getModulusFromStrain());
+                        out.println(settingsWindow.getModulusToStrain());
+                        out.println(settingsWindow.getModulusPoints());
 
                         out.close();
                         storeSettings();
+                        mainController.onSettingsChanged();
                     } catch (FileNotFoundException exception) {
                         //do nothing
                     } catch (NumberFormatException exception) {
@@ -189,12 +239,31 @@ public class SettingsController {
     private void storeSettings(){
         unitSystem = settingsWindow.getDefaultUnits();
         gaugeLength = settingsWindow.getDefaultGaugeLength();
-        forceVoltageConstant = settingsWindow.getForceVoltage2UnitConstant();
-        elongationVoltageConstant = settingsWindow.getElongationVoltage2UnitConstant();
+        forceCalibration = settingsWindow.getForceVoltage2UnitConstantField().getText();
+        elongationCalibration = settingsWindow.getElongationVoltage2UnitConstantField().getText();
         forceChannel = settingsWindow.getForceChannel();
         elongationChannel = settingsWindow.getElongationChannel();
         forceMode = (String) settingsWindow.getForceModeComboBox().getSelectedItem();
         elongationMode = (String) settingsWindow.getElongationModeComboBox().getSelectedItem();
+        sampleRate = settingsWindow.getSampleRateField().getText();
+        displayRate = settingsWindow.getDisplayRateField().getText();
+        extraChannels = settingsWindow.getExtraChannelsArea().getText();
+        deviceNames = settingsWindow.getDeviceNamesField().getText();
+        triggerChannel = (String) settingsWindow.getTriggerChannelComboBox().getSelectedItem();
+        triggerLevel = settingsWindow.getTriggerLevelField().getText();
+        preTrigger = settingsWindow.getPreTriggerField().getText();
+        hardwareTrigger = settingsWindow.getHardwareTriggerField().getText();
+        hardwareTriggerEdge = (String) settingsWindow.getHardwareTriggerEdgeComboBox().getSelectedItem();
+        reconnectTimeout = settingsWindow.getReconnectTimeoutField().getText();
+        forceFilter = settingsWindow.getForceFilterField().getText();
+        elongationFilter = settingsWindow.getElongationFilterField().getText();
+        tareWindow = settingsWindow.getTareWindowField().getText();
+        tareNoise = settingsWindow.getTareNoiseField().getText();
+        tareDrift = settingsWindow.getTareDriftField().getText();
+        driftCorrected = settingsWindow.isDriftCorrected();
+        modulusFrom = settingsWindow.getModulusFromField().getText();
+        modulusTo = settingsWindow.getModulusToField().getText();
+        modulusPoints = settingsWindow.getModulusPointsField().getText();
     }
 
     /*
@@ -203,12 +272,43 @@ public class SettingsController {
     private void revertSettings(){
         settingsWindow.getDefaultUnitSelectionBox().setSelectedItem(unitSystem);
         settingsWindow.getDefaultGaugeLengthField().setText(String.valueOf(gaugeLength));
-        settingsWindow.getForceVoltage2UnitConstantField().setText(String.valueOf(forceVoltageConstant));
-        settingsWindow.getElongationVoltage2UnitConstantField().setText(String.valueOf(elongationVoltageConstant));
+        settingsWindow.getForceVoltage2UnitConstantField().setText(forceCalibration);
+        settingsWindow.getElongationVoltage2UnitConstantField().setText(elongationCalibration);
         settingsWindow.getForceChannelComboBox().setSelectedItem(forceChannel);
         settingsWindow.getElongationChannelComboBox().setSelectedItem(elongationChannel);
         settingsWindow.getForceModeComboBox().setSelectedItem(forceMode);
         settingsWindow.getElongationModeComboBox().setSelectedItem(elongationMode);
+        settingsWindow.getSampleRateField().setText(sampleRate);
+        settingsWindow.getDisplayRateField().setText(displayRate);
+        settingsWindow.getExtraChannelsArea().setText(extraChannels);
+        settingsWindow.getDeviceNamesField().setText(deviceNames);
+        settingsWindow.getTriggerChannelComboBox().setSelectedItem(triggerChannel);
+        settingsWindow.getTriggerLevelField().setText(triggerLevel);
+        settingsWindow.getPreTriggerField().setText(preTrigger);
+        settingsWindow.getHardwareTriggerField().setText(hardwareTrigger);
+        settingsWindow.getHardwareTriggerEdgeComboBox().setSelectedItem(hardwareTriggerEdge);
+        settingsWindow.getReconnectTimeoutField().setText(reconnectTimeout);
+        settingsWindow.getForceFilterField().setText(forceFilter);
+        settingsWindow.getElongationFilterField().setText(elongationFilter);
+        settingsWindow.getTareWindowField().setText(tareWindow);
+        settingsWindow.getTareNoiseField().setText(tareNoise);
+        settingsWindow.getTareDriftField().setText(tareDrift);
+        settingsWindow.getDriftCorrectionCheckBox().setSelected(driftCorrected);
+        settingsWindow.getModulusFromField().setText(modulusFrom);
+        settingsWindow.getModulusToField().setText(modulusTo);
+        settingsWindow.getModulusPointsField().setText(modulusPoints);
+    }
+
+    /*
+     * Adds the physical channels a channel reads to the set, a differential channel N also reads N+4 as its negative input
+     * Returns false if any of them were already in the set
+     */
+    private static boolean reserveChannel(HashSet<Integer> numbers, int channel, SampleSource.Mode mode){
+        boolean free = numbers.add(channel);
+        if(mode == SampleSource.Mode.DIFFERENTIAL){
+            free &= numbers.add(channel + 4);
+        }
+        return free;
     }
 
     /*
@@ -239,6 +339,102 @@ public class SettingsController {
             invalidSettingsMessage(3);
             return false;
         }
+        try {
+            if(settingsWindow.getSampleRate() <= 0 || settingsWindow.getDisplayRate() <= 0 || settingsWindow.getDisplayRate() > settingsWindow.getSampleRate()){
+                invalidSettingsMessage(4);
+                return false;
+            }
+        } catch (NumberFormatException exception) {
+            invalidSettingsMessage(4);
+            return false;
+        }
+        try {
+            HashSet<String> names = new HashSet<>();
+            names.add(ChannelConfig.FORCE);
+            names.add(ChannelConfig.ELONGATION);
+            //an extra channel cannot read a physical channel that force, elongation or another extra channel already reads
+            HashSet<Integer> numbers = new HashSet<>();
+            reserveChannel(numbers, settingsWindow.getForceChannel(), settingsWindow.getForceMode());
+            reserveChannel(numbers, settingsWindow.getElongationChannel(), settingsWindow.getElongationMode());
+            for(ChannelConfig channel : settingsWindow.getExtraChannels()){
+                if(!names.add(channel.getName()) || !reserveChannel(numbers, channel.getChannel(), channel.getMode())){
+                    invalidSettingsMessage(5);
+                    return false;
+                }
+            }
+        } catch (IllegalArgumentException exception) {
+            invalidSettingsMessage(5);
+            return false;
+        }
+        List<String> devices = settingsWindow.getDeviceNames();
+        if(devices.isEmpty() || new HashSet<>(devices).size() != devices.size() || String.join("", devices).matches(".*\\s.*")){
+            invalidSettingsMessage(6);
+            return false;
+        }
+        try {
+            settingsWindow.getTriggerLevel();
+            if(settingsWindow.getPreTriggerSeconds() < 0){
+                invalidSettingsMessage(7);
+                return false;
+            }
+        } catch (NumberFormatException exception) {
+            invalidSettingsMessage(7);
+            return false;
+        }
+        if(settingsWindow.getHardwareTrigger() != null && settingsWindow.getHardwareTrigger().matches(".*\\s.*")){
+            invalidSettingsMessage(8);
+            return false;
+        }
+        try {
+            if(settingsWindow.getReconnectTimeout() < 0){
+                invalidSettingsMessage(9);
+                return false;
+            }
+        } catch (NumberFormatException exception) {
+            invalidSettingsMessage(9);
+            return false;
+        }
+        try {
+            List<String> filters = new ArrayList<>();
+            filters.add(settingsWindow.getForceFilter());
+            filters.add(settingsWindow.getElongationFilter());
+            for(ChannelConfig channel : settingsWindow.getExtraChannels()){
+                filters.add(channel.getFilter());
+            }
+            //filters run on the raw samples, so Butterworth cutoffs are checked against the sample rate
+            for(String filter : filters){
+                if(filter.isEmpty() || filter.matches(".*[,\\s].*")){
+                    invalidSettingsMessage(10);
+                    return false;
+                }
+                FilterChain.parse(filter, settingsWindow.getSampleRate());
+            }
+        } catch (IllegalArgumentException exception) {
+            invalidSettingsMessage(10);
+            return false;
+        }
+        try {
+            if(settingsWindow.getTareSeconds() <= 0 || settingsWindow.getTareNoiseLimit() < 0 || settingsWindow.getTareDriftLimit() < 0){
+                invalidSettingsMessage(11);
+                return false;
+            }
+        } catch (NumberFormatException exception) {
+            invalidSettingsMessage(11);
+            return false;
+        }
+        try {
+            settingsWindow.getForceCalibration();
+            settingsWindow.getElongationCalibration();
+        } catch (IllegalArgumentException exception) {
+            invalidSettingsMessage(12);
+            return false;
+        }
+        try {
+            new ModulusEstimator(settingsWindow.getModulusFromStrain(), settingsWindow.getModulusToStrain(), settingsWindow.getModulusPoints());
+        } catch (IllegalArgumentException exception) {
+            invalidSettingsMessage(13);
+            return false;
+        }
         return true;
     }
 
@@ -251,8 +447,28 @@ public class SettingsController {
             JOptionPane.showMessageDialog(null, "In differential mode, channel number must be between 0 and 4", "Invalid Settings Format", JOptionPane.WARNING_MESSAGE);
         }else if(message == 2){
             JOptionPane.showMessageDialog(null, "Invalid channel and mode combinations", "Invalid Settings Format", JOptionPane.WARNING_MESSAGE);
-        }else{
+        }else if(message == 3){
             JOptionPane.showMessageDialog(null, "Channel numbers cannot be the same if the force and elongation machines are in the same mode", "Invalid Settings Format", JOptionPane.WARNING_MESSAGE);
+        }else if(message == 4){
+            JOptionPane.showMessageDialog(null, "Sample and display rates must be positive numbers, and the display rate cannot be faster than the sample rate", "Invalid Settings Format", JOptionPane.WARNING_MESSAGE);
+        }else if(message == 5){
+            JOptionPane.showMessageDialog(null, "Extra channels must be listed one per line as name,channel,mode,calibration,filterWindow,filter with a unique name, a channel number no other channel uses, and no spaces. A differential channel N also uses channel N+4", "Invalid Settings Format", JOptionPane.WARNING_MESSAGE);
+        }else if(message == 6){
+            JOptionPane.showMessageDialog(null, "List at least one device, separated by commas, with no spaces or repeated names", "Invalid Settings Format", JOptionPane.WARNING_MESSAGE);
+        }else if(message == 7){
+            JOptionPane.showMessageDialog(null, "Trigger level must be a number and pre-trigger must be zero or more seconds", "Invalid Settings Format", JOptionPane.WARNING_MESSAGE);
+        }else if(message == 8){
+            JOptionPane.showMessageDialog(null, "Hardware trigger terminal must be a single name such as PFI0, or blank for none", "Invalid Settings Format", JOptionPane.WARNING_MESSAGE);
+        }else if(message == 9){
+            JOptionPane.showMessageDialog(null, "Reconnect timeout must be zero or more seconds", "Invalid Settings Format", JOptionPane.WARNING_MESSAGE);
+        }else if(message == 10){
+            JOptionPane.showMessageDialog(null, "Filters must be None or stages joined by + such as median:5+bw:20:4, with Butterworth cutoffs below half the sample rate", "Invalid Settings Format", JOptionPane.WARNING_MESSAGE);
+        }else if(message == 11){
+            JOptionPane.showMessageDialog(null, "Tare window must be a positive number of seconds, and the noise and drift limits zero or more", "Invalid Settings Format", JOptionPane.WARNING_MESSAGE);
+        }else if(message == 12){
+            JOptionPane.showMessageDialog(null, "Voltage to units constants must be a number, poly:c0:c1:... or table:volts/units:... with at least two points in increasing volts", "Invalid Settings Format", JOptionPane.WARNING_MESSAGE);
+        }else{
+            JOptionPane.showMessageDialog(null, "Modulus strain range must run from a lower to a higher strain, and modulus points must be 0 for every point or at least 2", "Invalid Settings Format", JOptionPane.WARNING_MESSAGE);
         }
 
     }
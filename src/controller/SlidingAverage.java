@@ -2,11 +2,15 @@ package controller;
 
 /**
  * Computes the sliding average for data smoothing
+ * The running total is kept with compensated (Neumaier) summation: the rounding error of every add and
+ * subtract is carried in a second total and added back, so the average does not drift however many
+ * points pass through it. Still O(1) per point
  */
 public class SlidingAverage {
     private final double [] queue;
     private int index = 0;
     private double total = 0.0;
+    private double compensation = 0.0; //rounding error lost from total so far
     private int count = 0;
 
     public SlidingAverage(int size){
@@ -19,15 +23,45 @@ public class SlidingAverage {
      * @return returns the average
      */
     public double addData (double newPoint){
-        total += newPoint;
+        accumulate(newPoint);
         if(count >= queue.length){
-            total -= queue[index];
+            accumulate(-queue[index]);
         }else{
             count ++;
         }
 
         queue[index] = newPoint;
         index = (index + 1) % queue.length;
-        return total / count;
+        return (total + compensation) / count;
+    }
+
+    /*
+     * Adds a value to the total, keeping the low order bits the addition rounds away
+     */
+    private void accumulate(double value){
+        double sum = total + value;
+        if(Math.abs(total) >= Math.abs(value)){
+            compensation += (total - sum) + value;
+        }else{
+            compensation += (value - sum) + total;
+        }
+        total = sum;
+    }
+
+    /**
+     * @return number of points averaged once the window is full
+     */
+    public int getSize(){
+        return queue.length;
+    }
+
+    /**
+     * Empties the window, the next point added is averaged on its own
+     */
+    public void reset(){
+        index = 0;
+        total = 0.0;
+        compensation = 0.0;
+        count = 0;
     }
 }
@@ -0,0 +1,102 @@
+package controller;
+
+import controller.Calculations.Units;
+import model.CalibrationCurve;
+
+/**
+ * Everything needed to turn force and elongation voltages into stress and strain for one test, captured once
+ * at Start so nothing is looked up while points are being added. The unit conversions, the cross section area
+ * and the gauge length are folded into one scale for each and the tare into constant offsets, so a point costs
+ * one trip through each channel's calibration curve and a few multiply-adds:
+ * stress = stressScale * force(volts - forceDrift * min(sampleIndex - zeroIndex, driftHorizon)) - stressScale * force(forceZero)
+ * and the same for strain. Snapshots never change, the tare makes a new one with the zeros folded in.
+ */
+public final class TestSnapshot {
+    private static final double POUNDS_PER_KIP = 1000.0;
+
+    private final Units units;
+    private final double area;
+    private final double gaugeLength;
+    private final CalibrationCurve force;
+    private final CalibrationCurve elongation;
+    private final double stressScale;
+    private final double stressOffset;
+    private final double forceDrift;
+    private final double strainScale;
+    private final double strainOffset;
+    private final double elongationDrift;
+    private final long zeroIndex;
+    private final long driftHorizon; //samples past zeroIndex the drift is followed for
+
+    /**
+     * @param units unit system the test is run in, stress is in MPa for metric and KSI for english, strain has no units
+     * @param area cross section area in mm^2 for metric and in^2 for english
+     * @param gaugeLength gauge length in mm for metric and inches for english
+     * @param force force channel's calibration from volts to pounds
+     * @param elongation elongation channel's calibration from volts to inches
+     */
+    public TestSnapshot(Units units, double area, double gaugeLength, CalibrationCurve force, CalibrationCurve elongation){
+        this(units, area, gaugeLength, force, elongation, 0.0, 0.0, 0.0, 0.0, 0, 0);
+    }
+
+    private TestSnapshot(Units units, double area, double gaugeLength, CalibrationCurve force, CalibrationCurve elongation,
+                         double forceZero, double forceDrift, double elongationZero, double elongationDrift, long zeroIndex, long driftHorizon){
+        this.units = units;
+        this.area = area;
+        this.gaugeLength = gaugeLength;
+        this.force = force;
+        this.elongation = elongation;
+        stressScale = (units == Units.METRIC ? Calculations.convertForce(Units.ENGLISH, Units.METRIC, 1.0) : 1 / POUNDS_PER_KIP) / area;
+        strainScale = Calculations.convertLength(Units.ENGLISH, units, 1.0) / gaugeLength;
+        stressOffset = -stressScale * force.toUnits(forceZero);
+        strainOffset = -strainScale * elongation.toUnits(elongationZero);
+        this.forceDrift = forceDrift;
+        this.elongationDrift = elongationDrift;
+        this.zeroIndex = zeroIndex;
+        this.driftHorizon = driftHorizon;
+    }
+
+    /**
+     * Folds the zeros found by a tare into a copy of this snapshot, replacing any it had
+     * @param forceZero force zero voltage at zeroIndex
+     * @param forceDrift volts per sample the force zero moves by
+     * @param elongationZero elongation zero voltage at zeroIndex
+     * @param elongationDrift volts per sample the elongation zero moves by
+     * @param zeroIndex sample clock index the zeros were measured at
+     * @param driftHorizon samples past zeroIndex to follow the drift for, the zeros hold still after
+     * @return a snapshot measuring from those zeros
+     */
+    public TestSnapshot withZeros(double forceZero, double forceDrift, double elongationZero, double elongationDrift, long zeroIndex, long driftHorizon){
+        return new TestSnapshot(units, area, gaugeLength, force, elongation, forceZero, forceDrift, elongationZero, elongationDrift, zeroIndex, driftHorizon);
+    }
+
+    /**
+     * @param forceVolts smoothed force channel voltage
+     * @param sampleIndex sample clock index of the voltage
+     * @return stress in MPa or KSI
+     */
+    public double stress(double forceVolts, long sampleIndex){
+        return stressScale * force.toUnits(forceVolts - forceDrift * Math.min(sampleIndex - zeroIndex, driftHorizon)) + stressOffset;
+    }
+
+    /**
+     * @param elongationVolts smoothed elongation channel voltage
+     * @param sampleIndex sample clock index of the voltage
+     * @return strain
+     */
+    public double strain(double elongationVolts, long sampleIndex){
+        return strainScale * elongation.toUnits(elongationVolts - elongationDrift * Math.min(sampleIndex - zeroIndex, driftHorizon)) + strainOffset;
+    }
+
+    public Units getUnits(){
+        return units;
+    }
+
+    public double getArea(){
+        return area;
+    }
+
+    public double getGaugeLength(){
+        return gaugeLength;
+    }
+}
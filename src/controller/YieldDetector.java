@@ -0,0 +1,100 @@
+package controller;
+
+/**
+ * Finds the offset yield strength as the points are drawn.
+ * The offset line is the live modulus fit moved along by the offset strain. Each point is checked against
+ * where the line is at its strain, and the first time the curve drops from above the line to on or below it
+ * the crossing is interpolated between that point and the one before. Only the last point is kept, so nothing
+ * is scanned again and the yield is known as soon as the point past it arrives
+ */
+public class YieldDetector {
+    public static final double DEFAULT_OFFSET = 0.002;
+
+    private final ModulusEstimator fit;
+    private final double offset;
+    private boolean hasPrevious = false;
+    private double previousStrain = 0.0;
+    private double previousStress = 0.0;
+    //read from the event thread while points are added on the graph thread
+    private volatile boolean found = false;
+    private volatile double yieldStrain = Double.NaN;
+    private volatile double yieldStress = Double.NaN;
+
+    /**
+     * @param fit the modulus fit the offset line is drawn from, fed the same points before this
+     * @param offset strain the offset line is moved along by, 0.002 for the usual 0.2% offset
+     */
+    public YieldDetector(ModulusEstimator fit, double offset){
+        if(!(offset > 0)){
+            throw new IllegalArgumentException("Yield offset must be a positive strain");
+        }
+        this.fit = fit;
+        this.offset = offset;
+    }
+
+    /**
+     * Checks the next point of the curve against the offset line
+     * @param strain strain of the point
+     * @param stress stress of the point
+     * @return true if the curve crossed the offset line at this point, the yield is ready to read
+     */
+    public boolean add(double strain, double stress){
+        if(found || Double.isNaN(stress)){
+            return false;
+        }
+        double modulus = fit.getModulus();
+        boolean crossed = false;
+        //both points are measured against the line as it is now, the fit can still be growing
+        if(hasPrevious && modulus > 0 && strain > fit.getFromStrain()){
+            double intercept = fit.getIntercept();
+            double before = previousStress - Calculations.calculateOffsetStress(previousStrain, modulus, intercept, offset);
+            double after = stress - Calculations.calculateOffsetStress(strain, modulus, intercept, offset);
+            if(before > 0 && after <= 0){
+                double fraction = before / (before - after);
+                yieldStress = previousStress + fraction * (stress - previousStress);
+                yieldStrain = previousStrain + fraction * (strain - previousStrain);
+                found = true;
+                crossed = true;
+            }
+        }
+        previousStrain = strain;
+        previousStress = stress;
+        hasPrevious = true;
+        return crossed;
+    }
+
+    /**
+     * @return true once the curve has crossed the offset line
+     */
+    public boolean isFound(){
+        return found;
+    }
+
+    /**
+     * @return stress where the curve crosses the offset line, in the units the stress is in, or NaN until it does
+     */
+    public double getYieldStress(){
+        return yieldStress;
+    }
+
+    /**
+     * @return strain where the curve crosses the offset line, or NaN until it does
+     */
+    public double getYieldStrain(){
+        return yieldStrain;
+    }
+
+    public double getOffset(){
+        return offset;
+    }
+
+    /**
+     * Forgets the curve for a new test
+     */
+    public void reset(){
+        hasPrevious = false;
+        found = false;
+        yieldStrain = Double.NaN;
+        yieldStress = Double.NaN;
+    }
+}
@@ -0,0 +1,101 @@
+package controller.filter;
+
+/**
+ * Butterworth low-pass filter, built as a cascade of second order sections from the bilinear transform.
+ * Flat in the pass band with a roll off of 6 dB per octave per order above the cutoff.
+ * The sections start settled at the first sample, so a signal sitting away from zero does not ring at the start
+ */
+public class ButterworthFilter implements Filter {
+    private final double cutoff;
+    private final int order;
+    //one row per section, b0 b1 b2 a1 a2
+    private final double[][] coefficients;
+    //transposed direct form II state, two values per section
+    private final double[] state;
+    private boolean primed = false;
+
+    /**
+     * @param cutoff -3 dB frequency in Hz, below half the sample rate
+     * @param order even filter order, 2 to 8
+     * @param sampleRate rate the samples arrive at in Hz
+     */
+    public ButterworthFilter(double cutoff, int order, double sampleRate){
+        if(!(cutoff > 0 && cutoff < sampleRate / 2)){
+            throw new IllegalArgumentException("Butterworth cutoff must be above 0 and below half the sample rate");
+        }
+        if(order < 2 || order > 8 || order % 2 != 0){
+            throw new IllegalArgumentException("Butterworth order must be 2, 4, 6 or 8");
+        }
+        this.cutoff = cutoff;
+        this.order = order;
+        coefficients = new double[order / 2][];
+        state = new double[order];
+
+        //prewarp so the digital cutoff lands where it was asked for
+        double k = Math.tan(Math.PI * cutoff / sampleRate);
+        for(int s = 0; s < coefficients.length; s++){
+            double q = 1 / (2 * Math.cos(Math.PI * (2 * s + 1) / (2.0 * order)));
+            double norm = 1 / (1 + k / q + k * k);
+            double b0 = k * k * norm;
+            coefficients[s] = new double[]{b0, 2 * b0, b0, 2 * (k * k - 1) * norm, (1 - k / q + k * k) * norm};
+        }
+    }
+
+    @Override
+    public void process(double[] samples, int offset, int length){
+        if(length > 0 && !primed){
+            settle(samples[offset]);
+            primed = true;
+        }
+        for(int s = 0; s < coefficients.length; s++){
+            double[] c = coefficients[s];
+            double b0 = c[0], b1 = c[1], b2 = c[2], a1 = c[3], a2 = c[4];
+            double z1 = state[2 * s];
+            double z2 = state[2 * s + 1];
+            for(int i = offset; i < offset + length; i++){
+                double x = samples[i];
+                double y = b0 * x + z1;
+                z1 = b1 * x - a1 * y + z2;
+                z2 = b2 * x - a2 * y;
+                samples[i] = y;
+            }
+            state[2 * s] = z1;
+            state[2 * s + 1] = z2;
+        }
+    }
+
+    /*
+     * Sets each section's state to what it would be after a long run of the given value.
+     * Every section has a gain of 1 at DC, so each one passes the value straight on
+     */
+    private void settle(double value){
+        for(int s = 0; s < coefficients.length; s++){
+            double[] c = coefficients[s];
+            state[2 * s] = (1 - c[0]) * value;
+            state[2 * s + 1] = (c[2] - c[4]) * value;
+        }
+    }
+
+    @Override
+    public void reset(){
+        primed = false;
+    }
+
+    /**
+     * Group delay at DC, summed over the sections. For each section it is the delay of the numerator,
+     * (1 + 2z^-1 + z^-2) which is 1 sample, less the delay of the denominator, (a1 + 2 a2) / (1 + a1 + a2)
+     */
+    @Override
+    public double getDelay(){
+        double delay = 0.0;
+        for(double[] c : coefficients){
+            delay += 1 - (c[3] + 2 * c[4]) / (1 + c[3] + c[4]);
+        }
+        return delay;
+    }
+
+    @Override
+    public String toString(){
+        return "bw:" + cutoff + ":" + order;
+    }
+}
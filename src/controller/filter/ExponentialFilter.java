@@ -0,0 +1,48 @@
+package controller.filter;
+
+/**
+ * Exponential moving average, each output moves alpha of the way from the last output to the new sample.
+ * Starts from the first sample so there is no ramp up from zero
+ */
+public class ExponentialFilter implements Filter {
+    private final double alpha;
+    private double value = 0.0;
+    private boolean primed = false;
+
+    /**
+     * @param alpha weight of each new sample, between 0 (exclusive) and 1, 1 passes samples through
+     */
+    public ExponentialFilter(double alpha){
+        if(!(alpha > 0 && alpha <= 1)){
+            throw new IllegalArgumentException("Exponential filter weight must be above 0 and at most 1");
+        }
+        this.alpha = alpha;
+    }
+
+    @Override
+    public void process(double[] samples, int offset, int length){
+        if(length > 0 && !primed){
+            value = samples[offset];
+            primed = true;
+        }
+        for(int i = offset; i < offset + length; i++){
+            value += alpha * (samples[i] - value);
+            samples[i] = value;
+        }
+    }
+
+    @Override
+    public void reset(){
+        primed = false;
+    }
+
+    @Override
+    public double getDelay(){
+        return (1 - alpha) / alpha;
+    }
+
+    @Override
+    public String toString(){
+        return "ema:" + alpha;
+    }
+}
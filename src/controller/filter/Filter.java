@@ -0,0 +1,28 @@
+package controller.filter;
+
+/**
+ * One stage of smoothing applied to a channel's raw samples.
+ * Stages keep whatever history they need between blocks, so a channel's blocks must be passed
+ * to the same filter in order. Processing is done in place and allocates nothing
+ */
+public interface Filter {
+
+    /**
+     * Filters part of an array in place
+     * @param samples samples to filter, replaced by the filtered values
+     * @param offset index of the first sample to filter
+     * @param length number of samples to filter
+     */
+    void process(double[] samples, int offset, int length);
+
+    /**
+     * Forgets all history, the next sample is treated as the first one
+     */
+    void reset();
+
+    /**
+     * @return how many samples the output lags the input by for slowly changing signals, so each output can be
+     * lined up with the sample it describes
+     */
+    double getDelay();
+}
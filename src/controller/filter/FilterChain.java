@@ -0,0 +1,140 @@
+package controller.filter;
+
+import model.ChannelConfig;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A channel's filters run one after another on each block of raw samples.
+ * Written in the settings as the stages joined by +, for example median:5+bw:20:4, or None for no filtering.
+ * The stages are
+ *   ma:window               moving average over window samples
+ *   ema:alpha               exponential average, alpha is the weight of each new sample
+ *   bw:cutoff:order         Butterworth low-pass, cutoff in Hz and an even order up to 8
+ *   median:window           median over an odd window of samples
+ *   hampel:window[:k[:min]] replaces spikes more than k (3 if left out) robust standard deviations from the median of the last window samples,
+ *                           with the MAD held at or above min volts (one 16 bit step over +/-10 V if left out)
+ *   sg:window:order         Savitzky-Golay smoothing over an odd window with a polynomial of the given order
+ */
+public class FilterChain implements Filter {
+    private final Filter[] stages;
+
+    /**
+     * @param stages filters in the order they run
+     */
+    public FilterChain(Filter... stages){
+        this.stages = stages.clone();
+    }
+
+    /**
+     * Builds the chain a settings spec describes
+     * @param spec the stages joined by +, or None
+     * @param sampleRate rate the chain is run at in Hz, used by stages set in Hz
+     * @return the chain described
+     * @throws IllegalArgumentException if the spec is not a valid chain
+     */
+    public static FilterChain parse(String spec, double sampleRate){
+        String text = spec.trim();
+        if(text.isEmpty() || text.equalsIgnoreCase(ChannelConfig.NO_FILTER)){
+            return new FilterChain();
+        }
+        List<Filter> stages = new ArrayList<>();
+        for(String stage : text.split("\\+")){
+            stages.add(parseStage(stage.trim(), sampleRate));
+        }
+        return new FilterChain(stages.toArray(new Filter[0]));
+    }
+
+    /*
+     * Builds one name:parameter stage
+     */
+    private static Filter parseStage(String stage, double sampleRate){
+        String[] fields = stage.split(":");
+        String name = fields[0].toLowerCase();
+        try {
+            if(name.equals("ma") && fields.length == 2){
+                return new MovingAverageFilter(Integer.parseInt(fields[1]));
+            }else if(name.equals("ema") && fields.length == 2){
+                return new ExponentialFilter(Double.parseDouble(fields[1]));
+            }else if(name.equals("bw") && (fields.length == 2 || fields.length == 3)){
+                int order = fields.length == 3 ? Integer.parseInt(fields[2]) : 2;
+                return new ButterworthFilter(Double.parseDouble(fields[1]), order, sampleRate);
+            }else if(name.equals("median") && fields.length == 2){
+                return new MedianFilter(Integer.parseInt(fields[1]));
+            }else if(name.equals("hampel") && fields.length >= 2 && fields.length <= 4){
+                double threshold = fields.length >= 3 ? Double.parseDouble(fields[2]) : HampelFilter.DEFAULT_THRESHOLD;
+                double minDeviation = fields.length == 4 ? Double.parseDouble(fields[3]) : HampelFilter.DEFAULT_MIN_DEVIATION;
+                return new HampelFilter(Integer.parseInt(fields[1]), threshold, minDeviation);
+            }else if(name.equals("sg") && fields.length == 3){
+                return new SavitzkyGolayFilter(Integer.parseInt(fields[1]), Integer.parseInt(fields[2]));
+            }
+        } catch (NumberFormatException e){
+            throw new IllegalArgumentException("Badly formatted number in filter: " + stage, e);
+        }
+        throw new IllegalArgumentException("Unknown filter: " + stage);
+    }
+
+    @Override
+    public void process(double[] samples, int offset, int length){
+        for(Filter stage : stages){
+            stage.process(samples, offset, length);
+        }
+    }
+
+    @Override
+    public void reset(){
+        for(Filter stage : stages){
+            stage.reset();
+        }
+    }
+
+    /**
+     * @return the delays of every stage added up
+     */
+    @Override
+    public double getDelay(){
+        double delay = 0.0;
+        for(Filter stage : stages){
+            delay += stage.getDelay();
+        }
+        return delay;
+    }
+
+    /**
+     * @return number of samples the spike rejection stages have replaced
+     */
+    public long getRejected(){
+        long rejected = 0;
+        for(Filter stage : stages){
+            if(stage instanceof HampelFilter){
+                rejected += ((HampelFilter) stage).getRejected();
+            }
+        }
+        return rejected;
+    }
+
+    /**
+     * @return true if the chain has no stages and leaves samples as they are
+     */
+    public boolean isEmpty(){
+        return stages.length == 0;
+    }
+
+    /**
+     * @return the chain as a spec that parse reads back
+     */
+    @Override
+    public String toString(){
+        if(stages.length == 0){
+            return ChannelConfig.NO_FILTER;
+        }
+        StringBuilder spec = new StringBuilder();
+        for(Filter stage : stages){
+            if(spec.length() > 0){
+                spec.append('+');
+            }
+            spec.append(stage);
+        }
+        return spec.toString();
+    }
+}
@@ -0,0 +1,97 @@
+package controller.filter;
+
+/**
+ * Hampel spike rejection. Each sample is compared with the median of the window of samples before it and
+ * replaced by that median if it is further away than threshold robust standard deviations, taken as 1.4826
+ * times the median absolute deviation. Samples are judged once the window is full.
+ * Every sample, rejected or not, goes into the window, so a real step in the signal is followed once it has
+ * lasted half a window. The absolute deviation of each sample is measured from the median when it arrives,
+ * which lets both medians slide in O(log window) per sample.
+ * The MAD is held at or above a minimum, so a flat quantised signal, whose MAD is 0, does not reject a
+ * change of one ADC step.
+ */
+public class HampelFilter implements Filter {
+    public static final double DEFAULT_THRESHOLD = 3.0;
+    public static final double DEFAULT_MIN_DEVIATION = 20.0 / 65536; //one step of a 16 bit reading over +/-10 V
+    private static final double MAD_TO_SIGMA = 1.4826; //scales the MAD of normal noise to its standard deviation
+
+    private final IndexedMedian window;
+    private final IndexedMedian deviations;
+    private final double threshold;
+    private final double minDeviation;
+    private volatile long rejected = 0; //read for the status line while the graph thread filters
+
+    /**
+     * @param window number of past samples each sample is judged against, at least 3
+     * @param threshold robust standard deviations from the median a sample may be before it is rejected
+     */
+    public HampelFilter(int window, double threshold){
+        this(window, threshold, DEFAULT_MIN_DEVIATION);
+    }
+
+    /**
+     * @param window number of past samples each sample is judged against, at least 3
+     * @param threshold robust standard deviations from the median a sample may be before it is rejected
+     * @param minDeviation smallest MAD to judge samples by, in the same units as the samples
+     */
+    public HampelFilter(int window, double threshold, double minDeviation){
+        if(window < 3){
+            throw new IllegalArgumentException("Hampel window must be at least 3 samples");
+        }
+        if(!(threshold > 0)){
+            throw new IllegalArgumentException("Hampel threshold must be above 0");
+        }
+        if(!(minDeviation >= 0)){
+            throw new IllegalArgumentException("Hampel minimum deviation cannot be negative");
+        }
+        this.window = new IndexedMedian(window);
+        deviations = new IndexedMedian(window);
+        this.threshold = threshold;
+        this.minDeviation = minDeviation;
+    }
+
+    @Override
+    public void process(double[] samples, int offset, int length){
+        for(int i = offset; i < offset + length; i++){
+            double sample = samples[i];
+            double median = window.getMedian();
+            double deviation = Math.abs(sample - median);
+            if(window.isFull() && deviation > threshold * MAD_TO_SIGMA * Math.max(deviations.getMedian(), minDeviation)){
+                samples[i] = median;
+                rejected++;
+            }
+            //the first sample has no median to measure from
+            if(window.size() > 0){
+                deviations.add(deviation);
+            }
+            window.add(sample);
+        }
+    }
+
+    /**
+     * @return number of samples replaced since the filter was made, kept through resets
+     */
+    public long getRejected(){
+        return rejected;
+    }
+
+    @Override
+    public void reset(){
+        window.clear();
+        deviations.clear();
+    }
+
+    /**
+     * @return 0, samples that are kept pass straight through
+     */
+    @Override
+    public double getDelay(){
+        return 0.0;
+    }
+
+    @Override
+    public String toString(){
+        String text = "hampel:" + window.capacity() + ":" + threshold;
+        return minDeviation == DEFAULT_MIN_DEVIATION ? text : text + ":" + minDeviation;
+    }
+}
@@ -0,0 +1,181 @@
+package controller.filter;
+
+/**
+ * Median of a sliding window, kept in two heaps: a max-heap of the lower half and a min-heap of the upper half.
+ * Each value lives in a slot of the window and the heaps record where every slot is, so the oldest value can be
+ * swapped for the newest in place. Adding a value costs O(log window) and the median is read in O(1).
+ */
+public class IndexedMedian {
+    private final double[] values; //value held in each slot
+    private final int[] lower; //max-heap of slots
+    private final int[] upper; //min-heap of slots
+    private final int[] position; //where each slot is in its heap
+    private final boolean[] inLower;
+    private int lowerSize = 0;
+    private int upperSize = 0;
+    private int next = 0; //slot of the oldest value once the window is full
+
+    /**
+     * @param window number of values the median is taken over, at least 1
+     */
+    public IndexedMedian(int window){
+        if(window < 1){
+            throw new IllegalArgumentException("Median window must be at least 1");
+        }
+        values = new double[window];
+        lower = new int[window];
+        upper = new int[window];
+        position = new int[window];
+        inLower = new boolean[window];
+    }
+
+    /**
+     * Adds a value, pushing out the oldest once the window is full
+     */
+    public void add(double value){
+        if(size() < values.length){
+            insert(size(), value);
+            return;
+        }
+        int slot = next;
+        next = (next + 1) % values.length;
+        values[slot] = value;
+        if(inLower[slot]){
+            siftUp(lower, position[slot], true);
+            siftDown(lower, lowerSize, position[slot], true);
+        }else{
+            siftUp(upper, position[slot], false);
+            siftDown(upper, upperSize, position[slot], false);
+        }
+        //only the changed value can be on the wrong side, one swap of the tops puts it right
+        if(upperSize > 0 && values[lower[0]] > values[upper[0]]){
+            int fromLower = lower[0];
+            int fromUpper = upper[0];
+            place(lower, 0, fromUpper, true);
+            place(upper, 0, fromLower, false);
+            siftDown(lower, lowerSize, 0, true);
+            siftDown(upper, upperSize, 0, false);
+        }
+    }
+
+    /*
+     * Adds a value to a slot while the window is filling, keeping the lower half the same size or one bigger
+     */
+    private void insert(int slot, double value){
+        values[slot] = value;
+        if(lowerSize == 0 || value <= values[lower[0]]){
+            place(lower, lowerSize, slot, true);
+            siftUp(lower, lowerSize++, true);
+        }else{
+            place(upper, upperSize, slot, false);
+            siftUp(upper, upperSize++, false);
+        }
+        if(lowerSize > upperSize + 1){
+            int moved = popTop(lower, --lowerSize, true);
+            place(upper, upperSize, moved, false);
+            siftUp(upper, upperSize++, false);
+        }else if(upperSize > lowerSize){
+            int moved = popTop(upper, --upperSize, false);
+            place(lower, lowerSize, moved, true);
+            siftUp(lower, lowerSize++, true);
+        }
+    }
+
+    /*
+     * Takes the top slot off a heap whose new size is given
+     */
+    private int popTop(int[] heap, int size, boolean max){
+        int top = heap[0];
+        place(heap, 0, heap[size], max);
+        siftDown(heap, size, 0, max);
+        return top;
+    }
+
+    private void place(int[] heap, int at, int slot, boolean max){
+        heap[at] = slot;
+        position[slot] = at;
+        inLower[slot] = max;
+    }
+
+    /*
+     * True if slot a belongs above slot b in the heap
+     */
+    private boolean above(int a, int b, boolean max){
+        return max ? values[a] > values[b] : values[a] < values[b];
+    }
+
+    private void siftUp(int[] heap, int at, boolean max){
+        int slot = heap[at];
+        while(at > 0){
+            int parent = (at - 1) / 2;
+            if(!above(slot, heap[parent], max)){
+                break;
+            }
+            place(heap, at, heap[parent], max);
+            at = parent;
+        }
+        place(heap, at, slot, max);
+    }
+
+    private void siftDown(int[] heap, int size, int at, boolean max){
+        int slot = heap[at];
+        while(true){
+            int child = 2 * at + 1;
+            if(child >= size){
+                break;
+            }
+            if(child + 1 < size && above(heap[child + 1], heap[child], max)){
+                child++;
+            }
+            if(!above(heap[child], slot, max)){
+                break;
+            }
+            place(heap, at, heap[child], max);
+            at = child;
+        }
+        place(heap, at, slot, max);
+    }
+
+    /**
+     * @return the median of the values in the window, the mean of the middle two when there is an even number, 0 if empty
+     */
+    public double getMedian(){
+        if(lowerSize == 0){
+            return 0.0;
+        }
+        if(lowerSize > upperSize){
+            return values[lower[0]];
+        }
+        return (values[lower[0]] + values[upper[0]]) / 2;
+    }
+
+    /**
+     * @return number of values in the window
+     */
+    public int size(){
+        return lowerSize + upperSize;
+    }
+
+    /**
+     * @return number of values the window holds when full
+     */
+    public int capacity(){
+        return values.length;
+    }
+
+    /**
+     * @return true once the window is full
+     */
+    public boolean isFull(){
+        return size() == values.length;
+    }
+
+    /**
+     * Empties the window
+     */
+    public void clear(){
+        lowerSize = 0;
+        upperSize = 0;
+        next = 0;
+    }
+}
@@ -0,0 +1,43 @@
+package controller.filter;
+
+/**
+ * Replaces each sample with the median of the last window samples, which removes single sample spikes
+ * without smearing steps the way an average does.
+ * The window is kept in an IndexedMedian, so each sample costs O(log window)
+ */
+public class MedianFilter implements Filter {
+    private final IndexedMedian median;
+
+    /**
+     * @param window number of samples the median is taken over, odd and at least 1
+     */
+    public MedianFilter(int window){
+        if(window < 1 || window % 2 == 0){
+            throw new IllegalArgumentException("Median window must be an odd number of samples");
+        }
+        median = new IndexedMedian(window);
+    }
+
+    @Override
+    public void process(double[] samples, int offset, int length){
+        for(int i = offset; i < offset + length; i++){
+            median.add(samples[i]);
+            samples[i] = median.getMedian();
+        }
+    }
+
+    @Override
+    public void reset(){
+        median.clear();
+    }
+
+    @Override
+    public double getDelay(){
+        return (median.capacity() - 1) / 2.0;
+    }
+
+    @Override
+    public String toString(){
+        return "median:" + median.capacity();
+    }
+}
@@ -0,0 +1,43 @@
+package controller.filter;
+
+import controller.SlidingAverage;
+
+/**
+ * Replaces each sample with the mean of the last window samples.
+ * Until the window fills, the mean of the samples seen so far is used
+ */
+public class MovingAverageFilter implements Filter {
+    private final SlidingAverage average;
+
+    /**
+     * @param window number of samples averaged, at least 1
+     */
+    public MovingAverageFilter(int window){
+        if(window < 1){
+            throw new IllegalArgumentException("Moving average window must be at least 1");
+        }
+        average = new SlidingAverage(window);
+    }
+
+    @Override
+    public void process(double[] samples, int offset, int length){
+        for(int i = offset; i < offset + length; i++){
+            samples[i] = average.addData(samples[i]);
+        }
+    }
+
+    @Override
+    public void reset(){
+        average.reset();
+    }
+
+    @Override
+    public double getDelay(){
+        return (average.getSize() - 1) / 2.0;
+    }
+
+    @Override
+    public String toString(){
+        return "ma:" + average.getSize();
+    }
+}
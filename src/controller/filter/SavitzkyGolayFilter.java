@@ -0,0 +1,118 @@
+package controller.filter;
+
+import java.util.Arrays;
+
+/**
+ * Savitzky-Golay smoothing, fits a polynomial to a centred window of samples by least squares and
+ * takes its value at the centre. Keeps the height and shape of peaks better than a moving average of
+ * the same width. The fit is centred, so the output lags the input by half the window.
+ * The coefficients are worked out once, each sample is then a dot product over the window.
+ * The window starts full of the first sample so the output is smooth from the start
+ */
+public class SavitzkyGolayFilter implements Filter {
+    private final double[] coefficients;
+    private final int polynomialOrder;
+    //the window twice over, so the last window samples are always in one unbroken run
+    private final double[] history;
+    private int next = 0;
+    private boolean primed = false;
+
+    /**
+     * @param window number of samples fitted, odd and at least 3
+     * @param polynomialOrder order of the fitted polynomial, less than the window
+     */
+    public SavitzkyGolayFilter(int window, int polynomialOrder){
+        if(window < 3 || window % 2 == 0){
+            throw new IllegalArgumentException("Savitzky-Golay window must be an odd number of samples, at least 3");
+        }
+        if(polynomialOrder < 0 || polynomialOrder >= window){
+            throw new IllegalArgumentException("Savitzky-Golay polynomial order must be at least 0 and less than the window");
+        }
+        this.polynomialOrder = polynomialOrder;
+        coefficients = smoothingCoefficients(window, polynomialOrder);
+        history = new double[2 * window];
+    }
+
+    /*
+     * The weights that give the fitted polynomial's value at the centre of the window:
+     * row 0 of (A'A)^-1 A' where A holds the powers of each sample's position from the centre
+     */
+    private static double[] smoothingCoefficients(int window, int order){
+        int half = window / 2;
+        int size = order + 1;
+        //normal equations A'A v = e0, augmented with e0
+        double[][] normal = new double[size][size + 1];
+        for(int r = 0; r < size; r++){
+            for(int c = 0; c < size; c++){
+                for(int t = -half; t <= half; t++){
+                    normal[r][c] += Math.pow(t, r + c);
+                }
+            }
+        }
+        normal[0][size] = 1;
+        for(int col = 0; col < size; col++){
+            int pivot = col;
+            for(int r = col + 1; r < size; r++){
+                if(Math.abs(normal[r][col]) > Math.abs(normal[pivot][col])){
+                    pivot = r;
+                }
+            }
+            double[] swap = normal[col];
+            normal[col] = normal[pivot];
+            normal[pivot] = swap;
+            for(int r = 0; r < size; r++){
+                if(r != col){
+                    double factor = normal[r][col] / normal[col][col];
+                    for(int c = col; c <= size; c++){
+                        normal[r][c] -= factor * normal[col][c];
+                    }
+                }
+            }
+        }
+        double[] coefficients = new double[window];
+        for(int t = -half; t <= half; t++){
+            double weight = 0.0;
+            for(int j = 0; j < size; j++){
+                weight += normal[j][size] / normal[j][j] * Math.pow(t, j);
+            }
+            coefficients[t + half] = weight;
+        }
+        return coefficients;
+    }
+
+    @Override
+    public void process(double[] samples, int offset, int length){
+        int window = coefficients.length;
+        if(length > 0 && !primed){
+            Arrays.fill(history, samples[offset]);
+            primed = true;
+        }
+        for(int i = offset; i < offset + length; i++){
+            history[next] = samples[i];
+            history[next + window] = samples[i];
+            next = (next + 1) % window;
+            //history[next] to history[next + window - 1] now runs oldest to newest
+            double value = 0.0;
+            for(int k = 0; k < window; k++){
+                value += coefficients[k] * history[next + k];
+            }
+            samples[i] = value;
+        }
+    }
+
+    @Override
+    public void reset(){
+        next = 0;
+        primed = false;
+    }
+
+    @Override
+    public double getDelay(){
+        return (coefficients.length - 1) / 2.0;
+    }
+
+    @Override
+    public String toString(){
+        return "sg:" + coefficients.length + ":" + polynomialOrder;
+    }
+}
@@ -1,13 +1,15 @@
 package input.test;
 
-import com.sun.jna.Pointer;
 import kirkwood.nidaq.access.NiDaq;
 import kirkwood.nidaq.access.NiDaqException;
+import kirkwood.nidaq.access.TaskCache;
 import kirkwood.nidaq.jna.Nicaiu;
+import model.CalibrationCurve;
+import model.PiecewiseLinearCalibration;
+import model.PolynomialCalibration;
 
 import java.io.*;
-import java.nio.DoubleBuffer;
-import java.nio.IntBuffer;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.Scanner;
 
@@ -21,6 +23,11 @@ public class Calibration {
      */
     private static NiDaq daq = new NiDaq();
 
+    /**
+     * Configured tasks reused between calibration points.
+     */
+    private static TaskCache tasks = new TaskCache(daq);
+
     // 5 min :      1500000
     // 2.5 min :     750000
     private static final int seconds = 1;
@@ -48,37 +55,10 @@ public class Calibration {
      * @throws InterruptedException
      */
     private static double[] analogInputTest(String channel, int mode) throws NiDaqException {
-        Pointer aiTask = null;
-        try {
-            String physicalChan = "Dev1/ai" + channel + "\0";
-            aiTask = daq.createTask("AITask\0");
-            System.out.println("aiTask assigned" + aiTask);
-            daq.createAIVoltageChannel(aiTask, physicalChan, "\0", mode, -10.0, 10.0, Nicaiu.DAQmx_Val_Volts, null);
-            daq.cfgSampClkTiming(aiTask, "\0", samplesPerSecond, Nicaiu.DAQmx_Val_Rising, Nicaiu.DAQmx_Val_FiniteSamps, samplesInChannel);
-            daq.startTask(aiTask);
-            System.out.println("Task Started!");
-            Integer read = new Integer(0);
-            double[] buffer = new double[inputBufferSize];
-
-            DoubleBuffer inputBuffer = DoubleBuffer.wrap(buffer);
-            IntBuffer samplesPerChannelRead = IntBuffer.wrap(new int[] {read} );
-            daq.readAnalogF64(aiTask, -1, -1, Nicaiu.DAQmx_Val_GroupByChannel, inputBuffer, inputBufferSize, samplesPerChannelRead);
-            daq.stopTask(aiTask);
-            daq.clearTask(aiTask);
-            System.out.println("Buffer:\t" + buffer);
-            return buffer;
-
-        } catch(NiDaqException e) {
-            try {
-                System.out.println("Trying to stop task");
-                System.out.println(e.getMessage());
-                e.printStackTrace();
-                daq.stopTask(aiTask);
-                daq.clearTask(aiTask);
-                return null;
-            } catch(NiDaqException e2) {}
-            throw(e);
-        }
+        double[] buffer = new double[inputBufferSize];
+        //the task for this channel and mode is only configured on the first reading, later points just start it
+        tasks.readAnalogF64("Dev1/ai" + channel, mode, samplesPerSecond, samplesInChannel, -1, buffer);
+        return buffer;
     }
 
     public double add(String channel, int mode, double value){
@@ -105,11 +85,67 @@ public class Calibration {
      * @return the voltage to units constant (slope of the data)
      */
     public double getVoltageToUnitsConstant(){
-        linearRegression = new LinearRegression(voltageValues, actualValues);
+        //only the points added so far, the rest of the arrays are empty slots
+        linearRegression = new LinearRegression(Arrays.copyOf(voltageValues, index), Arrays.copyOf(actualValues, index));
         voltageToUnitsConstant = linearRegression.slope();
         return voltageToUnitsConstant;
     }
 
+    /**
+     * @return the straight line fit from the last call to getVoltageToUnitsConstant, with its intercept and R^2
+     */
+    public LinearRegression getLinearRegression(){
+        return linearRegression;
+    }
+
+    /**
+     * Least squares polynomial through the points added so far
+     * @param degree highest power, 2 or 3 covers most load cells and extensometers
+     * @return the fitted curve, written the way the settings take it
+     */
+    public PolynomialCalibration getPolynomial(int degree){
+        return PolynomialCalibration.fit(voltageValues, actualValues, index, degree);
+    }
+
+    /**
+     * Straight lines between the points added so far, sorted by voltage
+     * @return the table, written the way the settings take it
+     */
+    public PiecewiseLinearCalibration getTable(){
+        Integer[] order = new Integer[index];
+        for(int i = 0; i < index; i++){
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(voltageValues[a], voltageValues[b]));
+        double[] volts = new double[index];
+        double[] units = new double[index];
+        for(int i = 0; i < index; i++){
+            volts[i] = voltageValues[order[i]];
+            units[i] = actualValues[order[i]];
+        }
+        return new PiecewiseLinearCalibration(volts, units);
+    }
+
+    /**
+     * @param curve curve fitted to the points added so far
+     * @return the coefficient of determination R^2 of the curve over those points
+     */
+    public double getRSquared(CalibrationCurve curve){
+        double mean = 0.0;
+        for(int i = 0; i < index; i++){
+            mean += actualValues[i];
+        }
+        mean /= index;
+        double residual = 0.0;
+        double total = 0.0;
+        for(int i = 0; i < index; i++){
+            double error = curve.toUnits(voltageValues[i]) - actualValues[i];
+            residual += error * error;
+            total += (actualValues[i] - mean) * (actualValues[i] - mean);
+        }
+        return 1 - residual / total;
+    }
+
     public void remove(){
         if(index > 0){
             voltageValues[index - 1] = 0.0;
@@ -137,8 +173,9 @@ public class Calibration {
                         "\taccurate the data will be. When you stop at an increment use the add command to add a\n" +
                         "\tvalue to the dataset. Once complete type the command 'finished' in and the tool will\n" +
                         "\tcalculate a linear regression of the points added. The constant will be displayed in\n" +
-                        "\tthe terminal. Once you have the constant you will need to update the Settings in the\n" +
-                        "\tmain software. See the User Manual for information on how to do that.\n\n";
+                        "\tthe terminal. Machines that are not linear can use poly or table instead, which output a\n" +
+                        "\tcalibration curve that goes in the same setting. Once you have the constant you will\n" +
+                        "\tneed to update the Settings in the main software. See the User Manual for information on how to do that.\n\n";
 
         String usageString = "USAGE:\n" +
                 "\tadd [value]\t\t\t-> This takes 1 second of data and averages into one voltage \n" +
@@ -148,6 +185,9 @@ public class Calibration {
                 "\tremove\t\t\t\t-> This removes the last reading if needed\n" +
                 "\tfinished\t\t\t-> This does the Linear Regression and outputs the voltage to units constant\n" +
                 "\t\t\t\t\t\t\t\tto the terminal\n" +
+                "\tpoly [degree]\t\t-> Fits a polynomial for a machine that is not linear and outputs the\n" +
+                "\t\t\t\t\t\t\t\tcalibration to put in the voltage to units constant setting\n" +
+                "\ttable\t\t\t\t-> Outputs the points as a calibration with straight lines between them\n" +
                 "\tquit\t\t\t\t-> Quits the program" +
                 "\tlist\t\t\t\t-> Lists all the current values stored";
 
@@ -199,11 +239,34 @@ public class Calibration {
                     System.out.println("Getting Linear Regression of current dataset");
                     double voltageToUnitsConstant = calibration.getVoltageToUnitsConstant();
                     System.out.println("Voltage Constant of given data set is: " + voltageToUnitsConstant);
+                    System.out.println("Best fit line: " + calibration.getLinearRegression());
                     hasFinished = true;
                     break;
+                case "poly":
+                    try {
+                        int degree = Integer.parseInt(input.next());
+                        PolynomialCalibration polynomial = calibration.getPolynomial(degree);
+                        System.out.println("Calibration of given data set is: " + polynomial);
+                        System.out.println(String.format("R^2 = %.6f", calibration.getRSquared(polynomial)));
+                        hasFinished = true;
+                    } catch (NumberFormatException e) {
+                        System.out.println("The degree must be a whole number, such as poly 2");
+                    } catch (IllegalArgumentException e) {
+                        System.out.println(e.getMessage());
+                    }
+                    break;
+                case "table":
+                    try {
+                        System.out.println("Calibration of given data set is: " + calibration.getTable());
+                        hasFinished = true;
+                    } catch (IllegalArgumentException e) {
+                        System.out.println("Every point needs a different voltage and there must be at least two: " + e.getMessage());
+                    }
+                    break;
                 case "quit":
                     if(hasFinished){
                         System.out.println("Quitting Program...");
+                        tasks.clear();
                         hasQuit = true;
                     }else{
                         System.out.print("You have not calculated a Voltage to Units Constant. Are you sure you want to quit? (y/n): ");
@@ -212,6 +275,7 @@ public class Calibration {
 
                         if(confirmation.equals("y") || confirmation.equals("yes") || confirmation.equals("Yes")){
                             System.out.println("Quitting Program...");
+                            tasks.clear();
                             hasQuit = true;
                         }else{
                             hasQuit = false;
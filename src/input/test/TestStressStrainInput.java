@@ -1,13 +1,11 @@
 package input.test;
 
-import com.sun.jna.Pointer;
 //import jdk.jfr.internal.tool.Main;
 import kirkwood.nidaq.access.NiDaqException;
+import kirkwood.nidaq.access.TaskCache;
 import kirkwood.nidaq.jna.Nicaiu;
 
 import java.io.*;
-import java.nio.DoubleBuffer;
-import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.concurrent.TimeUnit;
 import java.lang.*;
@@ -25,6 +23,11 @@ public class TestStressStrainInput {
      * NiDaq middle layer to call NiDaq function.
      */
     private static NiDaq daq = new NiDaq();
+
+    /**
+     * Configured tasks reused between readings of the same channel.
+     */
+    private static TaskCache tasks = new TaskCache(daq);
     // 5 min :      1500000
     // 2.5 min :     750000
     private static final int seconds = 3;
@@ -41,37 +44,9 @@ public class TestStressStrainInput {
      * @throws NiDaqException
      */
     private static double[] analogInputTest(String channel, int mode) throws NiDaqException, InterruptedException {
-        Pointer aiTask = null;
-        try {
-            String physicalChan = "Dev1/ai" + channel + "\0";
-            aiTask = daq.createTask("AITask\0");
-            System.out.println("aiTask assigned" + aiTask);
-            daq.createAIVoltageChannel(aiTask, physicalChan, "\0", mode, -10.0, 10.0, Nicaiu.DAQmx_Val_Volts, null);
-            daq.cfgSampClkTiming(aiTask, "\0", samplesPerSecond, Nicaiu.DAQmx_Val_Rising, Nicaiu.DAQmx_Val_FiniteSamps, samplesInChannel);
-            daq.startTask(aiTask);
-            System.out.println("Task Started!");
-            Integer read = new Integer(0);
-            double[] buffer = new double[inputBufferSize];
-
-            DoubleBuffer inputBuffer = DoubleBuffer.wrap(buffer);
-            IntBuffer samplesPerChannelRead = IntBuffer.wrap(new int[] {read} );
-            daq.readAnalogF64(aiTask, -1, -1, Nicaiu.DAQmx_Val_GroupByChannel, inputBuffer, inputBufferSize, samplesPerChannelRead);
-            daq.stopTask(aiTask);
-            daq.clearTask(aiTask);
-            System.out.println("Buffer:\t" + buffer);
-            return buffer;
-
-        } catch(NiDaqException e) {
-            try {
-                System.out.println("Trying to stop task");
-                System.out.println(e.getMessage());
-                e.printStackTrace();
-                daq.stopTask(aiTask);
-                daq.clearTask(aiTask);
-                return null;
-            } catch(NiDaqException e2) {}
-            throw(e);
-        }
+        double[] buffer = new double[inputBufferSize];
+        tasks.readAnalogF64("Dev1/ai" + channel, mode, samplesPerSecond, samplesInChannel, -1, buffer);
+        return buffer;
     }
 
     private static double[] convertToLbs (double [] input){
@@ -103,6 +78,7 @@ public class TestStressStrainInput {
             long startTime = System.currentTimeMillis();
             out = analogInputTest(channel, mode);
             long endTime = System.currentTimeMillis();
+            tasks.clear();
             System.out.println("Test Finished.");
             System.out.println("Time elapsed: " + ((endTime - startTime) / 1000.0) + " seconds");
             System.out.println("Printing the output:");
@@ -0,0 +1,144 @@
+package kirkwood.nidaq;
+
+import com.sun.jna.Memory;
+import com.sun.jna.NativeLong;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+
+import kirkwood.nidaq.access.NiDaq;
+import kirkwood.nidaq.access.NiDaqException;
+import kirkwood.nidaq.jna.Nicaiu;
+import kirkwood.nidaq.jna.NicaiuDirect;
+
+/**
+ * Compares the cost of the calls made on every block of a running task through the Nicaiu proxy
+ * interface and through the direct mapped NicaiuDirect bindings.
+ *
+ * Meant to be run against the stub library in the native folder. The task runs at a rate so high that
+ * the stub never waits for its clock, so the times printed are the cost of the bindings alone:
+ *     make -C native
+ *     java -Djna.library.path=native kirkwood.nidaq.NiDaqBindingBenchmark
+ * Real devices cannot run that fast, the timing call rejects the rate.
+ */
+public class NiDaqBindingBenchmark {
+
+	private static final int CHANNELS = 2;
+	private static final int SAMPLES_PER_READ = 20;
+	private static final int WARMUP_CALLS = 200000;
+	private static final int TIMED_CALLS = 1000000;
+
+	public static void main(String[] args) throws NiDaqException {
+		if(!NicaiuDirect.AVAILABLE) {
+			System.err.println("Direct bindings are not available, nothing to compare.");
+			return;
+		}
+		NiDaq daq = new NiDaq();
+		Pointer task = daq.createTask("Benchmark");
+		daq.createAIVoltageChannel(task, "Dev1/ai0:" + (CHANNELS - 1), "", Nicaiu.DAQmx_Val_Diff, -10.0, 10.0, Nicaiu.DAQmx_Val_Volts, null);
+		daq.cfgSampClkTiming(task, "", 1e9, Nicaiu.DAQmx_Val_Rising, Nicaiu.DAQmx_Val_ContSamps, 10000);
+		daq.startTask(task);
+
+		Memory proxyBlock = new Memory(8L * CHANNELS * SAMPLES_PER_READ);
+		Memory directBlock = new Memory(8L * CHANNELS * SAMPLES_PER_READ);
+		Memory read = new Memory(4);
+		try {
+			//both bindings must read the same samples before their speed means anything
+			Nicaiu.INSTANCE.DAQmxReadAnalogF64(task, SAMPLES_PER_READ, -1, new NativeLong(Nicaiu.DAQmx_Val_GroupByChannel), proxyBlock, new NativeLong(CHANNELS * SAMPLES_PER_READ), read, null);
+			daq.stopTask(task);
+			daq.startTask(task);
+			NicaiuDirect.DAQmxReadAnalogF64(task, SAMPLES_PER_READ, -1, Nicaiu.DAQmx_Val_GroupByChannel, directBlock, CHANNELS * SAMPLES_PER_READ, read, null);
+			for(int i = 0; i < CHANNELS * SAMPLES_PER_READ; i++) {
+				if(proxyBlock.getDouble(8L * i) != directBlock.getDouble(8L * i)) {
+					System.err.println("Bindings disagree at sample " + i + ": " + proxyBlock.getDouble(8L * i) + " and " + directBlock.getDouble(8L * i));
+					return;
+				}
+			}
+			System.out.println("Both bindings read the same " + (CHANNELS * SAMPLES_PER_READ) + " samples.");
+
+			System.out.println("Call\t\t\t\tProxy (ns)\tDirect (ns)");
+			report("ReadAnalogF64", timeProxyRead(task, proxyBlock, read), timeDirectRead(task, directBlock, read));
+			report("GetReadAvailSampPerChan", timeProxyAvailable(task), timeDirectAvailable(task, read));
+			report("Start and stop", timeProxyStartStop(task), timeDirectStartStop(task));
+		} finally {
+			daq.stopTask(task);
+			daq.clearTask(task);
+		}
+	}
+
+	private static void report(String call, double proxy, double direct) {
+		System.out.printf("%-24s\t%.1f\t\t%.1f\t(%.1fx)%n", call, proxy, direct, proxy / direct);
+	}
+
+	private static double timeProxyRead(Pointer task, Pointer block, Pointer read) {
+		NativeLong fillMode = new NativeLong(Nicaiu.DAQmx_Val_GroupByChannel);
+		NativeLong size = new NativeLong(CHANNELS * SAMPLES_PER_READ);
+		for(int i = 0; i < WARMUP_CALLS; i++) {
+			Nicaiu.INSTANCE.DAQmxReadAnalogF64(task, SAMPLES_PER_READ, -1, fillMode, block, size, read, null);
+		}
+		long start = System.nanoTime();
+		for(int i = 0; i < TIMED_CALLS; i++) {
+			Nicaiu.INSTANCE.DAQmxReadAnalogF64(task, SAMPLES_PER_READ, -1, fillMode, block, size, read, null);
+		}
+		return (System.nanoTime() - start) / (double) TIMED_CALLS;
+	}
+
+	private static double timeDirectRead(Pointer task, Pointer block, Pointer read) {
+		for(int i = 0; i < WARMUP_CALLS; i++) {
+			NicaiuDirect.DAQmxReadAnalogF64(task, SAMPLES_PER_READ, -1, Nicaiu.DAQmx_Val_GroupByChannel, block, CHANNELS * SAMPLES_PER_READ, read, null);
+		}
+		long start = System.nanoTime();
+		for(int i = 0; i < TIMED_CALLS; i++) {
+			NicaiuDirect.DAQmxReadAnalogF64(task, SAMPLES_PER_READ, -1, Nicaiu.DAQmx_Val_GroupByChannel, block, CHANNELS * SAMPLES_PER_READ, read, null);
+		}
+		return (System.nanoTime() - start) / (double) TIMED_CALLS;
+	}
+
+	private static double timeProxyAvailable(Pointer task) {
+		IntByReference available = new IntByReference();
+		for(int i = 0; i < WARMUP_CALLS; i++) {
+			Nicaiu.INSTANCE.DAQmxGetReadAvailSampPerChan(task, available);
+		}
+		long start = System.nanoTime();
+		for(int i = 0; i < TIMED_CALLS; i++) {
+			Nicaiu.INSTANCE.DAQmxGetReadAvailSampPerChan(task, available);
+		}
+		return (System.nanoTime() - start) / (double) TIMED_CALLS;
+	}
+
+	private static double timeDirectAvailable(Pointer task, Pointer available) {
+		for(int i = 0; i < WARMUP_CALLS; i++) {
+			NicaiuDirect.DAQmxGetReadAvailSampPerChan(task, available);
+		}
+		long start = System.nanoTime();
+		for(int i = 0; i < TIMED_CALLS; i++) {
+			NicaiuDirect.DAQmxGetReadAvailSampPerChan(task, available);
+		}
+		return (System.nanoTime() - start) / (double) TIMED_CALLS;
+	}
+
+	private static double timeProxyStartStop(Pointer task) {
+		for(int i = 0; i < WARMUP_CALLS; i++) {
+			Nicaiu.INSTANCE.DAQmxStopTask(task);
+			Nicaiu.INSTANCE.DAQmxStartTask(task);
+		}
+		long start = System.nanoTime();
+		for(int i = 0; i < TIMED_CALLS; i++) {
+			Nicaiu.INSTANCE.DAQmxStopTask(task);
+			Nicaiu.INSTANCE.DAQmxStartTask(task);
+		}
+		return (System.nanoTime() - start) / (double) TIMED_CALLS;
+	}
+
+	private static double timeDirectStartStop(Pointer task) {
+		for(int i = 0; i < WARMUP_CALLS; i++) {
+			NicaiuDirect.DAQmxStopTask(task);
+			NicaiuDirect.DAQmxStartTask(task);
+		}
+		long start = System.nanoTime();
+		for(int i = 0; i < TIMED_CALLS; i++) {
+			NicaiuDirect.DAQmxStopTask(task);
+			NicaiuDirect.DAQmxStartTask(task);
+		}
+		return (System.nanoTime() - start) / (double) TIMED_CALLS;
+	}
+}
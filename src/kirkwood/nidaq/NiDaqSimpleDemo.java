@@ -22,13 +22,11 @@
 
 package kirkwood.nidaq;
 
-import java.nio.DoubleBuffer;
-import java.nio.IntBuffer;
-
 import com.sun.jna.Pointer;
 
 import kirkwood.nidaq.access.NiDaq;
 import kirkwood.nidaq.access.NiDaqException;
+import kirkwood.nidaq.access.TaskCache;
 import kirkwood.nidaq.jna.Nicaiu;
 
 /**
@@ -48,6 +46,11 @@ public class NiDaqSimpleDemo {
 	 * NiDaq middle layer to call NiDaq function.
 	 */
 	private static NiDaq daq = new NiDaq();
+
+	/**
+	 * Analog in tasks kept configured between reads.
+	 */
+	private static TaskCache tasks = new TaskCache(daq);
 	
 	/**
 	 * Write the specified data to the digital out lines.
@@ -64,32 +67,24 @@ public class NiDaqSimpleDemo {
 	}
 	
 	
+	/**
+	 * Read the analog in lines. The task is configured on the first call and reused
+	 * after that, so reading in a loop only pays for starting and stopping it.
+	 * @param inputBufferSize
+	 * @return the samples read, grouped by channel
+	 * @throws NiDaqException
+	 */
 	public static double[] readAnalogueIn(int inputBufferSize) throws NiDaqException {
-		Pointer aiTask = null;
-		try {
-			aiTask = daq.createTask("AITask");
-			daq.createAIVoltageChannel(aiTask, "Dev1/ai0:7", "", Nicaiu.DAQmx_Val_Cfg_Default, -10.0, 10.0, Nicaiu.DAQmx_Val_Volts, null);
-			daq.cfgSampClkTiming(aiTask, "", 100.0, Nicaiu.DAQmx_Val_Rising, Nicaiu.DAQmx_Val_FiniteSamps, 8);
-			daq.startTask(aiTask);
-			Integer read = new Integer(0);
-			double[] buffer = new double[inputBufferSize];
-			
-			DoubleBuffer inputBuffer = DoubleBuffer.wrap(buffer);
-			IntBuffer samplesPerChannelRead = IntBuffer.wrap(new int[] {read} );
-			daq.readAnalogF64(aiTask, -1, 100.0, Nicaiu.DAQmx_Val_GroupByChannel, inputBuffer, inputBufferSize, samplesPerChannelRead);
-	
-			daq.stopTask(aiTask);
-			daq.clearTask(aiTask);
-			return buffer;
-			
-		} catch(NiDaqException e) {
-			try {
-				daq.stopTask(aiTask);
-				daq.clearTask(aiTask);
-				return null;
-			} catch(NiDaqException e2) {}
-			throw(e);
-		}
+		double[] buffer = new double[inputBufferSize];
+		tasks.readAnalogF64("Dev1/ai0:7", Nicaiu.DAQmx_Val_Cfg_Default, 100.0, 8, 100.0, buffer);
+		return buffer;
+	}
+
+	/**
+	 * Clear the analog in task kept between reads.
+	 */
+	public static void closeAnalogueIn() {
+		tasks.clear();
 	}
 
 	/**
@@ -173,6 +173,7 @@ public class NiDaqUIDemo extends JFrame implements Runnable {
 	 */
 	private synchronized void closeDaq()  {
 		setRunning(false);
+		NiDaqSimpleDemo.closeAnalogueIn();
 		System.out.println("DAQ closed");
 	}
 	
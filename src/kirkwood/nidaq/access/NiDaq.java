@@ -27,12 +27,17 @@ import java.nio.DoubleBuffer;
 import java.nio.IntBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
 
 import kirkwood.nidaq.jna.Nicaiu;
+import kirkwood.nidaq.jna.NicaiuDirect;
 
 import com.sun.jna.Memory;
 import com.sun.jna.NativeLong;
 import com.sun.jna.Pointer;
+import com.sun.jna.ptr.DoubleByReference;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.LongByReference;
 import com.sun.jna.ptr.PointerByReference;
 
 /**
@@ -42,6 +47,27 @@ import com.sun.jna.ptr.PointerByReference;
  */
 public class NiDaq {
 
+	/**
+	 * Most names kept encoded before the cache is emptied, far more than any program here uses.
+	 */
+	private static final int MAX_ENCODED_NAMES = 256;
+
+	/**
+	 * Null terminated UTF-8 bytes of every channel, terminal and device name passed in so far, so
+	 * repeated calls do not encode the same name again.
+	 */
+	private static final ConcurrentHashMap<String, byte[]> encodedNames = new ConcurrentHashMap<String, byte[]>();
+
+	/**
+	 * Native memory each thread's property getters write their result to, instead of a new reference per call.
+	 */
+	private static final ThreadLocal<Memory> scratch = new ThreadLocal<Memory>() {
+		@Override
+		protected Memory initialValue() {
+			return new Memory(8);
+		}
+	};
+
 	/**
 	 * Creates a task . If you use this function to create a task, you must use DAQmxClearTask to destroy it. 
 	 * If you use this function within a loop, NI-DAQmx creates a new task in each iteration of the loop. Use 
@@ -57,7 +83,7 @@ public class NiDaq {
 	public Pointer createTask(String taskName) throws NiDaqException {
 		// This is my stuff
 		PointerByReference taskHandleRef = new PointerByReference();
-		checkError(Nicaiu.INSTANCE.DAQmxCreateTask(taskName.getBytes(StandardCharsets.UTF_8), taskHandleRef));
+		checkError(Nicaiu.INSTANCE.DAQmxCreateTask(encode(taskName), taskHandleRef));
 		Pointer taskHandle = taskHandleRef.getValue();
 		return taskHandle;
 	}
@@ -88,13 +114,13 @@ public class NiDaq {
 	 * @throws NiDaqException
 	 */
 	public void createDOChan(Pointer taskHandle, String lines, String nameToAssignToLines, int lineGrouping) throws NiDaqException {
-		checkError(Nicaiu.INSTANCE.DAQmxCreateDOChan(taskHandle, lines.getBytes(StandardCharsets.UTF_8), nameToAssignToLines.getBytes(StandardCharsets.UTF_8), lineGrouping));
+		checkError(Nicaiu.INSTANCE.DAQmxCreateDOChan(taskHandle, encode(lines), encode(nameToAssignToLines), lineGrouping));
 	}
 	
 
 	
 	public void createDIChan(Pointer taskHandle, String lines, String nameToAssignToLines, int lineGrouping) throws NiDaqException {
-		checkError(Nicaiu.INSTANCE.DAQmxCreateDIChan(taskHandle, lines.getBytes(StandardCharsets.UTF_8), nameToAssignToLines.getBytes(StandardCharsets.UTF_8), lineGrouping));
+		checkError(Nicaiu.INSTANCE.DAQmxCreateDIChan(taskHandle, encode(lines), encode(nameToAssignToLines), lineGrouping));
 	}
 	
 	/**
@@ -138,7 +164,7 @@ public class NiDaq {
 	
 	
 	public void createAIVoltageChannel(Pointer taskHandle, String physicalChannel, String nameToAssignToChannel, int terminalConfig, double minVal, double maxVal, int units, String customScaleName) throws NiDaqException {
-		checkError(Nicaiu.INSTANCE.DAQmxCreateAIVoltageChan(taskHandle, physicalChannel.getBytes(StandardCharsets.UTF_8), nameToAssignToChannel.getBytes(StandardCharsets.UTF_8), terminalConfig, minVal, maxVal, units, customScaleName == null ? null : customScaleName.getBytes(StandardCharsets.UTF_8)));
+		checkError(Nicaiu.INSTANCE.DAQmxCreateAIVoltageChan(taskHandle, encode(physicalChannel), encode(nameToAssignToChannel), terminalConfig, minVal, maxVal, units, customScaleName == null ? null : encode(customScaleName)));
 	}
 
 	/**
@@ -188,7 +214,7 @@ public class NiDaq {
 	 * @throws NiDaqException
 	 */
 	public void createAICurrentChannel(Pointer taskHandle, String physicalChannel, String nameToAssignToChannel, int terminalConfig, double minVal, double maxVal, int units, int shuntResistorLoc, double extShuntResistorVal, String customScaleName) throws NiDaqException {
-		checkError(Nicaiu.INSTANCE.DAQmxCreateAICurrentChan(taskHandle, physicalChannel.getBytes(StandardCharsets.UTF_8), nameToAssignToChannel.getBytes(StandardCharsets.UTF_8), terminalConfig, minVal, maxVal, units, shuntResistorLoc, extShuntResistorVal, customScaleName.getBytes(StandardCharsets.UTF_8)));
+		checkError(Nicaiu.INSTANCE.DAQmxCreateAICurrentChan(taskHandle, encode(physicalChannel), encode(nameToAssignToChannel), terminalConfig, minVal, maxVal, units, shuntResistorLoc, extShuntResistorVal, encode(customScaleName)));
 	}
 	
 	/**
@@ -206,7 +232,11 @@ public class NiDaq {
 	 * @throws NiDaqException
 	 */
 	public void startTask(Pointer taskHandle) throws NiDaqException {
-		checkError(Nicaiu.INSTANCE.DAQmxStartTask(taskHandle));
+		if(NicaiuDirect.AVAILABLE) {
+			checkError(NicaiuDirect.DAQmxStartTask(taskHandle));
+		} else {
+			checkError(Nicaiu.INSTANCE.DAQmxStartTask(taskHandle));
+		}
 	}
 	
 	/**
@@ -283,6 +313,35 @@ public class NiDaq {
 		checkError(Nicaiu.INSTANCE.DAQmxReadAnalogF64(taskHandle, numSampsPerChan, timeout, new NativeLong(fillMode), readArray, new NativeLong(arraySizeInSamps), sampsPerChanRead, null));
 	}
 	
+	/**
+	 * Reads multiple floating-point samples into native memory, such as a com.sun.jna.Memory that is reused 
+	 * between reads. Heap arrays have to be copied to native memory and back by JNA on every call, native memory 
+	 * is written by the driver in place.
+	 * 
+	 * @param taskHandle The task to read samples from.
+	 * 
+	 * @param numSampsPerChan The number of samples, per channel, to read. See the DoubleBuffer version.
+	 * 
+	 * @param timeout The amount of time, in seconds, to wait for the function to read the sample(s).
+	 * 
+	 * @param fillMode DAQmx_Val_GroupByChannel or DAQmx_Val_GroupByScanNumber.
+	 *  
+	 * @param readArray Native memory with room for at least arraySizeInSamps doubles.
+	 * 
+	 * @param arraySizeInSamps The size of the array, in samples, into which samples are read.
+	 * 
+	 * @param sampsPerChanRead Native memory with room for one int32, set to the number of samples read from each channel.
+	 * 
+	 * @throws NiDaqException
+	 */
+	public void readAnalogF64(Pointer taskHandle, int numSampsPerChan, double timeout, int fillMode, Pointer readArray, int arraySizeInSamps, Pointer sampsPerChanRead) throws NiDaqException {
+		if(NicaiuDirect.AVAILABLE) {
+			checkError(NicaiuDirect.DAQmxReadAnalogF64(taskHandle, numSampsPerChan, timeout, fillMode, readArray, arraySizeInSamps, sampsPerChanRead, null));
+		} else {
+			checkError(Nicaiu.INSTANCE.DAQmxReadAnalogF64(taskHandle, numSampsPerChan, timeout, new NativeLong(fillMode), readArray, new NativeLong(arraySizeInSamps), sampsPerChanRead, (Pointer) null));
+		}
+	}
+	
 	
 	/**
 	 * Reads multiple Digital input samples from a task that contains one or more digital input channels.
@@ -344,7 +403,11 @@ public class NiDaq {
 	 * @throws NiDaqException
 	 */
 	public void stopTask(Pointer taskHandle) throws NiDaqException {
-		checkError(Nicaiu.INSTANCE.DAQmxStopTask(taskHandle));
+		if(NicaiuDirect.AVAILABLE) {
+			checkError(NicaiuDirect.DAQmxStopTask(taskHandle));
+		} else {
+			checkError(Nicaiu.INSTANCE.DAQmxStopTask(taskHandle));
+		}
 	}
 	
 	/**
@@ -362,6 +425,20 @@ public class NiDaq {
 		checkError(Nicaiu.INSTANCE.DAQmxClearTask(taskHandle));
 	}
 	
+	/**
+	 * Moves the task through its states without starting it, such as DAQmx_Val_Task_Verify to have the driver 
+	 * check the channels and timing now, so a bad configuration is reported here rather than by the first start.
+	 * 
+	 * @param taskHandle The task to alter the state of.
+	 * 
+	 * @param action The state to move the task to, such as DAQmx_Val_Task_Verify.
+	 * 
+	 * @throws NiDaqException
+	 */
+	public void taskControl(Pointer taskHandle, int action) throws NiDaqException {
+		checkError(Nicaiu.INSTANCE.DAQmxTaskControl(taskHandle, action));
+	}
+	
 	/**
 	 * Sets the source of the Sample Clock, the rate of the Sample Clock, and the number of samples to acquire or 
 	 * generate.
@@ -392,9 +469,96 @@ public class NiDaq {
 	 * @throws NiDaqException
 	 */
 	public void cfgSampClkTiming(Pointer taskHandle, String source, double rate, int activeEdge, int sampleMode, long sampsPerChan) throws NiDaqException{
-		checkError(Nicaiu.INSTANCE.DAQmxCfgSampClkTiming(taskHandle, source.getBytes(StandardCharsets.UTF_8), rate, activeEdge, sampleMode, sampsPerChan));
+		checkError(Nicaiu.INSTANCE.DAQmxCfgSampClkTiming(taskHandle, encode(source), rate, activeEdge, sampleMode, sampsPerChan));
+	}
+	
+	/**
+	 * Configures a task to start acquiring or generating samples on a rising or falling edge of a digital signal.
+	 * 
+	 * @param taskHandle The task used in this function.
+	 * 
+	 * @param triggerSource The name of a terminal where there is a digital signal to use as the source of the 
+	 * trigger, such as /Dev1/PFI0.
+	 * 
+	 * @param triggerEdge Specifies on which edge of the digital signal to start acquiring or generating samples.
+	 * 		DAQmx_Val_Rising   Rising edge of the signal. 
+	 * 		DAQmx_Val_Falling   Falling edge of the signal.
+	 * 
+	 * @throws NiDaqException
+	 */
+	public void cfgDigEdgeStartTrig(Pointer taskHandle, String triggerSource, int triggerEdge) throws NiDaqException {
+		checkError(Nicaiu.INSTANCE.DAQmxCfgDigEdgeStartTrig(taskHandle, encode(triggerSource), triggerEdge));
+	}
+	
+	/**
+	 * Registers a callback function to receive an event when the specified number of samples is written from the 
+	 * device to the buffer or from the buffer to the device. This function only works with devices that support 
+	 * buffered tasks. Register the event before you start the task. To unregister the event, pass null for the callback.
+	 * 
+	 * The callback is called on a driver thread. Keep a reference to the callback object for as long as it is 
+	 * registered, otherwise it may be garbage collected while the driver still calls it.
+	 * 
+	 * @param taskHandle The task used in this function.
+	 * 
+	 * @param everyNsamplesEventType The type of event you want to receive.
+	 * 		DAQmx_Val_Acquired_Into_Buffer   This event type is only supported for input tasks. 
+	 * 		DAQmx_Val_Transferred_From_Buffer   This event type is only supported for output tasks.
+	 * 
+	 * @param nSamples The number of samples after which each event should occur.
+	 * 
+	 * @param options Use 0 to receive callbacks on a thread owned by the driver.
+	 * 
+	 * @param callback The function that you want NI-DAQmx to call when the event occurs.
+	 * 
+	 * @param callbackData A value that you want DAQmx to pass to your callback function, may be null.
+	 * 
+	 * @throws NiDaqException
+	 */
+	public void registerEveryNSamplesEvent(Pointer taskHandle, int everyNsamplesEventType, int nSamples, int options, Nicaiu.DAQmxEveryNSamplesEventCallbackPtr callback, Pointer callbackData) throws NiDaqException {
+		checkError(Nicaiu.INSTANCE.DAQmxRegisterEveryNSamplesEvent(taskHandle, everyNsamplesEventType, nSamples, options, callback, callbackData));
+	}
+	
+	/**
+	 * Registers a callback function to receive an event when a task stops due to an error or when a finite 
+	 * acquisition task or finite generation task completes execution. A Done event does not occur when a task 
+	 * is stopped explicitly, such as by calling DAQmxStopTask. Register the event before you start the task.
+	 * To unregister the event, pass null for the callback.
+	 * 
+	 * @param taskHandle The task used in this function.
+	 * 
+	 * @param options Use 0 to receive callbacks on a thread owned by the driver.
+	 * 
+	 * @param callback The function that you want NI-DAQmx to call when the event occurs. The status passed to it 
+	 * is the error or warning code that stopped the task, or 0 if it completed normally.
+	 * 
+	 * @param callbackData A value that you want DAQmx to pass to your callback function, may be null.
+	 * 
+	 * @throws NiDaqException
+	 */
+	public void registerDoneEvent(Pointer taskHandle, int options, Nicaiu.DAQmxDoneEventCallbackPtr callback, Pointer callbackData) throws NiDaqException {
+		checkError(Nicaiu.INSTANCE.DAQmxRegisterDoneEvent(taskHandle, options, callback, callbackData));
 	}
 	
+	/**
+	 * Encodes a name as the null terminated char array the C API expects. Names that are already
+	 * terminated with \0 are left as they are, so existing callers passing "Dev1/ai0\0" still work.
+	 * The arrays are shared and must only be read.
+	 * @param name
+	 * @return the cached encoding of the name
+	 */
+	static byte[] encode(String name) {
+		byte[] encoded = encodedNames.get(name);
+		if(encoded == null) {
+			String terminated = name.endsWith("\0") ? name : name + "\0";
+			encoded = terminated.getBytes(StandardCharsets.UTF_8);
+			if(encodedNames.size() >= MAX_ENCODED_NAMES) {
+				encodedNames.clear();
+			}
+			encodedNames.put(name, encoded);
+		}
+		return encoded;
+	}
+
 	/**
 	 * Checks the return value from the DLL call and throws a NiDaqException to report the error
 	 * if the return value indicates a warning or an error.
@@ -407,8 +571,79 @@ public class NiDaq {
 		throw new NiDaqException(errorCode);
 	}
 	
+	/**
+	 * Gets the maximum rate for an analog input task that uses only one channel on the device.
+	 * 
+	 * @param devName The name of the device, such as Dev1.
+	 * 
+	 * @return The maximum sample rate in samples per second.
+	 * 
+	 * @throws NiDaqException
+	 */
+	public double getDevAIMaxSingleChanRate(String devName) throws NiDaqException {
+		DoubleByReference rate = new DoubleByReference();
+		checkError(Nicaiu.INSTANCE.DAQmxGetDevAIMaxSingleChanRate(encode(devName), rate));
+		return rate.getValue();
+	}
+	
+	/**
+	 * Gets the maximum aggregate rate for an analog input task that uses more than one channel on the device. 
+	 * Divide by the number of channels in the task to get the maximum rate per channel.
+	 * 
+	 * @param devName The name of the device, such as Dev1.
+	 * 
+	 * @return The maximum aggregate sample rate in samples per second.
+	 * 
+	 * @throws NiDaqException
+	 */
+	public double getDevAIMaxMultiChanRate(String devName) throws NiDaqException {
+		DoubleByReference rate = new DoubleByReference();
+		checkError(Nicaiu.INSTANCE.DAQmxGetDevAIMaxMultiChanRate(encode(devName), rate));
+		return rate.getValue();
+	}
+	
+	/**
+	 * Gets the number of samples per channel that are waiting in the device buffer to be read.
+	 * 
+	 * @param taskHandle The task used in this function.
+	 * 
+	 * @return The number of samples per channel available to read.
+	 * 
+	 * @throws NiDaqException
+	 */
+	public long getReadAvailSampPerChan(Pointer taskHandle) throws NiDaqException {
+		if(NicaiuDirect.AVAILABLE) {
+			Pointer available = scratch.get();
+			checkError(NicaiuDirect.DAQmxGetReadAvailSampPerChan(taskHandle, available));
+			return Integer.toUnsignedLong(available.getInt(0));
+		}
+		IntByReference available = new IntByReference();
+		checkError(Nicaiu.INSTANCE.DAQmxGetReadAvailSampPerChan(taskHandle, available));
+		return Integer.toUnsignedLong(available.getValue());
+	}
+	
+	/**
+	 * Gets the total number of samples per channel acquired since the task started, whether read or not.
+	 * 
+	 * @param taskHandle The task used in this function.
+	 * 
+	 * @return The number of samples per channel acquired.
+	 * 
+	 * @throws NiDaqException
+	 */
+	public long getReadTotalSampPerChanAcquired(Pointer taskHandle) throws NiDaqException {
+		if(NicaiuDirect.AVAILABLE) {
+			Pointer acquired = scratch.get();
+			checkError(NicaiuDirect.DAQmxGetReadTotalSampPerChanAcquired(taskHandle, acquired));
+			return acquired.getLong(0);
+		}
+		LongByReference acquired = new LongByReference();
+		checkError(Nicaiu.INSTANCE.DAQmxGetReadTotalSampPerChanAcquired(taskHandle, acquired));
+		return acquired.getValue();
+	}
+	
 	public void resetDevice(String devName) throws NiDaqException {
-		checkError(Nicaiu.INSTANCE.DAQmxResetDevice(devName.getBytes(StandardCharsets.UTF_8)));
+		checkError(Nicaiu.INSTANCE.DAQmxResetDevice(encode(devName)));
 	}
 
 	
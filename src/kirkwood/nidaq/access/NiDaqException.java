@@ -30,6 +30,13 @@ public class NiDaqException extends Exception {
 		this.errorCode = errorCode;
 	}
 	
+	/**
+	 * @return The DAQmx error or warning code reported by the driver.
+	 */
+	public int getErrorCode() {
+		return errorCode;
+	}
+	
 	/**
 	 * Translate the DAQ numerical error code into the event type.
 	 */
@@ -0,0 +1,205 @@
+/**
+ *********************************************************************
+ * JNI4NI Java Native Interface wrapper for National Instruments DAQ.
+ *********************************************************************
+ * (c) 2015 David Kirkwood            Email: davekirkwood@hotmail.com
+ *********************************************************************
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package kirkwood.nidaq.access;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.sun.jna.Pointer;
+
+import kirkwood.nidaq.jna.Nicaiu;
+
+/**
+ * Keeps finite analog input tasks configured between reads, keyed by physical channel, terminal
+ * configuration, sample rate and samples per channel.
+ *
+ * Creating a task and adding its channel and timing costs far more than the read itself, so tools that
+ * take one short reading after another (calibration points, diagnostic sweeps) create each task once and
+ * then only start, read and stop it. Stopping a finite task returns it to the state it was in before it
+ * was started, which also releases the device, so several cached tasks can share one device as long as
+ * only one of them is read at a time.
+ *
+ * A task that fails is cleared and dropped from the cache, so the next read configures it again from
+ * scratch. Once more than the maximum number of tasks are cached, the least recently used one is cleared.
+ * Call clear when finished to release every task.
+ */
+public class TaskCache {
+
+	/**
+	 * Number of tasks kept configured when no maximum is given.
+	 */
+	public static final int DEFAULT_MAX_TASKS = 8;
+
+	private final NiDaq daq;
+	private final int maxTasks;
+	private final LinkedHashMap<String, Pointer> tasks;
+
+	/**
+	 * @param daq NiDaq middle layer used to create, run and clear the tasks.
+	 */
+	public TaskCache(NiDaq daq) {
+		this(daq, DEFAULT_MAX_TASKS);
+	}
+
+	/**
+	 * @param daq NiDaq middle layer used to create, run and clear the tasks.
+	 * @param maxTasks Most tasks kept configured at once.
+	 */
+	public TaskCache(NiDaq daq, int maxTasks) {
+		if(maxTasks < 1) {
+			throw new IllegalArgumentException("Task cache must hold at least 1 task");
+		}
+		this.daq = daq;
+		this.maxTasks = maxTasks;
+		//access order, so the first entry is always the least recently used task
+		tasks = new LinkedHashMap<String, Pointer>(16, 0.75f, true);
+	}
+
+	/**
+	 * Returns a finite voltage input task for the given channel, creating and configuring it only if
+	 * there is not one cached already. The task is verified but not started.
+	 *
+	 * @param physicalChannel The physical channel(s) to read, such as Dev1/ai0 or Dev1/ai0:7.
+	 *
+	 * @param terminalConfig The input terminal configuration, such as DAQmx_Val_Diff or DAQmx_Val_RSE.
+	 *
+	 * @param rate The sampling rate in samples per second per channel.
+	 *
+	 * @param samplesPerChannel The number of samples each read acquires from each channel.
+	 *
+	 * @return The configured task handle, owned by this cache.
+	 *
+	 * @throws NiDaqException if the task could not be configured, nothing is cached in that case.
+	 */
+	public synchronized Pointer getAIVoltageTask(String physicalChannel, int terminalConfig, double rate, int samplesPerChannel) throws NiDaqException {
+		String key = physicalChannel + "|" + terminalConfig + "|" + rate + "|" + samplesPerChannel;
+		Pointer task = tasks.get(key);
+		if(task != null) {
+			return task;
+		}
+		//an empty name lets the driver generate a unique one, so cached tasks never clash
+		task = daq.createTask("\0");
+		try {
+			daq.createAIVoltageChannel(task, physicalChannel + "\0", "\0", terminalConfig, -10.0, 10.0, Nicaiu.DAQmx_Val_Volts, null);
+			daq.cfgSampClkTiming(task, "\0", rate, Nicaiu.DAQmx_Val_Rising, Nicaiu.DAQmx_Val_FiniteSamps, samplesPerChannel);
+			//a task the driver rejects is never cached, rather than failing on every read
+			daq.taskControl(task, Nicaiu.DAQmx_Val_Task_Verify);
+		} catch(NiDaqException e) {
+			release(task);
+			throw(e);
+		}
+		tasks.put(key, task);
+		evictLeastRecentlyUsed();
+		return task;
+	}
+
+	/**
+	 * Takes one finite reading with a cached task, grouped by channel. The task is started, read
+	 * and stopped again, ready for the next reading.
+	 *
+	 * @param physicalChannel The physical channel(s) to read, such as Dev1/ai0 or Dev1/ai0:7.
+	 *
+	 * @param terminalConfig The input terminal configuration, such as DAQmx_Val_Diff or DAQmx_Val_RSE.
+	 *
+	 * @param rate The sampling rate in samples per second per channel.
+	 *
+	 * @param samplesPerChannel The number of samples to acquire from each channel.
+	 *
+	 * @param timeout The amount of time, in seconds, to wait for the samples. -1 waits indefinitely.
+	 *
+	 * @param buffer Array the samples are read into.
+	 *
+	 * @return The number of samples read from each channel.
+	 *
+	 * @throws NiDaqException if the reading failed, the task is cleared and configured again next time.
+	 */
+	public synchronized int readAnalogF64(String physicalChannel, int terminalConfig, double rate, int samplesPerChannel, double timeout, double[] buffer) throws NiDaqException {
+		Pointer task = getAIVoltageTask(physicalChannel, terminalConfig, rate, samplesPerChannel);
+		IntBuffer samplesPerChannelRead = IntBuffer.wrap(new int[1]);
+		try {
+			daq.startTask(task);
+			daq.readAnalogF64(task, -1, timeout, Nicaiu.DAQmx_Val_GroupByChannel, DoubleBuffer.wrap(buffer), buffer.length, samplesPerChannelRead);
+			daq.stopTask(task);
+		} catch(NiDaqException e) {
+			remove(task);
+			throw(e);
+		}
+		return samplesPerChannelRead.get(0);
+	}
+
+	/**
+	 * @return The number of tasks currently configured.
+	 */
+	public synchronized int size() {
+		return tasks.size();
+	}
+
+	/**
+	 * Clears every cached task and releases the resources they reserved.
+	 */
+	public synchronized void clear() {
+		ArrayList<Pointer> released = new ArrayList<Pointer>(tasks.values());
+		tasks.clear();
+		for(Pointer task : released) {
+			release(task);
+		}
+	}
+
+	/*
+	 * Drops a task from the cache and clears it.
+	 */
+	private void remove(Pointer task) {
+		tasks.values().remove(task);
+		release(task);
+	}
+
+	/*
+	 * Clears the least recently used tasks until the cache is back within its maximum.
+	 */
+	private void evictLeastRecentlyUsed() {
+		Iterator<Map.Entry<String, Pointer>> eldest = tasks.entrySet().iterator();
+		while(tasks.size() > maxTasks) {
+			Pointer task = eldest.next().getValue();
+			eldest.remove();
+			release(task);
+		}
+	}
+
+	/*
+	 * Stops and clears a task, a task that fails to clear is already unusable so errors are only printed.
+	 */
+	private void release(Pointer task) {
+		try {
+			daq.stopTask(task);
+		} catch(NiDaqException e) {}
+		try {
+			daq.clearTask(task);
+		} catch(NiDaqException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -26,11 +26,18 @@ package kirkwood.nidaq.jna;
 import java.nio.ByteBuffer;
 import java.nio.DoubleBuffer;
 import java.nio.IntBuffer;
+import java.util.Collections;
 
+import com.sun.jna.Callback;
+import com.sun.jna.Function;
+import com.sun.jna.Library;
 import com.sun.jna.Native;
 import com.sun.jna.NativeLong;
+import com.sun.jna.Platform;
 import com.sun.jna.Pointer;
+import com.sun.jna.ptr.DoubleByReference;
 import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.LongByReference;
 import com.sun.jna.ptr.NativeLongByReference;
 import com.sun.jna.ptr.PointerByReference;
 import com.sun.jna.win32.StdCallLibrary;
@@ -42,7 +49,10 @@ import com.sun.jna.win32.StdCallLibrary;
  * For help, please visit <a href="http://nativelibs4java.googlecode.com/">NativeLibs4Java</a> , <a href="http://rococoa.dev.java.net/">Rococoa</a>, or <a href="http://jna.dev.java.net/">JNA</a>.
  */
 public interface Nicaiu extends StdCallLibrary {
-	Nicaiu INSTANCE = (Nicaiu) Native.loadLibrary("nicaiu", Nicaiu.class);
+	//stdcall only exists on Windows, anywhere else (such as the stub library in native) the library is plain C
+	Nicaiu INSTANCE = (Nicaiu) Native.loadLibrary("nicaiu", Nicaiu.class, Platform.isWindows()
+			? Collections.<String, Object>emptyMap()
+			: Collections.<String, Object>singletonMap(Library.OPTION_CALLING_CONVENTION, Function.C_CONVENTION));
 	
 	public static final int DAQmx_Val_GroupByChannel = (int)0;
 	public static final int DAQmx_Val_ChanPerLine = (int)0;
@@ -52,9 +62,14 @@ public interface Nicaiu extends StdCallLibrary {
 	public static final int DAQmx_Val_Amps = (int)10342;
 	public static final int DAQmx_Val_Default = (int)-1;
 	public static final int DAQmx_Val_Rising = (int)10280;
+	public static final int DAQmx_Val_Falling = (int)10171;
 	public static final int DAQmx_Val_FiniteSamps = (int)10178;
 	public static final int DAQmx_Val_ContSamps = (int)10123;
 	public static final int DAQmx_Val_OnDemand = (int)10390;
+	public static final int DAQmx_Val_GroupByScanNumber = (int)1;
+	public static final int DAQmx_Val_Acquired_Into_Buffer = (int)1; // Acquired Into Buffer
+	public static final int DAQmx_Val_Transferred_From_Buffer = (int)2; // Transferred From Buffer
+	public static final int DAQmx_Val_Task_Verify = (int)2; // Verify
 	// Added these from header file "NIDAQmx.h"  :
 	public static final int DAQmx_Val_Bit_TermCfg_RSE               =                          (1<<0); // RSE terminal configuration
 	public static final int DAQmx_Val_Bit_TermCfg_NRSE              =                          (1<<1); // NRSE terminal configuration
@@ -124,7 +139,13 @@ public interface Nicaiu extends StdCallLibrary {
 	 * <i>native declaration : line 2547</i>
 	 */
 	int DAQmxCfgSampClkTiming(Pointer taskHandle, byte source[], double rate, int activeEdge, int sampleMode, long sampsPerChan);
-	
+
+	/**
+	 * (Triggering)<br>
+	 * Original signature : <code>int32 DAQmxCfgDigEdgeStartTrig(TaskHandle taskHandle, const char triggerSource[], int32 triggerEdge)</code><br>
+	 */
+	int DAQmxCfgDigEdgeStartTrig(Pointer taskHandle, byte triggerSource[], int triggerEdge);
+
 	/**
 	 * Original signature : <code>int32 DAQmxCreateAICurrentChan(TaskHandle, const char[], const char[], int32, float64, float64, int32, int32, float64, const char[])</code><br>
 	 * <i>native declaration : line 2444</i>
@@ -137,6 +158,12 @@ public interface Nicaiu extends StdCallLibrary {
 	 * <i>native declaration : line 2601</i>
 	 */
 	int DAQmxReadAnalogF64(Pointer taskHandle, int numSampsPerChan, double timeout, NativeLong fillMode, DoubleBuffer readArray, NativeLong arraySizeInSamps, IntBuffer sampsPerChanRead, NativeLongByReference reserved);
+
+	/**
+	 * Original signature : <code>int32 DAQmxReadAnalogF64(TaskHandle, int32, float64, bool32, float64[], uInt32, int32*, bool32*)</code><br>
+	 * Reads straight into native memory, so JNA does not copy the array in and out on every call.
+	 */
+	int DAQmxReadAnalogF64(Pointer taskHandle, int numSampsPerChan, double timeout, NativeLong fillMode, Pointer readArray, NativeLong arraySizeInSamps, Pointer sampsPerChanRead, Pointer reserved);
 	
 	/**
 	 * Original signature : <code>int32 DAQmxStopTask(TaskHandle)</code><br>
@@ -156,6 +183,11 @@ public interface Nicaiu extends StdCallLibrary {
 	 * <i>native declaration : line 2417</i>
 	 */
 	int DAQmxClearTask(Pointer taskHandle);
+
+	/**
+	 * Original signature : <code>int32 DAQmxTaskControl(TaskHandle taskHandle, int32 action)</code><br>
+	 */
+	int DAQmxTaskControl(Pointer taskHandle, int action);
 	
 	/**
 	 * Original signature : <code>int32 DAQmxResetDevice(const char[])</code><br>
@@ -182,6 +214,57 @@ public interface Nicaiu extends StdCallLibrary {
 	 */
 	int DAQmxReadDigitalLines(Pointer taskHandle, int numSampsPerChan, double timeout, NativeLong fillMode, ByteBuffer readArray, NativeLong arraySizeInBytes, IntBuffer sampsPerChanRead, IntBuffer numBytesPerSamp, NativeLongByReference reserved);
 
+	/**
+	 * *** Set/Get functions for DAQmx_Dev_AI_MaxSingleChanRate ***<br>
+	 * Original signature : <code>int32 DAQmxGetDevAIMaxSingleChanRate(const char device[], float64 *data)</code><br>
+	 */
+	int DAQmxGetDevAIMaxSingleChanRate(byte device[], DoubleByReference data);
+
+	/**
+	 * *** Set/Get functions for DAQmx_Dev_AI_MaxMultiChanRate ***<br>
+	 * Original signature : <code>int32 DAQmxGetDevAIMaxMultiChanRate(const char device[], float64 *data)</code><br>
+	 */
+	int DAQmxGetDevAIMaxMultiChanRate(byte device[], DoubleByReference data);
+
+	/**
+	 * *** Set/Get functions for DAQmx_Read_AvailSampPerChan ***<br>
+	 * Original signature : <code>int32 DAQmxGetReadAvailSampPerChan(TaskHandle taskHandle, uInt32 *data)</code><br>
+	 */
+	int DAQmxGetReadAvailSampPerChan(Pointer taskHandle, IntByReference data);
+
+	/**
+	 * *** Set/Get functions for DAQmx_Read_TotalSampPerChanAcquired ***<br>
+	 * Original signature : <code>int32 DAQmxGetReadTotalSampPerChanAcquired(TaskHandle taskHandle, uInt64 *data)</code><br>
+	 */
+	int DAQmxGetReadTotalSampPerChanAcquired(Pointer taskHandle, LongByReference data);
+
+	/**
+	 * Original signature : <code>typedef int32 (CVICALLBACK *DAQmxEveryNSamplesEventCallbackPtr)(TaskHandle taskHandle, int32 everyNsamplesEventType, uInt32 nSamples, void *callbackData)</code><br>
+	 * CVICALLBACK is __cdecl, so this extends Callback rather than StdCallCallback.
+	 */
+	interface DAQmxEveryNSamplesEventCallbackPtr extends Callback {
+		int invoke(Pointer taskHandle, int everyNsamplesEventType, int nSamples, Pointer callbackData);
+	}
+
+	/**
+	 * Original signature : <code>typedef int32 (CVICALLBACK *DAQmxDoneEventCallbackPtr)(TaskHandle taskHandle, int32 status, void *callbackData)</code><br>
+	 */
+	interface DAQmxDoneEventCallbackPtr extends Callback {
+		int invoke(Pointer taskHandle, int status, Pointer callbackData);
+	}
+
+	/**
+	 * Original signature : <code>int32 DAQmxRegisterEveryNSamplesEvent(TaskHandle task, int32 everyNsamplesEventType, uInt32 nSamples, uInt32 options, DAQmxEveryNSamplesEventCallbackPtr callbackFunction, void *callbackData)</code><br>
+	 * <i>native declaration : line 2425</i>
+	 */
+	int DAQmxRegisterEveryNSamplesEvent(Pointer task, int everyNsamplesEventType, int nSamples, int options, DAQmxEveryNSamplesEventCallbackPtr callbackFunction, Pointer callbackData);
+
+	/**
+	 * Original signature : <code>int32 DAQmxRegisterDoneEvent(TaskHandle task, uInt32 options, DAQmxDoneEventCallbackPtr callbackFunction, void *callbackData)</code><br>
+	 * <i>native declaration : line 2427</i>
+	 */
+	int DAQmxRegisterDoneEvent(Pointer task, int options, DAQmxDoneEventCallbackPtr callbackFunction, Pointer callbackData);
+
 	
 
 }
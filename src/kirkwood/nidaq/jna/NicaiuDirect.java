@@ -0,0 +1,77 @@
+package kirkwood.nidaq.jna;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.sun.jna.Library;
+import com.sun.jna.Native;
+import com.sun.jna.NativeLibrary;
+import com.sun.jna.Platform;
+import com.sun.jna.Pointer;
+import com.sun.jna.win32.StdCallLibrary;
+
+/**
+ * Direct mapped bindings for the NI-DAQmx functions called on every block of a running task.
+ *
+ * Calls through the Nicaiu interface go through a JNA proxy, which looks the method up, boxes the
+ * arguments into an Object array and converts each one by reflection. The static native methods here
+ * are bound straight to the library when this class is loaded and JNA marshals their primitive and
+ * Pointer arguments without any of that, which makes each call several times cheaper.
+ *
+ * Only primitives and Pointers are used so every method stays on the fast path. Results that the C API
+ * returns through a pointer are written to native memory supplied by the caller, which can be reused.
+ * Everything else (setup, callbacks, strings) still goes through Nicaiu.
+ *
+ * If the library cannot be bound this way AVAILABLE is false and the natives must not be called.
+ */
+public final class NicaiuDirect {
+
+	/**
+	 * True once the natives below have been bound to the library.
+	 */
+	public static final boolean AVAILABLE;
+
+	static {
+		boolean registered = false;
+		try {
+			Map<String, Object> options = new HashMap<String, Object>();
+			if(Platform.isWindows()) {
+				//the same conventions as Nicaiu, stdcall on Windows and plain C anywhere else
+				options.put(Library.OPTION_CALLING_CONVENTION, StdCallLibrary.STDCALL_CONVENTION);
+			}
+			Native.register(NicaiuDirect.class, NativeLibrary.getInstance("nicaiu", options));
+			registered = true;
+		} catch(UnsatisfiedLinkError | IllegalArgumentException e) {
+			System.err.println("NicaiuDirect: could not bind directly to nicaiu, falling back to the proxy interface. " + e.getMessage());
+		}
+		AVAILABLE = registered;
+	}
+
+	private NicaiuDirect() {}
+
+	/**
+	 * Original signature : <code>int32 DAQmxStartTask(TaskHandle)</code>
+	 */
+	public static native int DAQmxStartTask(Pointer taskHandle);
+
+	/**
+	 * Original signature : <code>int32 DAQmxStopTask(TaskHandle)</code>
+	 */
+	public static native int DAQmxStopTask(Pointer taskHandle);
+
+	/**
+	 * Original signature : <code>int32 DAQmxReadAnalogF64(TaskHandle, int32, float64, bool32, float64[], uInt32, int32*, bool32*)</code><br>
+	 * bool32 and uInt32 are both 32 bits wide on every platform, so they are passed as plain ints. Pass null for reserved.
+	 */
+	public static native int DAQmxReadAnalogF64(Pointer taskHandle, int numSampsPerChan, double timeout, int fillMode, Pointer readArray, int arraySizeInSamps, Pointer sampsPerChanRead, Pointer reserved);
+
+	/**
+	 * Original signature : <code>int32 DAQmxGetReadAvailSampPerChan(TaskHandle taskHandle, uInt32 *data)</code>
+	 */
+	public static native int DAQmxGetReadAvailSampPerChan(Pointer taskHandle, Pointer data);
+
+	/**
+	 * Original signature : <code>int32 DAQmxGetReadTotalSampPerChanAcquired(TaskHandle taskHandle, uInt64 *data)</code>
+	 */
+	public static native int DAQmxGetReadTotalSampPerChanAcquired(Pointer taskHandle, Pointer data);
+}
@@ -4,35 +4,57 @@ import com.sun.jna.Pointer;
 import kirkwood.nidaq.access.NiDaq;
 import kirkwood.nidaq.access.NiDaqException;
 import kirkwood.nidaq.jna.Nicaiu;
-import java.nio.DoubleBuffer;
-import java.nio.IntBuffer;
+import com.sun.jna.Memory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class encapsulates the NIDaq Library found here:
  * https://github.com/davekirkwood/JNI-for-NI-Drivers/tree/master/src/kirkwood/nidaq
  */
-public class AITask {
-    // describes specific mode the channel is in
-    public enum Mode {
-        DIFFERENTIAL, RSE, DEFAULT
-    }
-
-    public static final int SAMPLES_PER_SECOND = 100;
-    public static final int UPDATES_PER_SECOND = 5;
-    public static final int INPUT_BUFFER_SIZE = SAMPLES_PER_SECOND/UPDATES_PER_SECOND;
-    public static final int FORCE_CHANNEL = 0;
-    public static final int LENGTH_CHANNEL = 1;
+public class AITask implements SampleSource {
+    public static final String DEFAULT_DEVICE = "Dev1";
+    public static final int DEFAULT_SAMPLES_PER_SECOND = 100;
+    public static final int UPDATES_PER_SECOND = 5; //blocks read per second, whatever the sample rate
+    public static final int BUFFER_SECONDS = 10; //seconds of samples the device buffer holds before it overruns
+    public static final int MAX_BLOCKS_PER_READ = 4; //how many blocks one read may catch up by when the device buffer backs up
+    public static final int ERROR_SAMPLES_OVERWRITTEN = -200279; //DAQmxErrorSamplesNoLongerAvailable
 
+    private final String deviceName;
     private int channels;
+    private double sampleRate = DEFAULT_SAMPLES_PER_SECOND;
+    private int samplesPerBlock;
     private NiDaq daq ;
-    private Pointer aiTask;
-    private int[] read;
-    private double [][] data;
-    private DoubleBuffer inputBuffer;
-    private IntBuffer samplesPerChannelRead;
+    private volatile Pointer aiTask; //replaced by reconnect while driver callbacks may still be reading it
+    private final List<Integer> channelNumbers = new ArrayList<>(); //kept so the task can be rebuilt by reconnect
+    private final List<Mode> channelModes = new ArrayList<>();
+    private long bufferSize;
+    private Memory samplesPerChannelRead; //native int32 the driver writes the read count into
+    private SampleBlock data; //block used by collectData
     private boolean readyToRun;
+    private String startTrigger; //terminal the start trigger is wired to, null to start in software
+    private boolean startTriggerRising = true;
+    private boolean startTriggerArmed = true; //false while the task has been rebuilt to run without its start trigger
+    private long samplesRead; //samples per channel read since the task was last started
+    private long startIndex; //sample index of the first sample after the task was last started
+    private volatile long backlog;
+    private volatile double readLatency;
+    private long lastReadTime; //System.nanoTime of the last successful read or start
+    private final AtomicLong overruns = new AtomicLong(0);
+    //held here so the driver callbacks are not garbage collected while registered
+    private Nicaiu.DAQmxEveryNSamplesEventCallbackPtr everyNSamplesCallback;
+    private Nicaiu.DAQmxDoneEventCallbackPtr doneCallback;
 
     public AITask(){
+        this(DEFAULT_DEVICE);
+    }
+
+    /**
+     * @param deviceName the name NI MAX gives the device, such as Dev1
+     */
+    public AITask(String deviceName){
+        this.deviceName = deviceName;
         try {
             daq = new NiDaq();
             aiTask = daq.createTask("AITask\0");
@@ -42,7 +64,24 @@ public class AITask {
         }
     }
 
+    @Override
+    public void start(){
+        try {
+            startIndex += samplesRead;
+            samplesRead = 0;
+            lastReadTime = System.nanoTime();
+            daq.startTask(aiTask);
+        } catch (NiDaqException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
     public void pause(){
+        //a closed task has nothing to stop
+        if(aiTask == null){
+            return;
+        }
         try {
             daq.stopTask(aiTask);
         } catch (NiDaqException e) {
@@ -55,20 +94,12 @@ public class AITask {
      * @param channelNumber the port that the National Instruments Chip will read from
      * @param channelMode the mode that the National Instruments Chip reads in (see the chip manual for more information)
      */
+    @Override
     public void createAIChannel(int channelNumber, Mode channelMode) throws NiDaqException{
         if(!readyToRun) {
-            String channelName = "Dev1/ai" + channelNumber + "\0";
-
-            switch (channelMode) {
-                case DIFFERENTIAL:
-                    daq.createAIVoltageChannel(aiTask, channelName, "\0", Nicaiu.DAQmx_Val_Diff, -10.0, 10.0, Nicaiu.DAQmx_Val_Volts, null);
-                    break;
-                case RSE:
-                    daq.createAIVoltageChannel(aiTask, channelName, "\0", Nicaiu.DAQmx_Val_RSE, -10.0, 10.0, Nicaiu.DAQmx_Val_Volts, null);
-                    break;
-                default:
-                    daq.createAIVoltageChannel(aiTask, channelName, "\0", Nicaiu.DAQmx_Val_Default, -10.0, 10.0, Nicaiu.DAQmx_Val_Volts, null);
-            }
+            addChannel(aiTask, channelNumber, channelMode);
+            channelNumbers.add(channelNumber);
+            channelModes.add(channelMode);
             channels++;
 
         }else{
@@ -76,18 +107,130 @@ public class AITask {
         }
     }
 
+    /*
+     * Creates one voltage channel on the given task
+     */
+    private void addChannel(Pointer task, int channelNumber, Mode channelMode) throws NiDaqException {
+        String channelName = deviceName + "/ai" + channelNumber + "\0";
+
+        switch (channelMode) {
+            case DIFFERENTIAL:
+                daq.createAIVoltageChannel(task, channelName, "\0", Nicaiu.DAQmx_Val_Diff, -10.0, 10.0, Nicaiu.DAQmx_Val_Volts, null);
+                break;
+            case RSE:
+                daq.createAIVoltageChannel(task, channelName, "\0", Nicaiu.DAQmx_Val_RSE, -10.0, 10.0, Nicaiu.DAQmx_Val_Volts, null);
+                break;
+            default:
+                daq.createAIVoltageChannel(task, channelName, "\0", Nicaiu.DAQmx_Val_Default, -10.0, 10.0, Nicaiu.DAQmx_Val_Volts, null);
+        }
+    }
+
+    /**
+     * Sets the hardware sample rate, must be called before readyToRun
+     * @param samplesPerSecond samples per second per channel
+     */
+    @Override
+    public void setSampleRate(double samplesPerSecond){
+        if(readyToRun) {
+            System.err.println("AITask: Ready to run function already called.");
+        }else{
+            sampleRate = samplesPerSecond;
+        }
+    }
+
+    @Override
+    public double getSampleRate(){
+        return sampleRate;
+    }
+
+    @Override
+    public int getSamplesPerBlock(){
+        return samplesPerBlock;
+    }
+
+    /**
+     * Asks the device for the fastest rate it can sample every channel created so far
+     * @return the maximum samples per second per channel
+     * @throws NiDaqException if the device could not be queried
+     */
+    public double getMaxSampleRate() throws NiDaqException{
+        String device = deviceName + "\0";
+        if(channels <= 1){
+            return daq.getDevAIMaxSingleChanRate(device);
+        }
+        return daq.getDevAIMaxMultiChanRate(device) / channels;
+    }
+
+    /**
+     * Makes the task wait for a digital edge before taking its first sample, so a test is started by the
+     * load frame's own output instead of by the Start button. Must be called before readyToRun
+     * @param terminal the terminal the trigger is wired to, such as PFI0 or /Dev1/PFI0, or null to start when the task starts
+     * @param risingEdge true to start on a rising edge, false for a falling edge
+     */
+    @Override
+    public void setStartTrigger(String terminal, boolean risingEdge){
+        if(readyToRun) {
+            System.err.println("AITask: Ready to run function already called.");
+        }else{
+            //terminals without a device belong to this task's device
+            startTrigger = terminal == null || terminal.startsWith("/") ? terminal : "/" + deviceName + "/" + terminal;
+            startTriggerRising = risingEdge;
+        }
+    }
+
+    /**
+     * Rebuilds the task with or without its start trigger, so the channels can be zeroed from samples taken before
+     * the test starts and the trigger armed afterwards. Must be called while the task is stopped.
+     * Does nothing if no start trigger was set or the trigger is already in that state
+     * @param armed true to wait for the edge on the next start, false to start sampling straight away
+     * @throws NiDaqException if the new task could not be built, the old one is kept
+     */
+    @Override
+    public synchronized void setStartTriggerArmed(boolean armed) throws NiDaqException{
+        if(!readyToRun){
+            throw new IllegalStateException("AITask: Ready to run not called yet.");
+        }
+        if(startTrigger == null || armed == startTriggerArmed){
+            return;
+        }
+        Pointer task = buildTask(armed);
+        Pointer oldTask = aiTask;
+        aiTask = task;
+        startTriggerArmed = armed;
+        if(oldTask != null){
+            try {
+                daq.clearTask(oldTask);
+            } catch (NiDaqException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
     /**
      * Should be called before starting to try and pull data and after creating Analog Input Channels
-     * Sets everything up to be ready to run
+     * Sets everything up to be ready to run.
+     * Blocks and the device buffer are sized from the sample rate, the rate is lowered to the device maximum if needed
      */
+    @Override
     public void readyToRun(){
         try {
-            daq.cfgSampClkTiming(aiTask, "\0", SAMPLES_PER_SECOND, Nicaiu.DAQmx_Val_Rising, Nicaiu.DAQmx_Val_ContSamps, channels * INPUT_BUFFER_SIZE);
-            read = new int[] {0};
-            double[] buffer = new double[channels * INPUT_BUFFER_SIZE];
-            inputBuffer = DoubleBuffer.wrap(buffer);
-            samplesPerChannelRead = IntBuffer.wrap(read);
-            data = new double[channels][INPUT_BUFFER_SIZE];
+            try {
+                double maxRate = getMaxSampleRate();
+                if(sampleRate > maxRate){
+                    System.err.println("AITask: " + sampleRate + " S/s is faster than " + deviceName + " allows, using " + maxRate + " S/s.");
+                    sampleRate = maxRate;
+                }
+            } catch (NiDaqException e) {
+                //older devices may not report a maximum, let the timing call reject a bad rate instead
+            }
+            samplesPerBlock = Math.max(1, (int) Math.round(sampleRate / UPDATES_PER_SECOND));
+            bufferSize = Math.max(2L * samplesPerBlock, (long) Math.ceil(sampleRate * BUFFER_SECONDS));
+            daq.cfgSampClkTiming(aiTask, "\0", sampleRate, Nicaiu.DAQmx_Val_Rising, Nicaiu.DAQmx_Val_ContSamps, bufferSize);
+            if(startTrigger != null){
+                daq.cfgDigEdgeStartTrig(aiTask, startTrigger + "\0", startTriggerRising ? Nicaiu.DAQmx_Val_Rising : Nicaiu.DAQmx_Val_Falling);
+            }
+            samplesPerChannelRead = new Memory(Integer.BYTES);
+            data = new SampleBlock(channels, getBlockCapacity());
             readyToRun = true;
         } catch (NiDaqException e) {
             e.printStackTrace();
@@ -98,37 +241,264 @@ public class AITask {
      * Called to update stored data.
      * Should be called before trying to display data
      */
+    @Override
     public void collectData(){
         if(readyToRun) {
             try {
-                daq.readAnalogF64(aiTask, INPUT_BUFFER_SIZE, -1, -1, inputBuffer, channels * INPUT_BUFFER_SIZE, samplesPerChannelRead);
+                readBlock(data);
             } catch (NiDaqException e) {
                 e.printStackTrace();
             }
-
-            for (int i = 0; i < read[0]; i++) {
-                for (int j = 0; j < channels; j++) {
-                    data[j][i] = inputBuffer.get();
-                }
-            }
-            inputBuffer.clear();
         }else{
             System.err.println("AITask: Ready to run not called yet.");
         }
     }
 
+    /**
+     * Blocks until the hardware sample clock has produced a full block of samples per channel.
+     * The driver writes them straight into the native memory of the given block, grouped by channel.
+     * If more than a block is already waiting in the device buffer, whole blocks are read together
+     * (up to MAX_BLOCKS_PER_READ) so the reads catch up before the buffer overruns.
+     * @param block the block to fill, must have room for every channel and getBlockCapacity samples
+     * @throws NiDaqException if the driver reports an error while reading
+     */
+    @Override
+    public synchronized void readBlock(SampleBlock block) throws NiDaqException{
+        if(!readyToRun){
+            throw new IllegalStateException("AITask: Ready to run not called yet.");
+        }
+        if(block.getChannels() != channels || block.getCapacity() < getBlockCapacity()){
+            throw new IllegalArgumentException("AITask: block does not match the task size");
+        }
+        if(aiTask == null){
+            //closed while the acquisition thread was still finishing its last read
+            block.setSamplesPerChannel(0);
+            return;
+        }
+        try {
+            long available = daq.getReadAvailSampPerChan(aiTask);
+            int request = samplesPerBlock;
+            if(available >= 2L * samplesPerBlock){
+                request = (int) Math.min(getBlockCapacity(), available - available % samplesPerBlock);
+            }
+            block.setSamplesPerChannel(request);
+            daq.readAnalogF64(aiTask, request, -1, Nicaiu.DAQmx_Val_GroupByChannel, block.getPointer(), channels * request, samplesPerChannelRead);
+            block.setSamplesPerChannel(samplesPerChannelRead.getInt(0));
+            block.setFirstSampleIndex(startIndex + samplesRead);
+            samplesRead += block.getSamplesPerChannel();
+            lastReadTime = System.nanoTime();
+
+            //everything acquired but not read yet is still in the buffer, the newest sample read is that many samples old
+            backlog = Math.max(0, daq.getReadTotalSampPerChanAcquired(aiTask) - samplesRead);
+            readLatency = backlog / sampleRate;
+        } catch (NiDaqException e) {
+            block.setSamplesPerChannel(0);
+            if(e.getErrorCode() == ERROR_SAMPLES_OVERWRITTEN){
+                //the buffer wrapped before it was read, restart so the next read gets fresh samples
+                overruns.incrementAndGet();
+                daq.stopTask(aiTask);
+                //count the samples that were lost so later indices stay on the sample clock
+                startIndex += Math.max(samplesRead, daq.getReadTotalSampPerChanAcquired(aiTask));
+                samplesRead = 0;
+                daq.startTask(aiTask);
+            }
+            throw e;
+        }
+    }
+
     /**
      * Gets the data for the specified channel number
      * @param channelNumber channel number of the data you would like
-     * @return a double array of data from the channel given
+     * @return the average of the last block collected for the channel given
      */
+    @Override
     public double getChannelData(int channelNumber){
-        double cleanedData = 0.0;
-        for(int j = 0; j < INPUT_BUFFER_SIZE; j++){
-            cleanedData += data[channelNumber][j];
+        return data.getChannelMean(channelNumber);
+    }
+
+    /**
+     * Gets every sample of the last block collected for the specified channel number
+     * @param channelNumber channel number of the data you would like
+     * @return a copy of the samples of the channel, oldest first
+     */
+    @Override
+    public double[] getRawChannelData(int channelNumber){
+        double[] samples = new double[data.getSamplesPerChannel()];
+        data.copyChannel(channelNumber, samples, 0);
+        return samples;
+    }
+
+    @Override
+    public boolean supportsBlockEvents(){
+        return true;
+    }
+
+    /**
+     * Registers DAQmx Every N Samples and Done events so the driver pushes each block
+     * to the listener the moment it lands in the device buffer
+     * @param listener the listener to call from the driver thread
+     * @throws NiDaqException if the driver could not register the events
+     */
+    @Override
+    public void setBlockListener(BlockListener listener) throws NiDaqException{
+        if(!readyToRun){
+            throw new IllegalStateException("AITask: Ready to run not called yet.");
+        }
+        everyNSamplesCallback = (taskHandle, eventType, samples, callbackData) -> {
+            listener.blockReady(this);
+            return 0;
+        };
+        doneCallback = (taskHandle, status, callbackData) -> {
+            listener.sourceDone(status);
+            return 0;
+        };
+        registerEvents(aiTask);
+    }
+
+    /*
+     * Registers the listener's callbacks on the given task, if a listener has been set
+     */
+    private void registerEvents(Pointer task) throws NiDaqException {
+        if(everyNSamplesCallback != null){
+            daq.registerEveryNSamplesEvent(task, Nicaiu.DAQmx_Val_Acquired_Into_Buffer, samplesPerBlock, 0, everyNSamplesCallback, null);
+            daq.registerDoneEvent(task, 0, doneCallback, null);
+        }
+    }
+
+    @Override
+    public boolean supportsReconnect(){
+        return true;
+    }
+
+    /**
+     * Creates the task again on the same device with the same channels, rate and events, starts it, and only then
+     * clears the old one. The hardware start trigger is left off, the test it started is already running and the
+     * edge will not come again. The samples lost are estimated from the backlog at the last read plus the sample
+     * clock time since it, and the sample indices skip over them.
+     * @throws NiDaqException if the device could not be set up again, the old task is kept (stopped) so it can be retried
+     */
+    @Override
+    public synchronized void reconnect() throws NiDaqException{
+        if(!readyToRun){
+            throw new IllegalStateException("AITask: Ready to run not called yet.");
+        }
+        Pointer oldTask = aiTask;
+        if(oldTask != null){
+            try {
+                daq.stopTask(oldTask);
+            } catch (NiDaqException e) {
+                //a lost device cannot be stopped, a stopped task no longer holds the device either way
+            }
         }
-        cleanedData /= INPUT_BUFFER_SIZE;
 
-        return cleanedData;
+        Pointer task = buildTask(false);
+        try {
+            daq.startTask(task);
+        } catch (NiDaqException e) {
+            try {
+                daq.clearTask(task);
+            } catch (NiDaqException e2) {}
+            throw e;
+        }
+        if(oldTask != null){
+            try {
+                daq.clearTask(oldTask);
+            } catch (NiDaqException e) {
+                //already gone with the device
+            }
+        }
+
+        long lostSamples = backlog + Math.round((System.nanoTime() - lastReadTime) / 1e9 * sampleRate);
+        startIndex += samplesRead + lostSamples;
+        samplesRead = 0;
+        backlog = 0;
+        readLatency = 0;
+        lastReadTime = System.nanoTime();
+        aiTask = task;
+        startTriggerArmed = false;
+    }
+
+    /*
+     * Creates a new task on the device with this task's channels, rate and events, and the start trigger if asked for.
+     * The task is not started, and is cleared again if any step fails
+     */
+    private Pointer buildTask(boolean triggered) throws NiDaqException {
+        Pointer task = daq.createTask("AITask\0");
+        try {
+            for(int i = 0; i < channelNumbers.size(); i++){
+                addChannel(task, channelNumbers.get(i), channelModes.get(i));
+            }
+            daq.cfgSampClkTiming(task, "\0", sampleRate, Nicaiu.DAQmx_Val_Rising, Nicaiu.DAQmx_Val_ContSamps, bufferSize);
+            if(triggered && startTrigger != null){
+                daq.cfgDigEdgeStartTrig(task, startTrigger + "\0", startTriggerRising ? Nicaiu.DAQmx_Val_Rising : Nicaiu.DAQmx_Val_Falling);
+            }
+            registerEvents(task);
+        } catch (NiDaqException e) {
+            try {
+                daq.clearTask(task);
+            } catch (NiDaqException e2) {}
+            throw e;
+        }
+        return task;
+    }
+
+    /**
+     * Stops and clears the task, releasing the device so a task with new settings can be built on it
+     */
+    @Override
+    public synchronized void close(){
+        if(aiTask == null){
+            return;
+        }
+        try {
+            daq.stopTask(aiTask);
+        } catch (NiDaqException e) {
+            //a lost device cannot be stopped, clearing still frees the handle
+        }
+        try {
+            daq.clearTask(aiTask);
+        } catch (NiDaqException e) {
+            e.printStackTrace();
+        }
+        aiTask = null;
+    }
+
+    @Override
+    public int getBlockCapacity(){
+        return samplesPerBlock * MAX_BLOCKS_PER_READ;
+    }
+
+    /**
+     * Queries the driver for the samples waiting in the device buffer
+     * @return samples per channel that can be read without waiting, or one block if the driver could not be asked
+     */
+    @Override
+    public long getAvailableSamples(){
+        try {
+            return daq.getReadAvailSampPerChan(aiTask);
+        } catch (NiDaqException e) {
+            //let the read itself report the error
+            return samplesPerBlock;
+        }
+    }
+
+    @Override
+    public long getBacklog(){
+        return backlog;
+    }
+
+    @Override
+    public double getReadLatency(){
+        return readLatency;
+    }
+
+    @Override
+    public long getOverruns(){
+        return overruns.get();
+    }
+
+    @Override
+    public int getChannels(){
+        return channels;
     }
 }
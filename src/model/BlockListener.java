@@ -0,0 +1,20 @@
+package model;
+
+/**
+ * Receives events pushed by a SampleSource that supports event driven reads.
+ * Both methods are called on a thread owned by the driver, so they should hand work off quickly.
+ */
+public interface BlockListener {
+    /**
+     * Called as soon as a full block of samples per channel is ready,
+     * so a call to readBlock will return without waiting
+     * @param source the source that has the block ready
+     */
+    void blockReady(SampleSource source);
+
+    /**
+     * Called when the source stops on its own, usually because of an error
+     * @param status the error code that stopped the source, or 0 if it finished normally
+     */
+    void sourceDone(int status);
+}
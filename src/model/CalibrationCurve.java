@@ -0,0 +1,60 @@
+package model;
+
+/**
+ * Converts a channel's voltage to its units. Saved in the settings as one token with no commas or whitespace:
+ * a plain number of units per volt, poly:c0:c1:c2... for c0 + c1 v + c2 v^2 ..., or table:v/u:v/u... for
+ * straight lines between calibration points, in increasing volts
+ */
+public interface CalibrationCurve {
+
+    /**
+     * @param volts voltage read from the channel
+     * @return the voltage in the channel's units
+     */
+    double toUnits(double volts);
+
+    /**
+     * @param unitsPerVolt multiplier that converts volts to units
+     * @return a straight line through zero
+     */
+    static CalibrationCurve linear(double unitsPerVolt){
+        return new PolynomialCalibration(0.0, unitsPerVolt);
+    }
+
+    /**
+     * Reads a curve written by toString
+     * @param text a number, poly:c0:c1... or table:volts/units:volts/units...
+     * @return the curve described
+     * @throws IllegalArgumentException if the text is not a valid curve
+     */
+    static CalibrationCurve parse(String text){
+        String[] fields = text.trim().split(":");
+        try {
+            if(fields.length == 1){
+                return linear(Double.parseDouble(fields[0]));
+            }
+            double[] first = new double[fields.length - 1];
+            double[] second = new double[fields.length - 1];
+            for(int i = 1; i < fields.length; i++){
+                if(fields[0].equals(PolynomialCalibration.NAME)){
+                    first[i - 1] = Double.parseDouble(fields[i]);
+                }else{
+                    String[] point = fields[i].split("/");
+                    if(point.length != 2){
+                        throw new IllegalArgumentException("Expected volts/units but got: " + fields[i]);
+                    }
+                    first[i - 1] = Double.parseDouble(point[0]);
+                    second[i - 1] = Double.parseDouble(point[1]);
+                }
+            }
+            if(fields[0].equals(PolynomialCalibration.NAME)){
+                return new PolynomialCalibration(first);
+            }else if(fields[0].equals(PiecewiseLinearCalibration.NAME)){
+                return new PiecewiseLinearCalibration(first, second);
+            }
+        } catch (NumberFormatException e){
+            throw new IllegalArgumentException("Badly formatted number in calibration: " + text, e);
+        }
+        throw new IllegalArgumentException("Unknown calibration: " + text);
+    }
+}
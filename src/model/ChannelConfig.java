@@ -0,0 +1,139 @@
+package model;
+
+/**
+ * Describes one named analog input channel: where it is wired, how it is read,
+ * how its voltage converts to units and how much it is smoothed for display.
+ * Saved in the settings file as one comma separated token, name,channel,mode,calibration,filterWindow,filter
+ * where the calibration is a units per volt constant or any other curve CalibrationCurve can read
+ */
+public class ChannelConfig {
+    public static final String FORCE = "Force";
+    public static final String ELONGATION = "Elongation";
+    public static final String NO_FILTER = "None";
+
+    private final String name;
+    private final int channel;
+    private final SampleSource.Mode mode;
+    private final CalibrationCurve calibration;
+    private final int filterWindow;
+    private final String filter;
+
+    /**
+     * @param name name shown to the user, cannot contain commas or whitespace
+     * @param channel physical channel number on the device
+     * @param mode terminal configuration of the channel
+     * @param unitsPerVolt multiplier that converts volts to the channel's units
+     * @param filterWindow number of displayed points averaged together, 0 for none
+     */
+    public ChannelConfig(String name, int channel, SampleSource.Mode mode, double unitsPerVolt, int filterWindow){
+        this(name, channel, mode, unitsPerVolt, filterWindow, NO_FILTER);
+    }
+
+    /**
+     * @param name name shown to the user, cannot contain commas or whitespace
+     * @param channel physical channel number on the device
+     * @param mode terminal configuration of the channel
+     * @param unitsPerVolt multiplier that converts volts to the channel's units
+     * @param filterWindow number of displayed points averaged together, 0 for none
+     * @param filter filter chain run on the raw samples as written in the settings, None to average over the filter window instead
+     */
+    public ChannelConfig(String name, int channel, SampleSource.Mode mode, double unitsPerVolt, int filterWindow, String filter){
+        this(name, channel, mode, CalibrationCurve.linear(unitsPerVolt), filterWindow, filter);
+    }
+
+    /**
+     * @param name name shown to the user, cannot contain commas or whitespace
+     * @param channel physical channel number on the device
+     * @param mode terminal configuration of the channel
+     * @param calibration curve that converts volts to the channel's units
+     * @param filterWindow number of displayed points averaged together, 0 for none
+     * @param filter filter chain run on the raw samples as written in the settings, None to average over the filter window instead
+     */
+    public ChannelConfig(String name, int channel, SampleSource.Mode mode, CalibrationCurve calibration, int filterWindow, String filter){
+        if(name.isEmpty() || name.matches(".*[,\\s].*")){
+            throw new IllegalArgumentException("Channel name cannot be empty or contain commas or spaces: " + name);
+        }
+        if(channel < 0){
+            throw new IllegalArgumentException("Channel number cannot be negative: " + channel);
+        }
+        if(filterWindow < 0){
+            throw new IllegalArgumentException("Filter window cannot be negative: " + filterWindow);
+        }
+        if(filter.isEmpty() || filter.matches(".*[,\\s].*")){
+            throw new IllegalArgumentException("Filter cannot be empty or contain commas or spaces: " + filter);
+        }
+        this.name = name;
+        this.channel = channel;
+        this.mode = mode;
+        this.calibration = calibration;
+        this.filterWindow = filterWindow;
+        this.filter = filter;
+    }
+
+    /**
+     * Reads a channel written by toString
+     * @param text name,channel,mode,calibration and an optional filterWindow and filter
+     * @return the channel described
+     * @throws IllegalArgumentException if the text is not a valid channel
+     */
+    public static ChannelConfig parse(String text){
+        String[] fields = text.trim().split(",");
+        if(fields.length < 4 || fields.length > 6){
+            throw new IllegalArgumentException("Expected name,channel,mode,calibration[,filterWindow[,filter]] but got: " + text);
+        }
+        try {
+            int filterWindow = fields.length >= 5 ? Integer.parseInt(fields[4].trim()) : 0;
+            String filter = fields.length == 6 ? fields[5].trim() : NO_FILTER;
+            return new ChannelConfig(fields[0].trim(), Integer.parseInt(fields[1].trim()), parseMode(fields[2].trim()),
+                    CalibrationCurve.parse(fields[3]), filterWindow, filter);
+        } catch (NumberFormatException e){
+            throw new IllegalArgumentException("Badly formatted number in channel: " + text, e);
+        }
+    }
+
+    /*
+     * Accepts the names used on the settings window as well as the enum names
+     */
+    private static SampleSource.Mode parseMode(String mode){
+        if(mode.equalsIgnoreCase("RSE")){
+            return SampleSource.Mode.RSE;
+        }else if(mode.equalsIgnoreCase("Differential")){
+            return SampleSource.Mode.DIFFERENTIAL;
+        }else if(mode.equalsIgnoreCase("Default")){
+            return SampleSource.Mode.DEFAULT;
+        }
+        throw new IllegalArgumentException("Unknown channel mode: " + mode);
+    }
+
+    public String getName(){
+        return name;
+    }
+
+    public int getChannel(){
+        return channel;
+    }
+
+    public SampleSource.Mode getMode(){
+        return mode;
+    }
+
+    public CalibrationCurve getCalibration(){
+        return calibration;
+    }
+
+    public int getFilterWindow(){
+        return filterWindow;
+    }
+
+    /**
+     * @return the filter chain run on the raw samples, as written in the settings, or None
+     */
+    public String getFilter(){
+        return filter;
+    }
+
+    @Override
+    public String toString(){
+        return name + "," + channel + "," + mode + "," + calibration + "," + filterWindow + "," + filter;
+    }
+}
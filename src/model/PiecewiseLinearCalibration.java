@@ -0,0 +1,71 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Calibration curve drawn as straight lines between calibration points
+ * Voltages outside the table carry on along the first or last line
+ */
+public class PiecewiseLinearCalibration implements CalibrationCurve {
+    public static final String NAME = "table";
+
+    private final double[] volts;
+    private final double[] units;
+    private final double[] slopes; //units per volt of the line starting at each point
+
+    /**
+     * @param volts voltage of each calibration point, strictly increasing, at least two
+     * @param units value the machine showed at each point
+     */
+    public PiecewiseLinearCalibration(double[] volts, double[] units){
+        if(volts.length != units.length || volts.length < 2){
+            throw new IllegalArgumentException("Calibration table needs at least two points with a value for each voltage");
+        }
+        for(int i = 0; i < volts.length; i++){
+            if(Double.isNaN(volts[i]) || Double.isInfinite(volts[i]) || Double.isNaN(units[i]) || Double.isInfinite(units[i])){
+                throw new IllegalArgumentException("Calibration table must be finite numbers");
+            }
+            if(i > 0 && volts[i] <= volts[i - 1]){
+                throw new IllegalArgumentException("Calibration table voltages must increase: " + Arrays.toString(volts));
+            }
+        }
+        this.volts = volts.clone();
+        this.units = units.clone();
+        slopes = new double[volts.length - 1];
+        for(int i = 0; i < slopes.length; i++){
+            slopes[i] = (units[i + 1] - units[i]) / (volts[i + 1] - volts[i]);
+        }
+    }
+
+    @Override
+    public double toUnits(double volts){
+        int segment = findSegment(volts);
+        return units[segment] + slopes[segment] * (volts - this.volts[segment]);
+    }
+
+    /*
+     * Index of the point starting the line that covers the voltage, the end lines cover everything outside the table
+     */
+    private int findSegment(double volts){
+        int low = 0;
+        int high = slopes.length - 1;
+        while(low < high){
+            int middle = (low + high + 1) >>> 1;
+            if(this.volts[middle] <= volts){
+                low = middle;
+            }else{
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder text = new StringBuilder(NAME);
+        for(int i = 0; i < volts.length; i++){
+            text.append(':').append(volts[i]).append('/').append(units[i]);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,136 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Calibration curve units = c0 + c1 v + c2 v^2 ..., evaluated by Horner's method
+ * A straight line through zero is written as just its units per volt, the way constants always have been
+ */
+public class PolynomialCalibration implements CalibrationCurve {
+    public static final String NAME = "poly";
+
+    private final double[] coefficients;
+
+    /**
+     * @param coefficients c0, c1, c2... lowest power first, at least one
+     */
+    public PolynomialCalibration(double... coefficients){
+        if(coefficients.length == 0){
+            throw new IllegalArgumentException("Polynomial needs at least one coefficient");
+        }
+        for(double coefficient : coefficients){
+            if(Double.isNaN(coefficient) || Double.isInfinite(coefficient)){
+                throw new IllegalArgumentException("Polynomial coefficients must be finite: " + Arrays.toString(coefficients));
+            }
+        }
+        this.coefficients = coefficients.clone();
+    }
+
+    /**
+     * Least squares fit of a polynomial to calibration points
+     * @param volts voltage read at each point
+     * @param units value the machine showed at each point
+     * @param count number of points to use from the start of the arrays
+     * @param degree highest power of the polynomial, fewer than the number of points
+     * @return the fitted curve
+     */
+    public static PolynomialCalibration fit(double[] volts, double[] units, int count, int degree){
+        if(degree < 0 || count <= degree){
+            throw new IllegalArgumentException("Fitting a degree " + degree + " polynomial needs more than " + degree + " points, got " + count);
+        }
+        //fit in volts scaled to about 1 so the normal equations stay well conditioned
+        double scale = 0.0;
+        for(int i = 0; i < count; i++){
+            scale = Math.max(scale, Math.abs(volts[i]));
+        }
+        if(scale == 0.0){
+            scale = 1.0;
+        }
+        int n = degree + 1;
+        double[][] matrix = new double[n][n + 1];
+        double[] powers = new double[2 * n - 1];
+        for(int i = 0; i < count; i++){
+            double x = volts[i] / scale;
+            double power = 1.0;
+            for(int k = 0; k < powers.length; k++){
+                powers[k] = power;
+                power *= x;
+            }
+            for(int row = 0; row < n; row++){
+                for(int column = 0; column < n; column++){
+                    matrix[row][column] += powers[row + column];
+                }
+                matrix[row][n] += powers[row] * units[i];
+            }
+        }
+        double[] scaled = solve(matrix);
+        for(int k = 0; k < n; k++){
+            scaled[k] /= Math.pow(scale, k);
+        }
+        return new PolynomialCalibration(scaled);
+    }
+
+    /*
+     * Gaussian elimination with partial pivoting on an augmented matrix
+     */
+    private static double[] solve(double[][] matrix){
+        int n = matrix.length;
+        for(int pivot = 0; pivot < n; pivot++){
+            int best = pivot;
+            for(int row = pivot + 1; row < n; row++){
+                if(Math.abs(matrix[row][pivot]) > Math.abs(matrix[best][pivot])){
+                    best = row;
+                }
+            }
+            if(matrix[best][pivot] == 0.0){
+                throw new IllegalArgumentException("Calibration points do not have enough different voltages for this degree");
+            }
+            double[] swap = matrix[pivot];
+            matrix[pivot] = matrix[best];
+            matrix[best] = swap;
+            for(int row = pivot + 1; row < n; row++){
+                double factor = matrix[row][pivot] / matrix[pivot][pivot];
+                for(int column = pivot; column <= n; column++){
+                    matrix[row][column] -= factor * matrix[pivot][column];
+                }
+            }
+        }
+        double[] solution = new double[n];
+        for(int row = n - 1; row >= 0; row--){
+            double sum = matrix[row][n];
+            for(int column = row + 1; column < n; column++){
+                sum -= matrix[row][column] * solution[column];
+            }
+            solution[row] = sum / matrix[row][row];
+        }
+        return solution;
+    }
+
+    @Override
+    public double toUnits(double volts){
+        double units = coefficients[coefficients.length - 1];
+        for(int k = coefficients.length - 2; k >= 0; k--){
+            units = units * volts + coefficients[k];
+        }
+        return units;
+    }
+
+    /**
+     * @return c0, c1, c2... lowest power first
+     */
+    public double[] getCoefficients(){
+        return coefficients.clone();
+    }
+
+    @Override
+    public String toString(){
+        if(coefficients.length == 2 && coefficients[0] == 0.0){
+            return String.valueOf(coefficients[1]);
+        }
+        StringBuilder text = new StringBuilder(NAME);
+        for(double coefficient : coefficients){
+            text.append(':').append(coefficient);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,300 @@
+package model;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Scanner;
+
+/**
+ * Plays back recorded or synthetic samples in place of the National Instruments device.
+ * Recorded data comes from an exported csv file such as documents/stress_strain_data_ALUMINUM_TEST.csv,
+ * one row per sample. The k-th channel created reads from the k-th column listed in the constructor.
+ * Rows are played at the sample rate times the speed factor and loop back to the start when the file runs out.
+ */
+public class ReplaySource implements SampleSource {
+    private final double[][] rows;
+    private final int[] columns;
+    private final double speed;
+    private int channels;
+    private double sampleRate = AITask.DEFAULT_SAMPLES_PER_SECOND;
+    private int samplesPerBlock;
+    private int row;
+    private long sampleIndex;
+    private long nextBlockTime;
+    private SampleBlock data;
+    private boolean readyToRun;
+
+    /**
+     * Replays a csv file
+     * @param file the csv file to play back
+     * @param speed how many times faster than real time to play, or 0 to play as fast as possible
+     * @param columns the csv column to use for each channel, in channel creation order
+     * @throws FileNotFoundException if the file cannot be opened
+     */
+    public ReplaySource(File file, double speed, int... columns) throws FileNotFoundException {
+        this(readRows(file, columns), speed, columns);
+    }
+
+    private ReplaySource(double[][] rows, double speed, int[] columns){
+        if(rows.length == 0){
+            throw new IllegalArgumentException("No samples to replay");
+        }
+        this.rows = rows;
+        this.speed = speed;
+        this.columns = columns;
+        readyToRun = false;
+    }
+
+    /**
+     * Creates a synthetic source with a slow ramp and a little noise on every channel,
+     * useful for profiling when no recorded file is available
+     * @param speed how many times faster than real time to play, or 0 to play as fast as possible
+     * @param seconds length of the generated recording before it loops
+     * @param channelCount number of channels to generate
+     * @return the synthetic source
+     */
+    public static ReplaySource synthetic(double speed, int seconds, int channelCount){
+        int samples = seconds * AITask.DEFAULT_SAMPLES_PER_SECOND;
+        double[][] rows = new double[samples][channelCount];
+        int[] columns = new int[channelCount];
+        for(int j = 0; j < channelCount; j++){
+            columns[j] = j;
+        }
+        for(int i = 0; i < samples; i++){
+            for(int j = 0; j < channelCount; j++){
+                double ramp = (j + 1) * (double) i / samples;
+                rows[i][j] = ramp + 0.01 * Math.sin(i * (j + 1) * 0.7);
+            }
+        }
+        return new ReplaySource(rows, speed, columns);
+    }
+
+    /**
+     * Finds a column by its header, so files exported with and without a time column both replay
+     * @param file the csv file to search
+     * @param header the header of the column, such as Stress
+     * @param fallback the column to use if the header is not found
+     * @return the index of the column
+     * @throws FileNotFoundException if the file cannot be opened
+     */
+    public static int findColumn(File file, String header, int fallback) throws FileNotFoundException {
+        Scanner input = new Scanner(file);
+        try {
+            while(input.hasNextLine()){
+                String[] fields = input.nextLine().split(",");
+                for(int j = 0; j < fields.length; j++){
+                    if(fields[j].trim().equals(header)){
+                        return j;
+                    }
+                }
+            }
+            return fallback;
+        } finally {
+            input.close();
+        }
+    }
+
+    /*
+     * Reads the requested columns of every row that parses as numbers
+     */
+    private static double[][] readRows(File file, int[] columns) throws FileNotFoundException {
+        ArrayList<double[]> rows = new ArrayList<>();
+        Scanner input = new Scanner(file);
+        while(input.hasNextLine()){
+            String[] fields = input.nextLine().split(",");
+            double[] row = new double[columns.length];
+            try {
+                for(int j = 0; j < columns.length; j++){
+                    row[j] = Double.parseDouble(fields[columns[j]].trim());
+                }
+                rows.add(row);
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e){
+                //skip headers and blank lines
+            }
+        }
+        input.close();
+        return rows.toArray(new double[0][]);
+    }
+
+    @Override
+    public void createAIChannel(int channelNumber, Mode channelMode) {
+        if(readyToRun) {
+            System.err.println("ReplaySource: Ready to run function already called.");
+        }else if(channels >= columns.length){
+            throw new IllegalStateException("ReplaySource: no column given for channel " + channels);
+        }else{
+            channels++;
+        }
+    }
+
+    @Override
+    public void setSampleRate(double samplesPerSecond) {
+        if(readyToRun) {
+            System.err.println("ReplaySource: Ready to run function already called.");
+        }else{
+            sampleRate = samplesPerSecond;
+        }
+    }
+
+    @Override
+    public void setStartTrigger(String terminal, boolean risingEdge) {
+        if(terminal != null){
+            System.err.println("ReplaySource: there is no hardware to trigger from, playback starts straight away.");
+        }
+    }
+
+    @Override
+    public void setStartTriggerArmed(boolean armed) {
+        //playback never waits for a trigger
+    }
+
+    @Override
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public int getSamplesPerBlock() {
+        return samplesPerBlock;
+    }
+
+    @Override
+    public int getBlockCapacity() {
+        return samplesPerBlock;
+    }
+
+    @Override
+    public void readyToRun() {
+        samplesPerBlock = Math.max(1, (int) Math.round(sampleRate / AITask.UPDATES_PER_SECOND));
+        data = new SampleBlock(channels, samplesPerBlock);
+        readyToRun = true;
+    }
+
+    @Override
+    public void collectData() {
+        if(readyToRun) {
+            readBlock(data);
+        }else{
+            System.err.println("ReplaySource: Ready to run not called yet.");
+        }
+    }
+
+    @Override
+    public double getChannelData(int channelNumber) {
+        return data.getChannelMean(channelNumber);
+    }
+
+    @Override
+    public double[] getRawChannelData(int channelNumber) {
+        double[] samples = new double[data.getSamplesPerChannel()];
+        data.copyChannel(channelNumber, samples, 0);
+        return samples;
+    }
+
+    /**
+     * Waits until the block would have been ready on a real device, then fills it with the next rows
+     * @param block the block to fill
+     */
+    @Override
+    public void readBlock(SampleBlock block) {
+        if(!readyToRun){
+            throw new IllegalStateException("ReplaySource: Ready to run not called yet.");
+        }
+        waitForBlock();
+        block.setSamplesPerChannel(samplesPerBlock);
+        block.setFirstSampleIndex(sampleIndex);
+        sampleIndex += samplesPerBlock;
+        for(int i = 0; i < samplesPerBlock; i++){
+            for(int j = 0; j < channels; j++){
+                block.setSample(j, i, rows[row][j]);
+            }
+            row = (row + 1) % rows.length;
+        }
+    }
+
+    /*
+     * Sleeps until the next block is due. Deadlines are counted from the first read,
+     * not from when the last one returned, so playback does not drift.
+     */
+    private void waitForBlock(){
+        if(speed <= 0){
+            return;
+        }
+        long blockNanos = (long) (1_000_000_000L * samplesPerBlock / sampleRate / speed);
+        long now = System.nanoTime();
+        if(nextBlockTime == 0){
+            nextBlockTime = now;
+        }
+        nextBlockTime += blockNanos;
+        long wait = nextBlockTime - now;
+        if(wait > 0){
+            try {
+                Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+            } catch (InterruptedException e) {
+                //do nothing
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        //playback starts on the first read
+    }
+
+    @Override
+    public void pause() {
+        //restart the clock on the next read so paused time is not played back all at once
+        nextBlockTime = 0;
+    }
+
+    @Override
+    public boolean supportsBlockEvents() {
+        return false;
+    }
+
+    @Override
+    public void setBlockListener(BlockListener listener) {
+        throw new UnsupportedOperationException("ReplaySource must be polled with readBlock");
+    }
+
+    @Override
+    public boolean supportsReconnect() {
+        return false;
+    }
+
+    @Override
+    public void reconnect() {
+        throw new UnsupportedOperationException("ReplaySource has no device to reconnect to");
+    }
+
+    @Override
+    public long getAvailableSamples() {
+        return samplesPerBlock;
+    }
+
+    @Override
+    public long getBacklog() {
+        //playback waits for every block, so it never falls behind
+        return 0;
+    }
+
+    @Override
+    public double getReadLatency() {
+        return 0.0;
+    }
+
+    @Override
+    public void close() {
+        //the recording is read into memory up front, there is nothing to release
+    }
+
+    @Override
+    public long getOverruns() {
+        return 0;
+    }
+
+    @Override
+    public int getChannels() {
+        return channels;
+    }
+}
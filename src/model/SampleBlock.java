@@ -0,0 +1,126 @@
+package model;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+
+/**
+ * Holds one hardware-clocked block of samples read from the AITask, separated by channel.
+ * The samples live in native memory that the driver reads straight into, grouped by channel,
+ * and are read in place through a direct buffer so no copy is made between the driver and the pipeline.
+ * Each channel's samples directly follow the previous channel's, so a block can hold any number of
+ * samples per channel up to its capacity.
+ * Blocks are reused by the acquisition thread so nothing new is allocated while a test runs.
+ */
+public class SampleBlock {
+    private final int channels;
+    private final int capacity;
+    private final Memory memory;
+    private final DoubleBuffer samples;
+    private int samplesPerChannel;
+    private long firstSampleIndex;
+
+    public SampleBlock(int channels, int capacity){
+        this.channels = channels;
+        this.capacity = capacity;
+        memory = new Memory(Math.max(1L, (long) channels * capacity * Double.BYTES));
+        samples = memory.getByteBuffer(0, memory.size()).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        samplesPerChannel = 0;
+    }
+
+    /**
+     * Gets the mean of every sample in this block for the given channel
+     * @param channelNumber channel number of the data you would like
+     * @return the averaged value of the channel, or 0.0 if the block is empty
+     */
+    public double getChannelMean(int channelNumber){
+        if(samplesPerChannel == 0){
+            return 0.0;
+        }
+        double total = 0.0;
+        int start = channelNumber * samplesPerChannel;
+        for(int i = 0; i < samplesPerChannel; i++){
+            total += samples.get(start + i);
+        }
+        return total / samplesPerChannel;
+    }
+
+    /**
+     * Gets the position of a sample in the whole acquisition, counted on the sample clock from the first sample read.
+     * Divide by the sample rate for the time it was taken in seconds
+     * @param index index of the sample in this block
+     * @return the sample index, always increasing
+     */
+    public long getSampleIndex(int index){
+        return firstSampleIndex + index;
+    }
+
+    protected void setFirstSampleIndex(long firstSampleIndex){
+        this.firstSampleIndex = firstSampleIndex;
+    }
+
+    public double getSample(int channelNumber, int index){
+        return samples.get(channelNumber * samplesPerChannel + index);
+    }
+
+    /**
+     * Bulk copies the samples of one channel out of native memory
+     * @param channelNumber channel to copy
+     * @param destination array to copy into
+     * @param offset index in destination of the first sample
+     */
+    public void copyChannel(int channelNumber, double[] destination, int offset){
+        copyChannel(channelNumber, 0, destination, offset, samplesPerChannel);
+    }
+
+    /**
+     * Bulk copies part of one channel out of native memory
+     * @param channelNumber channel to copy
+     * @param from index in this block of the first sample to copy
+     * @param destination array to copy into
+     * @param offset index in destination of the first sample
+     * @param length number of samples to copy
+     */
+    public void copyChannel(int channelNumber, int from, double[] destination, int offset, int length){
+        samples.position(channelNumber * samplesPerChannel + from);
+        samples.get(destination, offset, length);
+    }
+
+    /**
+     * Sets one sample, the number of samples per channel must be set first
+     */
+    protected void setSample(int channelNumber, int index, double value){
+        samples.put(channelNumber * samplesPerChannel + index, value);
+    }
+
+    /**
+     * Sets how many samples each channel holds, which also sets where each channel starts
+     * @param samplesPerChannel number of samples per channel, up to the capacity
+     */
+    protected void setSamplesPerChannel(int samplesPerChannel){
+        if(samplesPerChannel > capacity){
+            throw new IllegalArgumentException("Block holds at most " + capacity + " samples per channel");
+        }
+        this.samplesPerChannel = samplesPerChannel;
+    }
+
+    /**
+     * @return the native memory the driver reads into, laid out as DAQmx_Val_GroupByChannel
+     */
+    protected Pointer getPointer(){
+        return memory;
+    }
+
+    public int getSamplesPerChannel(){
+        return samplesPerChannel;
+    }
+
+    public int getChannels(){
+        return channels;
+    }
+
+    public int getCapacity(){
+        return capacity;
+    }
+}
@@ -0,0 +1,36 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of sample clock indices kept as primitive longs, one for each point on a graph series.
+ * Item i is the sample the i-th point of the series was taken at, so the time of a point is its index over the sample rate.
+ * Written by the graphing thread and read by the export, so access is synchronized.
+ */
+public class SampleIndexList {
+    private long[] indices = new long[1024];
+    private int size = 0;
+
+    public synchronized void add(long sampleIndex){
+        if(size == indices.length){
+            indices = Arrays.copyOf(indices, size * 2);
+        }
+        indices[size++] = sampleIndex;
+    }
+
+    public synchronized long get(int index){
+        if(index >= size){
+            throw new IndexOutOfBoundsException("Index " + index + " out of " + size);
+        }
+        return indices[index];
+    }
+
+    public synchronized int size(){
+        return size;
+    }
+
+    public synchronized void clear(){
+        indices = new long[1024];
+        size = 0;
+    }
+}
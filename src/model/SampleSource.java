@@ -0,0 +1,165 @@
+package model;
+
+import kirkwood.nidaq.access.NiDaqException;
+
+/**
+ * A source of analog input samples for the graphing pipeline.
+ * AITask reads from the National Instruments device, ReplaySource plays back recorded or synthetic
+ * data so the pipeline can run and be load tested without the NI driver installed.
+ */
+public interface SampleSource {
+    // describes specific mode the channel is in
+    enum Mode {
+        DIFFERENTIAL, RSE, DEFAULT
+    }
+
+    /**
+     * Adds an analog input channel with the given mode, on the given port.
+     * Channels are numbered in the order they are created.
+     * @param channelNumber the port that the source will read from
+     * @param channelMode the mode that the source reads in
+     * @throws NiDaqException if the channel could not be created
+     */
+    void createAIChannel(int channelNumber, Mode channelMode) throws NiDaqException;
+
+    /**
+     * Sets how many samples per second per channel the source acquires, must be called before readyToRun
+     * @param samplesPerSecond samples per second per channel
+     */
+    void setSampleRate(double samplesPerSecond);
+
+    /**
+     * @return samples per second per channel, may be lowered by readyToRun if the device cannot keep up
+     */
+    double getSampleRate();
+
+    /**
+     * @return samples per channel in each block, known once readyToRun has been called
+     */
+    int getSamplesPerBlock();
+
+    /**
+     * @return the most samples per channel one read can return, blocks handed to readBlock must hold this many
+     */
+    int getBlockCapacity();
+
+    /**
+     * Makes the source wait for a digital edge from the hardware before it takes its first sample, must be called before readyToRun
+     * @param terminal the terminal the trigger signal is wired to, such as PFI0, or null to start as soon as the source is started
+     * @param risingEdge true to start on a rising edge, false for a falling edge
+     */
+    void setStartTrigger(String terminal, boolean risingEdge);
+
+    /**
+     * Lets a source with a start trigger run without waiting for the edge, so the channels can be zeroed before the
+     * test starts, then makes it wait for the edge again. Must be called after readyToRun while the source is stopped.
+     * Sources without a start trigger ignore it
+     * @param armed true to wait for the edge on the next start, false to start sampling straight away
+     * @throws NiDaqException if the source could not be set up the new way, it is left as it was
+     */
+    void setStartTriggerArmed(boolean armed) throws NiDaqException;
+
+    /**
+     * Should be called before starting to try and pull data and after creating Analog Input Channels
+     * Sets everything up to be ready to run
+     */
+    void readyToRun();
+
+    /**
+     * Called to update stored data.
+     * Should be called before calling getChannelData
+     */
+    void collectData();
+
+    /**
+     * Gets the averaged data from the last collectData call for the specified channel number
+     * @param channelNumber channel number of the data you would like
+     * @return the averaged value of the channel
+     */
+    double getChannelData(int channelNumber);
+
+    /**
+     * Gets every raw sample from the last collectData call for the specified channel number
+     * @param channelNumber channel number of the data you would like
+     * @return a copy of the samples of the channel, oldest first
+     */
+    double[] getRawChannelData(int channelNumber);
+
+    /**
+     * Blocks until the next getSamplesPerBlock samples per channel are available, then copies them into the given block.
+     * A source that has fallen behind may return several blocks worth of samples at once, up to getBlockCapacity.
+     * @param block the block to fill
+     * @throws NiDaqException if the source reports an error while reading
+     */
+    void readBlock(SampleBlock block) throws NiDaqException;
+
+    /**
+     * Starts the source. Sources that are polled also start on the first read
+     */
+    void start();
+
+    /**
+     * Stops the source until the next start or read
+     */
+    void pause();
+
+    /**
+     * @return true if this source can push blocks to a BlockListener instead of being polled
+     */
+    boolean supportsBlockEvents();
+
+    /**
+     * Registers the listener that is told each time a block is ready.
+     * Must be called after readyToRun and before the source is started.
+     * @param listener the listener to call, replaces any earlier listener
+     * @throws NiDaqException if the driver could not register the events
+     * @throws UnsupportedOperationException if supportsBlockEvents is false
+     */
+    void setBlockListener(BlockListener listener) throws NiDaqException;
+
+    /**
+     * @return true if this source can be rebuilt with reconnect after its device is lost
+     */
+    boolean supportsReconnect();
+
+    /**
+     * Throws the current task away and builds it again with the same channels, rate and listener, then starts it.
+     * Used when the device drops off mid-test, such as a USB glitch. Sample indices carry on from the time that
+     * passed while disconnected, so the samples that were lost show up as a gap in the indices.
+     * @throws NiDaqException if the device is still missing, the source keeps its old (stopped) setup and may be retried
+     * @throws UnsupportedOperationException if supportsReconnect is false
+     */
+    void reconnect() throws NiDaqException;
+
+    /**
+     * Stops the source for good and releases its device so a new source can be built on it.
+     * The source cannot be used afterwards
+     */
+    void close();
+
+    /**
+     * Asks the source how many samples per channel are waiting to be read right now
+     * @return samples per channel that can be read without waiting
+     */
+    long getAvailableSamples();
+
+    /**
+     * @return samples per channel still waiting in the source's buffer when the last read returned
+     */
+    long getBacklog();
+
+    /**
+     * @return how old the newest sample of the last read was when the read returned, in seconds
+     */
+    double getReadLatency();
+
+    /**
+     * @return number of times the source overwrote samples before they were read
+     */
+    long getOverruns();
+
+    /**
+     * @return number of channels created on this source
+     */
+    int getChannels();
+}
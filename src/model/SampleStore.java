@@ -0,0 +1,148 @@
+package model;
+
+import java.util.ArrayList;
+
+/**
+ * Append-only store of every raw sample acquired during a test, kept separate from the smoothed values shown on the graph.
+ * Each channel is a list of fixed size primitive chunks, so appending never copies what is already stored
+ * and memory use stays at eight bytes a sample however long the test runs.
+ * The sample clock index of every sample is kept the same way, so gaps from pauses and overruns are not lost.
+ * Written by the graphing thread and read after the test, so access is synchronized.
+ */
+public class SampleStore {
+    public static final int CHUNK_SIZE = 1 << 16; //samples per channel in each chunk
+
+    private final ArrayList<ArrayList<double[]>> chunks;
+    private final ArrayList<long[]> indexChunks;
+    private int size;
+
+    /**
+     * @param channels number of channels to store
+     */
+    public SampleStore(int channels){
+        indexChunks = new ArrayList<>();
+        chunks = new ArrayList<>(channels);
+        for(int j = 0; j < channels; j++){
+            chunks.add(new ArrayList<>());
+        }
+        size = 0;
+    }
+
+    /**
+     * Appends every sample of the block to the end of the store
+     * @param block the block to copy
+     */
+    public void append(SampleBlock block){
+        append(block, 0);
+    }
+
+    /**
+     * Appends the samples of the block from the given index on to the end of the store
+     * @param block the block to copy
+     * @param from index in the block of the first sample to copy
+     */
+    public synchronized void append(SampleBlock block, int from){
+        int count = block.getSamplesPerChannel() - from;
+        int copied = 0;
+        while(copied < count){
+            int offset = (size + copied) % CHUNK_SIZE;
+            if(offset == 0 && (size + copied) / CHUNK_SIZE == indexChunks.size()){
+                indexChunks.add(new long[CHUNK_SIZE]);
+                for(ArrayList<double[]> channel : chunks){
+                    channel.add(new double[CHUNK_SIZE]);
+                }
+            }
+            int length = Math.min(count - copied, CHUNK_SIZE - offset);
+            long[] indices = indexChunks.get((size + copied) / CHUNK_SIZE);
+            for(int i = 0; i < length; i++){
+                indices[offset + i] = block.getSampleIndex(from + copied + i);
+            }
+            for(int j = 0; j < chunks.size(); j++){
+                block.copyChannel(j, from + copied, chunks.get(j).get((size + copied) / CHUNK_SIZE), offset, length);
+            }
+            copied += length;
+        }
+        size += Math.max(0, count);
+    }
+
+    /**
+     * @return number of samples stored per channel
+     */
+    public synchronized int size(){
+        return size;
+    }
+
+    public synchronized double get(int channelNumber, int index){
+        if(index >= size){
+            throw new IndexOutOfBoundsException("Index " + index + " out of " + size);
+        }
+        return chunks.get(channelNumber).get(index / CHUNK_SIZE)[index % CHUNK_SIZE];
+    }
+
+    /**
+     * @param index position of the sample in this store
+     * @return the sample clock index the sample was taken at
+     */
+    public synchronized long getSampleIndex(int index){
+        if(index >= size){
+            throw new IndexOutOfBoundsException("Index " + index + " out of " + size);
+        }
+        return indexChunks.get(index / CHUNK_SIZE)[index % CHUNK_SIZE];
+    }
+
+    /**
+     * Copies a range of sample clock indices into an array
+     * @param from position in this store of the first index to copy
+     * @param destination array to copy into
+     * @param offset position in destination of the first index
+     * @param length number of indices to copy
+     */
+    public synchronized void copySampleIndices(int from, long[] destination, int offset, int length){
+        if(from + length > size){
+            throw new IndexOutOfBoundsException("Range ends at " + (from + length) + " out of " + size);
+        }
+        int copied = 0;
+        while(copied < length){
+            int index = from + copied;
+            int count = Math.min(length - copied, CHUNK_SIZE - index % CHUNK_SIZE);
+            System.arraycopy(indexChunks.get(index / CHUNK_SIZE), index % CHUNK_SIZE, destination, offset + copied, count);
+            copied += count;
+        }
+    }
+
+    /**
+     * Copies a range of one channel into an array
+     * @param channelNumber channel to copy
+     * @param from index of the first sample to copy
+     * @param destination array to copy into
+     * @param offset index in destination of the first sample
+     * @param length number of samples to copy
+     */
+    public synchronized void copy(int channelNumber, int from, double[] destination, int offset, int length){
+        if(from + length > size){
+            throw new IndexOutOfBoundsException("Range ends at " + (from + length) + " out of " + size);
+        }
+        int copied = 0;
+        while(copied < length){
+            int index = from + copied;
+            int count = Math.min(length - copied, CHUNK_SIZE - index % CHUNK_SIZE);
+            System.arraycopy(chunks.get(channelNumber).get(index / CHUNK_SIZE), index % CHUNK_SIZE, destination, offset + copied, count);
+            copied += count;
+        }
+    }
+
+    public int getChannels(){
+        return chunks.size();
+    }
+
+    /**
+     * Removes every stored sample and releases the memory they used
+     */
+    public synchronized void clear(){
+        indexChunks.clear();
+        for(ArrayList<double[]> channel : chunks){
+            channel.clear();
+        }
+        size = 0;
+    }
+}
@@ -15,6 +15,7 @@ public class ExportWindow extends JFrame {
     private JButton export;
     private JButton cancel;
     private JCheckBox exportValuesCheckBox;
+    private JCheckBox exportRawCheckBox;
 
     public ExportWindow(){
         setTitle("Export");
@@ -29,6 +30,7 @@ public class ExportWindow extends JFrame {
         setupExportValuesWithDataPanel();
         outerPanel.add(createExportDataPanel());
         outerPanel.add(exportValuesWithDataPanel);
+        outerPanel.add(createExportRawPanel());
         outerPanel.add(Box.createVerticalGlue());
         outerPanel.add(createButtonPanel());
         outerPanel.add(Box.createVerticalGlue());
@@ -73,6 +75,25 @@ public class ExportWindow extends JFrame {
         exportValuesWithDataPanel.add(Box.createHorizontalGlue());
     }
 
+    /*
+     * Panel with check box that allows the user to export every raw
+     * voltage sample to a second file if checked
+     */
+    private JPanel createExportRawPanel(){
+        JPanel exportRawPanel = new JPanel();
+        exportRawPanel.setLayout(new BoxLayout(exportRawPanel, BoxLayout.X_AXIS));
+
+        exportRawCheckBox = new JCheckBox("Export raw samples");
+        exportRawCheckBox.setSelected(false);
+        exportRawCheckBox.setToolTipText("Also writes every unsmoothed voltage sample to a _raw.csv file");
+
+        exportRawPanel.add(Box.createHorizontalStrut(HORIZONTAL_BUFFER));
+        exportRawPanel.add(exportRawCheckBox);
+        exportRawPanel.add(Box.createHorizontalGlue());
+
+        return exportRawPanel;
+    }
+
     /*
      * Export and Cancel options
      */
@@ -106,4 +127,8 @@ public class ExportWindow extends JFrame {
     public JCheckBox getExportValuesCheckBox() {
         return exportValuesCheckBox;
     }
+
+    public JCheckBox getExportRawCheckBox() {
+        return exportRawCheckBox;
+    }
 }
@@ -32,7 +32,11 @@ public class MainWindow extends JFrame {
     private JMenuItem input;
     private JFreeChart chart;
     private JMenuItem reset;
-    private final XYSeries series = new XYSeries("Stress-Strain Curve");
+    private JLabel statusLabel;
+    private JLabel modulusLabel;
+    //points are kept in the order they were taken so each one lines up with its sample time
+    private final XYSeries series = new XYSeries("Stress-Strain Curve", false, true);
+    private XYSeriesCollection dataset;
 
     public MainWindow(){
 
@@ -68,11 +72,16 @@ public class MainWindow extends JFrame {
         graphPanel = new JPanel();
         graphPanel.setLayout(new BorderLayout());
         graphPanel.setBorder(BorderFactory.createCompoundBorder(BorderFactory.createEmptyBorder(HORIZONTAL_BUFFER,VERTICAL_BUFFER,HORIZONTAL_BUFFER,VERTICAL_BUFFER), BorderFactory.createLineBorder(Color.BLACK, 1)));
-        XYSeriesCollection dataset = new XYSeriesCollection(series);
+        dataset = new XYSeriesCollection(series);
         chart = ChartFactory.createXYLineChart(null,"Strain","Stress",dataset, PlotOrientation.VERTICAL,true,true,true);
 
         ChartPanel chartPanel = new ChartPanel(chart);
 
+        modulusLabel = new JLabel(" ");
+        modulusLabel.setBorder(BorderFactory.createEmptyBorder(VERTICAL_BUFFER / 2, HORIZONTAL_BUFFER, VERTICAL_BUFFER / 2, HORIZONTAL_BUFFER));
+        modulusLabel.setToolTipText("Elastic modulus fitted to the points in the modulus strain range set in Settings, with the R\u00b2 of the fit, and the 0.2% offset yield strength once the curve reaches it");
+
+        graphPanel.add(modulusLabel,BorderLayout.NORTH);
         graphPanel.add(chartPanel,BorderLayout.CENTER);
         graphPanel.validate();
     }
@@ -98,6 +107,10 @@ public class MainWindow extends JFrame {
         graphReset.setEnabled(false);
         exportButton.setEnabled(false);
 
+        statusLabel = new JLabel(" ");
+        statusLabel.setToolTipText("Samples waiting in the device buffer, how far behind the graph is, buffer overruns and blocks dropped because processing fell behind");
+
+        optionsPanel.add(statusLabel);
         optionsPanel.add(Box.createHorizontalGlue());
         optionsPanel.add(inputButton);
         optionsPanel.add(Box.createHorizontalStrut(HORIZONTAL_BUFFER));
@@ -155,6 +168,10 @@ public class MainWindow extends JFrame {
 
     public JButton getClearButton(){ return graphReset;}
 
+    public JLabel getStatusLabel(){ return statusLabel; }
+
+    public JLabel getModulusLabel(){ return modulusLabel; }
+
     public JFreeChart getChart(){
         return chart;
     }
@@ -181,6 +198,25 @@ public class MainWindow extends JFrame {
         return series;
     }
 
+    /**
+     * Adds another curve to the graph, used when more than one frame is tested at once
+     * @param name name shown in the legend
+     * @return the new, empty series
+     */
+    public XYSeries addSeries(String name){
+        XYSeries newSeries = new XYSeries(name, false, true);
+        dataset.addSeries(newSeries);
+        return newSeries;
+    }
+
+    /**
+     * Takes a curve added with addSeries off the graph
+     * @param extraSeries the series to remove
+     */
+    public void removeSeries(XYSeries extraSeries){
+        dataset.removeSeries(extraSeries);
+    }
+
     public JButton getInputButton(){
         return inputButton;
     }
@@ -3,11 +3,15 @@ package view;
 import javax.swing.*;
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
 import javax.swing.SpringLayout;
 import controller.Calculations.Units;
 import model.AITask;
+import model.CalibrationCurve;
+import model.ChannelConfig;
+import model.SampleSource;
 
 /**
  * Creates a pop-up frame which displays settings options
@@ -34,6 +38,33 @@ public class SettingsView extends JFrame{
     private final Integer [] CHANNEL_OPTIONS = {0,1,2,3,4,5,6,7};  //Starts with maximum number of channels
     private JTextField forceVoltage2UnitConstant;
     private JTextField elongationVoltage2UnitConstant;
+    private JTextField sampleRateField;
+    private JTextField displayRateField;
+    private JTextArea extraChannelsArea;
+    private JTextField deviceNamesField;
+    private JComboBox<String> triggerChannelComboBox;
+    private JTextField triggerLevelField;
+    private JTextField preTriggerField;
+    private JTextField hardwareTriggerField;
+    private JComboBox<String> hardwareTriggerEdgeComboBox;
+    private JTextField reconnectTimeoutField;
+    private JTextField forceFilterField;
+    private JTextField elongationFilterField;
+    private JTextField tareWindowField;
+    private JTextField tareNoiseField;
+    private JTextField tareDriftField;
+    private JCheckBox driftCorrectionCheckBox;
+    private JTextField modulusFromField;
+    private JTextField modulusToField;
+    private JTextField modulusPointsField;
+    private final String [] EDGE_OPTIONS = {"Rising", "Falling"};
+    private static final String DEFAULT_TARE_SECONDS = "2.0";
+    private static final String DEFAULT_TARE_NOISE = "0.05";
+    private static final String DEFAULT_TARE_DRIFT = "0.01";
+    private static final String DEFAULT_MODULUS_FROM = "5.0E-4";
+    private static final String DEFAULT_MODULUS_TO = "0.0025";
+    private static final String DEFAULT_MODULUS_POINTS = "0";
+    private final String [] TRIGGER_OPTIONS = {"Off", ChannelConfig.FORCE, ChannelConfig.ELONGATION};
 
     public SettingsView (Scanner userInput) {
         setTitle("Settings");
@@ -47,6 +78,8 @@ public class SettingsView extends JFrame{
         outerPanel.add(Box.createVerticalStrut(VERTICAL_BUFFER));
         outerPanel.add(createMachineSettingsPanel());
         outerPanel.add(Box.createVerticalStrut(VERTICAL_BUFFER));
+        outerPanel.add(createAcquisitionSettingsPanel());
+        outerPanel.add(Box.createVerticalStrut(VERTICAL_BUFFER));
 
         outerPanel.add(createInputSettingsPanel(userInput));
         outerPanel.add(createSaveButtonPanel());
@@ -95,23 +128,31 @@ public class SettingsView extends JFrame{
                 forceChannelComboBox.setSelectedItem(forceChannel);
                 String forceMode = input.next();
                 forceModeComboBox.setSelectedItem(forceMode);
-                double forceConstant = input.nextDouble();
-                forceVoltage2UnitConstant.setText(String.valueOf(forceConstant));
+                CalibrationCurve forceCalibration = CalibrationCurve.parse(input.next());
+                forceVoltage2UnitConstant.setText(String.valueOf(forceCalibration));
 
                 int elongationChannel = input.nextInt();
                 elongationChannelComboBox.setSelectedItem(elongationChannel);
                 String elongationMode = input.next();
                 elongationModeComboBox.setSelectedItem(elongationMode);
-                double elongationConstant = input.nextDouble();
-                elongationVoltage2UnitConstant.setText(String.valueOf(elongationConstant));
+                CalibrationCurve elongationCalibration = CalibrationCurve.parse(input.next());
+                elongationVoltage2UnitConstant.setText(String.valueOf(elongationCalibration));
 
                 readSucceeded = true;
             }
-            catch( NoSuchElementException | IllegalStateException e) {
+            catch( NoSuchElementException | IllegalStateException | IllegalArgumentException e) {
                 //do nothing
             }
         }
 
+        //settings added after the first release are read separately so older files still load
+        if(!readSucceeded || !readAcquisitionSettings(input)){
+            sampleRateField.setText(String.valueOf(AITask.DEFAULT_SAMPLES_PER_SECOND));
+            displayRateField.setText(String.valueOf(AITask.UPDATES_PER_SECOND));
+            deviceNamesField.setText(AITask.DEFAULT_DEVICE);
+            setDefaultTriggerSettings();
+        }
+
         if(!readSucceeded){ //if no values input default values show
             gaugeLengthLabel.setText("Gauge Length (in):");
             gaugeLengthField = new JTextField("0.5");
@@ -138,6 +179,318 @@ public class SettingsView extends JFrame{
         return northPanel;
     }
 
+    /*
+     * Reads the acquisition rates that follow the machine settings in the settings file
+     * Returns false if they are missing
+     */
+    private boolean readAcquisitionSettings(Scanner input){
+        try{
+            sampleRateField.setText(String.valueOf(input.nextDouble()));
+            displayRateField.setText(String.valueOf(input.nextDouble()));
+        }
+        catch( NoSuchElementException | IllegalStateException e) {
+            return false;
+        }
+        readExtraChannels(input);
+        readDeviceNames(input);
+        return true;
+    }
+
+    /*
+     * Reads the comma separated device names, one session is run for each
+     * Falls back to the single default device if they are missing
+     */
+    private void readDeviceNames(Scanner input){
+        try{
+            deviceNamesField.setText(input.next());
+        }
+        catch( NoSuchElementException | IllegalStateException e) {
+            deviceNamesField.setText(AITask.DEFAULT_DEVICE);
+        }
+        readTriggerSettings(input);
+    }
+
+    /*
+     * Reads the trigger channel, level and pre-trigger seconds
+     * Leaves the trigger off if they are missing
+     */
+    private void readTriggerSettings(Scanner input){
+        try{
+            String channel = input.next();
+            double level = input.nextDouble();
+            double preTrigger = input.nextDouble();
+            triggerChannelComboBox.setSelectedItem(channel);
+            triggerLevelField.setText(String.valueOf(level));
+            preTriggerField.setText(String.valueOf(preTrigger));
+        }
+        catch( NoSuchElementException | IllegalStateException e) {
+            setDefaultTriggerSettings();
+            return;
+        }
+        readHardwareTriggerSettings(input);
+    }
+
+    /*
+     * Reads the hardware start trigger terminal, None if there is not one, and its edge
+     * Leaves the hardware trigger off if they are missing
+     */
+    private void readHardwareTriggerSettings(Scanner input){
+        try{
+            String terminal = input.next();
+            String edge = input.next();
+            hardwareTriggerField.setText(terminal.equals("None") ? "" : terminal);
+            hardwareTriggerEdgeComboBox.setSelectedItem(edge);
+        }
+        catch( NoSuchElementException | IllegalStateException e) {
+            hardwareTriggerField.setText("");
+            hardwareTriggerEdgeComboBox.setSelectedItem("Rising");
+            reconnectTimeoutField.setText("10.0");
+            return;
+        }
+        readReconnectSettings(input);
+    }
+
+    /*
+     * Reads how many seconds to keep trying to reconnect a lost device
+     * Uses 10 seconds if it is missing
+     */
+    private void readReconnectSettings(Scanner input){
+        try{
+            reconnectTimeoutField.setText(String.valueOf(input.nextDouble()));
+        }
+        catch( NoSuchElementException | IllegalStateException e) {
+            reconnectTimeoutField.setText("10.0");
+            return;
+        }
+        readFilterSettings(input);
+    }
+
+    /*
+     * Reads the force and elongation filter chains
+     * Leaves both unfiltered if they are missing
+     */
+    private void readFilterSettings(Scanner input){
+        try{
+            String forceFilter = input.next();
+            String elongationFilter = input.next();
+            forceFilterField.setText(forceFilter);
+            elongationFilterField.setText(elongationFilter);
+        }
+        catch( NoSuchElementException | IllegalStateException e) {
+            forceFilterField.setText(ChannelConfig.NO_FILTER);
+            elongationFilterField.setText(ChannelConfig.NO_FILTER);
+            return;
+        }
+        readTareSettings(input);
+    }
+
+    /*
+     * Reads the tare window, its noise and drift limits and whether drift is corrected during the test
+     * Leaves the defaults set when the fields were made if they are missing
+     */
+    private void readTareSettings(Scanner input){
+        try{
+            double window = input.nextDouble();
+            double noise = input.nextDouble();
+            double drift = input.nextDouble();
+            boolean correct = input.nextBoolean();
+            tareWindowField.setText(String.valueOf(window));
+            tareNoiseField.setText(String.valueOf(noise));
+            tareDriftField.setText(String.valueOf(drift));
+            driftCorrectionCheckBox.setSelected(correct);
+        }
+        catch( NoSuchElementException | IllegalStateException e) {
+            //keep the defaults
+            return;
+        }
+        readModulusSettings(input);
+    }
+
+    /*
+     * Reads the strain range the modulus is fitted over and how many of its latest points are used
+     * Leaves the defaults set when the fields were made if they are missing
+     */
+    private void readModulusSettings(Scanner input){
+        try{
+            double from = input.nextDouble();
+            double to = input.nextDouble();
+            int points = input.nextInt();
+            modulusFromField.setText(String.valueOf(from));
+            modulusToField.setText(String.valueOf(to));
+            modulusPointsField.setText(String.valueOf(points));
+        }
+        catch( NoSuchElementException | IllegalStateException e) {
+            //keep the defaults
+        }
+    }
+
+    private void setDefaultTriggerSettings(){
+        triggerChannelComboBox.setSelectedItem("Off");
+        triggerLevelField.setText("0.0");
+        preTriggerField.setText("1.0");
+        hardwareTriggerField.setText("");
+        hardwareTriggerEdgeComboBox.setSelectedItem("Rising");
+        reconnectTimeoutField.setText("10.0");
+    }
+
+    /*
+     * Reads the number of extra channels followed by one token per channel
+     * Leaves the list empty if they are missing
+     */
+    private void readExtraChannels(Scanner input){
+        try{
+            int count = input.nextInt();
+            StringBuilder channels = new StringBuilder();
+            for(int i = 0; i < count; i++){
+                channels.append(input.next()).append("\n");
+            }
+            extraChannelsArea.setText(channels.toString());
+        }
+        catch( NoSuchElementException | IllegalStateException e) {
+            extraChannelsArea.setText("");
+        }
+    }
+
+    /*
+     * Creates fields for how fast the device samples and how many points a second are drawn on the graph
+     */
+    private JPanel createAcquisitionSettingsPanel(){
+        JPanel acquisitionSettings = new JPanel(new SpringLayout());
+        JLabel sampleRateLabel = new JLabel("Sample Rate (samples/s): ");
+        JLabel displayRateLabel = new JLabel("Display Rate (points/s): ");
+        sampleRateField = new JTextField(12);
+        sampleRateField.setToolTipText("Samples taken per second on each channel, every sample is kept");
+        displayRateField = new JTextField(12);
+        displayRateField.setToolTipText("Points drawn on the graph per second");
+
+        acquisitionSettings.add(sampleRateLabel);
+        sampleRateLabel.setLabelFor(sampleRateField);
+        acquisitionSettings.add(sampleRateField);
+
+        acquisitionSettings.add(displayRateLabel);
+        displayRateLabel.setLabelFor(displayRateField);
+        acquisitionSettings.add(displayRateField);
+        JLabel extraChannelsLabel = new JLabel("Extra Channels: ");
+        extraChannelsArea = new JTextArea(3, 12);
+        extraChannelsArea.setToolTipText("One channel per line as name,channel,mode,calibration,filterWindow,filter e.g. LVDT,4,RSE,0.1,0,None");
+
+        acquisitionSettings.add(extraChannelsLabel);
+        extraChannelsLabel.setLabelFor(extraChannelsArea);
+        acquisitionSettings.add(new JScrollPane(extraChannelsArea));
+
+        JLabel deviceNamesLabel = new JLabel("Devices: ");
+        deviceNamesField = new JTextField(12);
+        deviceNamesField.setToolTipText("Comma separated NI MAX device names, one test frame is run for each e.g. Dev1,Dev2");
+
+        acquisitionSettings.add(deviceNamesLabel);
+        deviceNamesLabel.setLabelFor(deviceNamesField);
+        acquisitionSettings.add(deviceNamesField);
+
+        JLabel triggerChannelLabel = new JLabel("Start Trigger: ");
+        triggerChannelComboBox = new JComboBox<>(TRIGGER_OPTIONS);
+        triggerChannelComboBox.setToolTipText("Off starts recording on Start, otherwise recording waits until this channel crosses the trigger level");
+        JLabel triggerLevelLabel = new JLabel("Trigger Level (lbs or in): ");
+        triggerLevelField = new JTextField(12);
+        triggerLevelField.setToolTipText("Force in lbs or elongation in inches from zero, negative levels trigger when the value falls below them");
+        JLabel preTriggerLabel = new JLabel("Pre-trigger (s): ");
+        preTriggerField = new JTextField(12);
+        preTriggerField.setToolTipText("Seconds of data before the trigger that are added to the start of the recording");
+
+        acquisitionSettings.add(triggerChannelLabel);
+        triggerChannelLabel.setLabelFor(triggerChannelComboBox);
+        acquisitionSettings.add(triggerChannelComboBox);
+
+        acquisitionSettings.add(triggerLevelLabel);
+        triggerLevelLabel.setLabelFor(triggerLevelField);
+        acquisitionSettings.add(triggerLevelField);
+
+        acquisitionSettings.add(preTriggerLabel);
+        preTriggerLabel.setLabelFor(preTriggerField);
+        acquisitionSettings.add(preTriggerField);
+
+        JLabel hardwareTriggerLabel = new JLabel("Hardware Trigger Terminal: ");
+        hardwareTriggerField = new JTextField(12);
+        hardwareTriggerField.setToolTipText("Terminal wired to the load frame's digital output, such as PFI0. Leave blank to start from the Start button. " +
+                "The channels are tared before the trigger is armed");
+        JLabel hardwareTriggerEdgeLabel = new JLabel("Hardware Trigger Edge: ");
+        hardwareTriggerEdgeComboBox = new JComboBox<>(EDGE_OPTIONS);
+        hardwareTriggerEdgeComboBox.setToolTipText("Edge of the digital signal that starts acquisition");
+
+        acquisitionSettings.add(hardwareTriggerLabel);
+        hardwareTriggerLabel.setLabelFor(hardwareTriggerField);
+        acquisitionSettings.add(hardwareTriggerField);
+
+        acquisitionSettings.add(hardwareTriggerEdgeLabel);
+        hardwareTriggerEdgeLabel.setLabelFor(hardwareTriggerEdgeComboBox);
+        acquisitionSettings.add(hardwareTriggerEdgeComboBox);
+
+        JLabel reconnectTimeoutLabel = new JLabel("Reconnect Timeout (s): ");
+        reconnectTimeoutField = new JTextField(12);
+        reconnectTimeoutField.setToolTipText("Seconds to keep trying to reconnect a device that drops off during a test, 0 to stop straight away");
+
+        acquisitionSettings.add(reconnectTimeoutLabel);
+        reconnectTimeoutLabel.setLabelFor(reconnectTimeoutField);
+        acquisitionSettings.add(reconnectTimeoutField);
+
+        JLabel tareWindowLabel = new JLabel("Tare Window (s): ");
+        tareWindowField = new JTextField(DEFAULT_TARE_SECONDS, 12);
+        tareWindowField.setToolTipText("Seconds of unloaded readings averaged for the zero each time Start is pressed");
+        JLabel tareNoiseLabel = new JLabel("Tare Noise Limit (V): ");
+        tareNoiseField = new JTextField(DEFAULT_TARE_NOISE, 12);
+        tareNoiseField.setToolTipText("The tare is rejected if any channel's noise is above this many volts, 0 for no limit");
+        JLabel tareDriftLabel = new JLabel("Tare Drift Limit (V/s): ");
+        tareDriftField = new JTextField(DEFAULT_TARE_DRIFT, 12);
+        tareDriftField.setToolTipText("The tare is rejected if any channel drifts faster than this many volts a second, 0 for no limit");
+        JLabel driftCorrectionLabel = new JLabel("Correct Zero Drift: ");
+        driftCorrectionCheckBox = new JCheckBox();
+        driftCorrectionCheckBox.setToolTipText("<html>Keep moving each zero at the drift rate measured by the tare, for long creep and relaxation tests.<br>" +
+                "The rate is only followed while its error stays below the tare noise, then the zero holds still:<br>" +
+                "about 26 s after a 2 s tare at 1000 S/s, growing with the tare window to the power 1.5 (about 70 minutes for 60 s).<br>" +
+                "Use a tare window a few percent as long as the test, time spent waiting for a hardware trigger is not counted</html>");
+
+        acquisitionSettings.add(tareWindowLabel);
+        tareWindowLabel.setLabelFor(tareWindowField);
+        acquisitionSettings.add(tareWindowField);
+
+        acquisitionSettings.add(tareNoiseLabel);
+        tareNoiseLabel.setLabelFor(tareNoiseField);
+        acquisitionSettings.add(tareNoiseField);
+
+        acquisitionSettings.add(tareDriftLabel);
+        tareDriftLabel.setLabelFor(tareDriftField);
+        acquisitionSettings.add(tareDriftField);
+
+        acquisitionSettings.add(driftCorrectionLabel);
+        driftCorrectionLabel.setLabelFor(driftCorrectionCheckBox);
+        acquisitionSettings.add(driftCorrectionCheckBox);
+
+        JLabel modulusFromLabel = new JLabel("Modulus Strain From: ");
+        modulusFromField = new JTextField(DEFAULT_MODULUS_FROM, 12);
+        modulusFromField.setToolTipText("Lowest strain in the elastic region the modulus is fitted over, e.g. 0.0005");
+        JLabel modulusToLabel = new JLabel("Modulus Strain To: ");
+        modulusToField = new JTextField(DEFAULT_MODULUS_TO, 12);
+        modulusToField.setToolTipText("Highest strain in the elastic region the modulus is fitted over, e.g. 0.0025");
+        JLabel modulusPointsLabel = new JLabel("Modulus Points: ");
+        modulusPointsField = new JTextField(DEFAULT_MODULUS_POINTS, 12);
+        modulusPointsField.setToolTipText("Fit only this many of the latest points in the range, 0 to fit every point in it");
+
+        acquisitionSettings.add(modulusFromLabel);
+        modulusFromLabel.setLabelFor(modulusFromField);
+        acquisitionSettings.add(modulusFromField);
+
+        acquisitionSettings.add(modulusToLabel);
+        modulusToLabel.setLabelFor(modulusToField);
+        acquisitionSettings.add(modulusToField);
+
+        acquisitionSettings.add(modulusPointsLabel);
+        modulusPointsLabel.setLabelFor(modulusPointsField);
+        acquisitionSettings.add(modulusPointsField);
+        SpringUtilities.makeCompactGrid(acquisitionSettings,17,2, HORIZONTAL_BUFFER, VERTICAL_BUFFER, HORIZONTAL_BUFFER, VERTICAL_BUFFER);
+
+        acquisitionSettings.setBorder(BorderFactory.createCompoundBorder(BorderFactory.createTitledBorder("Acquisition Settings"), BorderFactory.createEmptyBorder(VERTICAL_BUFFER,HORIZONTAL_BUFFER,VERTICAL_BUFFER,HORIZONTAL_BUFFER)));
+        return acquisitionSettings;
+    }
+
     /*
      * Creates a save button that will allow a user to
      * save the settings that were decided on and will persist throughout the test
@@ -161,6 +514,8 @@ public class SettingsView extends JFrame{
         JLabel channelLabel2 = new JLabel("Channel: ");
         JLabel voltageConstantLabel = new JLabel("Voltage to Units Constant: ");
         JLabel voltageConstantLabel2 = new JLabel("Voltage to Units Constant: ");
+        JLabel filterLabel = new JLabel("Filter: ");
+        JLabel filterLabel2 = new JLabel("Filter: ");
 
         forceModeComboBox = new JComboBox<>(MODE_OPTIONS);
         elongationModeComboBox = new JComboBox<>(MODE_OPTIONS);
@@ -168,6 +523,16 @@ public class SettingsView extends JFrame{
         elongationChannelComboBox = new JComboBox<>(CHANNEL_OPTIONS);
         forceVoltage2UnitConstant = new JTextField();
         elongationVoltage2UnitConstant = new JTextField();
+        forceFilterField = new JTextField(ChannelConfig.NO_FILTER);
+        elongationFilterField = new JTextField(ChannelConfig.NO_FILTER);
+        String filterTip = "Filters run on the raw samples, joined by + e.g. hampel:7+bw:20:4. " +
+                "Stages are ma:window, ema:alpha, bw:cutoffHz:order, median:window, hampel:window:k:minVolts and sg:window:order. None for no filtering beyond the anti-aliasing down to the display rate";
+        String calibrationTip = "Units per volt, or a curve from the calibration tool: poly:c0:c1:c2 for c0 + c1 v + c2 v^2, " +
+                "or table:volts/units:volts/units with straight lines between the points in increasing volts";
+        forceVoltage2UnitConstant.setToolTipText(calibrationTip);
+        elongationVoltage2UnitConstant.setToolTipText(calibrationTip);
+        forceFilterField.setToolTipText(filterTip);
+        elongationFilterField.setToolTipText(filterTip);
 
         //Force Machine Settings
         forceMachineSettings.add(modeLabel);
@@ -182,7 +547,11 @@ public class SettingsView extends JFrame{
         voltageConstantLabel.setLabelFor(forceVoltage2UnitConstant);
         forceMachineSettings.add(forceVoltage2UnitConstant);
 
-        SpringUtilities.makeCompactGrid(forceMachineSettings,3,2, HORIZONTAL_BUFFER, VERTICAL_BUFFER, HORIZONTAL_BUFFER, VERTICAL_BUFFER);
+        forceMachineSettings.add(filterLabel);
+        filterLabel.setLabelFor(forceFilterField);
+        forceMachineSettings.add(forceFilterField);
+
+        SpringUtilities.makeCompactGrid(forceMachineSettings,4,2, HORIZONTAL_BUFFER, VERTICAL_BUFFER, HORIZONTAL_BUFFER, VERTICAL_BUFFER);
 
 
         //Elongation Machine Settings
@@ -197,7 +566,11 @@ public class SettingsView extends JFrame{
         elongationMachineSettings.add(voltageConstantLabel2);
         voltageConstantLabel2.setLabelFor(elongationVoltage2UnitConstant);
         elongationMachineSettings.add(elongationVoltage2UnitConstant);
-        SpringUtilities.makeCompactGrid(elongationMachineSettings,3,2, HORIZONTAL_BUFFER, VERTICAL_BUFFER, HORIZONTAL_BUFFER, VERTICAL_BUFFER);
+
+        elongationMachineSettings.add(filterLabel2);
+        filterLabel2.setLabelFor(elongationFilterField);
+        elongationMachineSettings.add(elongationFilterField);
+        SpringUtilities.makeCompactGrid(elongationMachineSettings,4,2, HORIZONTAL_BUFFER, VERTICAL_BUFFER, HORIZONTAL_BUFFER, VERTICAL_BUFFER);
 
         forceMachineSettings.setBorder(BorderFactory.createCompoundBorder(BorderFactory.createTitledBorder("Force Machine Settings"), BorderFactory.createEmptyBorder(VERTICAL_BUFFER,HORIZONTAL_BUFFER,VERTICAL_BUFFER,HORIZONTAL_BUFFER)));
         elongationMachineSettings.setBorder(BorderFactory.createCompoundBorder(BorderFactory.createTitledBorder("Elongation Machine Settings"), BorderFactory.createEmptyBorder(VERTICAL_BUFFER,HORIZONTAL_BUFFER,VERTICAL_BUFFER,HORIZONTAL_BUFFER)));
@@ -208,19 +581,19 @@ public class SettingsView extends JFrame{
         return machineSettingsPanel;
     }
 
-    public AITask.Mode getForceMode(){
+    public SampleSource.Mode getForceMode(){
         if(forceModeComboBox.getSelectedItem().equals("RSE")){
-            return  AITask.Mode.RSE;
+            return  SampleSource.Mode.RSE;
         } else  {
-            return AITask.Mode.DIFFERENTIAL;
+            return SampleSource.Mode.DIFFERENTIAL;
         }
     }
 
-    public AITask.Mode getElongationMode(){
+    public SampleSource.Mode getElongationMode(){
         if(elongationModeComboBox.getSelectedItem().equals("RSE")){
-            return  AITask.Mode.RSE;
+            return  SampleSource.Mode.RSE;
         } else  {
-            return AITask.Mode.DIFFERENTIAL;
+            return SampleSource.Mode.DIFFERENTIAL;
         }
     }
 
@@ -260,9 +633,17 @@ public class SettingsView extends JFrame{
 
     public JComboBox<String> getElongationModeComboBox() { return elongationModeComboBox; }
 
-    public double getForceVoltage2UnitConstant() { return Double.parseDouble(forceVoltage2UnitConstant.getText().trim()); }
+    /**
+     * @return the force calibration from volts to pounds
+     * @throws IllegalArgumentException if the field is not a valid calibration
+     */
+    public CalibrationCurve getForceCalibration() { return CalibrationCurve.parse(forceVoltage2UnitConstant.getText()); }
 
-    public double getElongationVoltage2UnitConstant() { return Double.parseDouble(elongationVoltage2UnitConstant.getText().trim()); }
+    /**
+     * @return the elongation calibration from volts to inches
+     * @throws IllegalArgumentException if the field is not a valid calibration
+     */
+    public CalibrationCurve getElongationCalibration() { return CalibrationCurve.parse(elongationVoltage2UnitConstant.getText()); }
 
     public JTextField getForceVoltage2UnitConstantField(){
         return forceVoltage2UnitConstant;
@@ -272,6 +653,129 @@ public class SettingsView extends JFrame{
         return elongationVoltage2UnitConstant;
     }
 
+    public JTextField getTareWindowField(){ return tareWindowField; }
+
+    public JTextField getTareNoiseField(){ return tareNoiseField; }
+
+    public JTextField getTareDriftField(){ return tareDriftField; }
+
+    public JCheckBox getDriftCorrectionCheckBox(){ return driftCorrectionCheckBox; }
+
+    public double getTareSeconds(){ return Double.parseDouble(tareWindowField.getText().trim()); }
+
+    public double getTareNoiseLimit(){ return Double.parseDouble(tareNoiseField.getText().trim()); }
+
+    public double getTareDriftLimit(){ return Double.parseDouble(tareDriftField.getText().trim()); }
+
+    public boolean isDriftCorrected(){ return driftCorrectionCheckBox.isSelected(); }
+
+    public JTextField getModulusFromField(){ return modulusFromField; }
+
+    public JTextField getModulusToField(){ return modulusToField; }
+
+    public JTextField getModulusPointsField(){ return modulusPointsField; }
+
+    public double getModulusFromStrain(){ return Double.parseDouble(modulusFromField.getText().trim()); }
+
+    public double getModulusToStrain(){ return Double.parseDouble(modulusToField.getText().trim()); }
+
+    public int getModulusPoints(){ return Integer.parseInt(modulusPointsField.getText().trim()); }
+
+    public JTextField getForceFilterField(){ return forceFilterField; }
+
+    public JTextField getElongationFilterField(){ return elongationFilterField; }
+
+    public String getForceFilter(){ return forceFilterField.getText().trim(); }
+
+    public String getElongationFilter(){ return elongationFilterField.getText().trim(); }
+
+    public double getSampleRate(){ return Double.parseDouble(sampleRateField.getText().trim()); }
+
+    public double getDisplayRate(){ return Double.parseDouble(displayRateField.getText().trim()); }
+
+    public JTextField getSampleRateField(){ return sampleRateField; }
+
+    public JTextField getDisplayRateField(){ return displayRateField; }
+
+    public JTextArea getExtraChannelsArea(){ return extraChannelsArea; }
+
+    public JTextField getDeviceNamesField(){ return deviceNamesField; }
+
+    public JComboBox<String> getTriggerChannelComboBox(){ return triggerChannelComboBox; }
+
+    public JTextField getTriggerLevelField(){ return triggerLevelField; }
+
+    public JTextField getPreTriggerField(){ return preTriggerField; }
+
+    /**
+     * @return the name of the channel that starts recording, or null if recording starts straight away
+     */
+    public String getTriggerChannel(){
+        String channel = (String) triggerChannelComboBox.getSelectedItem();
+        return channel.equals("Off") ? null : channel;
+    }
+
+    public double getTriggerLevel(){ return Double.parseDouble(triggerLevelField.getText().trim()); }
+
+    public JTextField getHardwareTriggerField(){ return hardwareTriggerField; }
+
+    public JComboBox<String> getHardwareTriggerEdgeComboBox(){ return hardwareTriggerEdgeComboBox; }
+
+    /**
+     * @return the terminal the hardware start trigger is wired to, or null to start from the Start button
+     */
+    public String getHardwareTrigger(){
+        String terminal = hardwareTriggerField.getText().trim();
+        return terminal.isEmpty() ? null : terminal;
+    }
+
+    public boolean isHardwareTriggerRising(){ return hardwareTriggerEdgeComboBox.getSelectedItem().equals("Rising"); }
+
+    public double getPreTriggerSeconds(){ return Double.parseDouble(preTriggerField.getText().trim()); }
+
+    public JTextField getReconnectTimeoutField(){ return reconnectTimeoutField; }
+
+    public double getReconnectTimeout(){ return Double.parseDouble(reconnectTimeoutField.getText().trim()); }
+
+    /**
+     * @return the device for each test frame, in the order they are listed
+     */
+    public List<String> getDeviceNames(){
+        List<String> devices = new ArrayList<>();
+        for(String device : deviceNamesField.getText().split(",")){
+            if(!device.trim().isEmpty()){
+                devices.add(device.trim());
+            }
+        }
+        return devices;
+    }
+
+    /**
+     * Parses the extra channels, one per non-blank line
+     * @return the extra channels in the order they are listed
+     * @throws IllegalArgumentException if any line is not a valid channel
+     */
+    public List<ChannelConfig> getExtraChannels(){
+        List<ChannelConfig> channels = new ArrayList<>();
+        for(String line : extraChannelsArea.getText().split("\n")){
+            if(!line.trim().isEmpty()){
+                channels.add(ChannelConfig.parse(line));
+            }
+        }
+        return channels;
+    }
+
+    /**
+     * @return every channel to read, force first, then elongation, then the extra channels
+     */
+    public List<ChannelConfig> getChannelConfigs(){
+        List<ChannelConfig> channels = new ArrayList<>();
+        channels.add(new ChannelConfig(ChannelConfig.FORCE, getForceChannel(), getForceMode(), getForceCalibration(), 0, getForceFilter()));
+        channels.add(new ChannelConfig(ChannelConfig.ELONGATION, getElongationChannel(), getElongationMode(), getElongationCalibration(), 0, getElongationFilter()));
+        channels.addAll(getExtraChannels());
+        return channels;
+    }
+
     public int getForceChannel(){
         return (Integer) forceChannelComboBox.getSelectedItem();
     }
@@ -0,0 +1,241 @@
+package controller;
+
+import kirkwood.nidaq.access.NiDaqException;
+import model.BlockListener;
+import model.ReplaySource;
+import model.SampleBlock;
+import model.SampleSource;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AcquisitionThreadTest {
+
+    private static final int DEVICE_REMOVED = -200045; //DAQmxErrorDeviceRemoved
+    private static final long WAIT_MILLIS = 5000;
+    private static final int LOST_BLOCKS = 3;
+
+    /*
+     * Plays synthetic samples like a device that can be unplugged. While unplugged every read fails, and reconnect
+     * fails a set number of times before it works. The samples the device took while unplugged are read and thrown
+     * away on reconnect, so they show up as a gap in the sample indices like they would on the real device
+     */
+    private static class FlakySource implements SampleSource {
+        private final ReplaySource replay = ReplaySource.synthetic(20, 10, 2);
+        private final SampleBlock lostBlock;
+        private volatile boolean connected = true;
+        private volatile int failuresLeft = 0;
+        private volatile int attempts = 0;
+
+        FlakySource() throws NiDaqException {
+            replay.createAIChannel(0, Mode.DIFFERENTIAL);
+            replay.createAIChannel(1, Mode.DIFFERENTIAL);
+            replay.readyToRun();
+            lostBlock = new SampleBlock(2, replay.getBlockCapacity());
+        }
+
+        void unplug(int failedReconnects){
+            failuresLeft = failedReconnects;
+            connected = false;
+        }
+
+        int getAttempts(){
+            return attempts;
+        }
+
+        @Override
+        public void readBlock(SampleBlock block) throws NiDaqException {
+            if(!connected){
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    //do nothing
+                }
+                throw new NiDaqException(DEVICE_REMOVED);
+            }
+            replay.readBlock(block);
+        }
+
+        @Override
+        public boolean supportsReconnect(){ return true; }
+
+        @Override
+        public void reconnect() throws NiDaqException {
+            attempts++;
+            if(failuresLeft > 0){
+                failuresLeft--;
+                throw new NiDaqException(DEVICE_REMOVED);
+            }
+            for(int k = 0; k < LOST_BLOCKS; k++){
+                replay.readBlock(lostBlock);
+            }
+            connected = true;
+        }
+
+        @Override
+        public void createAIChannel(int channelNumber, Mode channelMode){}
+        @Override
+        public void setSampleRate(double samplesPerSecond){}
+        @Override
+        public double getSampleRate(){ return replay.getSampleRate(); }
+        @Override
+        public int getSamplesPerBlock(){ return replay.getSamplesPerBlock(); }
+        @Override
+        public int getBlockCapacity(){ return replay.getBlockCapacity(); }
+        @Override
+        public void setStartTrigger(String terminal, boolean risingEdge){}
+        @Override
+        public void setStartTriggerArmed(boolean armed){}
+        @Override
+        public void readyToRun(){}
+        @Override
+        public void collectData(){}
+        @Override
+        public double getChannelData(int channelNumber){ return 0.0; }
+        @Override
+        public double[] getRawChannelData(int channelNumber){ return new double[0]; }
+        @Override
+        public void start(){}
+        @Override
+        public void pause(){ replay.pause(); }
+        @Override
+        public boolean supportsBlockEvents(){ return false; }
+        @Override
+        public void setBlockListener(BlockListener listener){ throw new UnsupportedOperationException(); }
+        @Override
+        public void close(){}
+        @Override
+        public long getAvailableSamples(){ return replay.getAvailableSamples(); }
+        @Override
+        public long getBacklog(){ return 0; }
+        @Override
+        public double getReadLatency(){ return 0.0; }
+        @Override
+        public long getOverruns(){ return 0; }
+        @Override
+        public int getChannels(){ return replay.getChannels(); }
+    }
+
+    private interface Condition {
+        boolean holds();
+    }
+
+    private static void waitFor(Condition condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while(!condition.holds()){
+            if(System.currentTimeMillis() > deadline){
+                fail("timed out");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /*
+     * Takes blocks until the given number have arrived, handing each back, and returns the index each one starts at
+     */
+    private static List<Long> takeIndices(AcquisitionThread acquisition, int blocks) throws InterruptedException {
+        List<Long> indices = new ArrayList<>();
+        while(indices.size() < blocks){
+            SampleBlock block = acquisition.take(WAIT_MILLIS);
+            assertNotNull(block);
+            indices.add(block.getSampleIndex(0));
+            acquisition.release(block);
+        }
+        return indices;
+    }
+
+    private static AcquisitionThread start(FlakySource source, long reconnectTimeout) throws NiDaqException {
+        AcquisitionThread acquisition = new AcquisitionThread(source, 0, reconnectTimeout);
+        new Thread(acquisition).start();
+        acquisition.collect();
+        return acquisition;
+    }
+
+    @Test
+    void reconnectsAndSkipsTheLostSamples() throws Exception {
+        FlakySource source = new FlakySource();
+        AcquisitionThread acquisition = start(source, WAIT_MILLIS);
+        try {
+            List<Long> indices = takeIndices(acquisition, 3);
+            source.unplug(2);
+            waitFor(() -> acquisition.getReconnects() == 1 && !acquisition.isReconnecting());
+            assertFalse(acquisition.hasFailed());
+            assertEquals(3, source.getAttempts());
+
+            //every block follows on from the one before, except one gap where the lost blocks were
+            indices.addAll(takeIndices(acquisition, 3));
+            int blockSize = source.getSamplesPerBlock();
+            int gaps = 0;
+            for(int k = 1; k < indices.size(); k++){
+                long step = indices.get(k) - indices.get(k - 1);
+                if(step != blockSize){
+                    assertEquals((LOST_BLOCKS + 1) * blockSize, step);
+                    gaps++;
+                }
+            }
+            assertEquals(1, gaps);
+        } finally {
+            acquisition.terminate();
+        }
+    }
+
+    @Test
+    void givesUpAfterTheTimeoutUntilTheNextCollect() throws Exception {
+        FlakySource source = new FlakySource();
+        AcquisitionThread acquisition = start(source, 300);
+        try {
+            takeIndices(acquisition, 1);
+            source.unplug(Integer.MAX_VALUE);
+            waitFor(() -> acquisition.hasFailed() && !acquisition.isReconnecting());
+            assertEquals(0, acquisition.getReconnects());
+            //retries back off from 100 ms, so 300 ms allows a handful of attempts and then stops
+            int attempts = source.getAttempts();
+            assertTrue(attempts >= 2 && attempts <= 5, attempts + " attempts");
+            Thread.sleep(300);
+            assertEquals(attempts, source.getAttempts());
+
+            //the device is still flagged as lost, so the next collect tries again
+            source.unplug(0);
+            acquisition.collect();
+            waitFor(() -> acquisition.getReconnects() == 1);
+            assertFalse(acquisition.hasFailed());
+            takeIndices(acquisition, 1);
+        } finally {
+            acquisition.terminate();
+        }
+    }
+
+    @Test
+    void countsBlocksDroppedWhileTheQueueIsFull() throws Exception {
+        FlakySource source = new FlakySource();
+        AcquisitionThread acquisition = start(source, 0);
+        try {
+            //nothing is taken, so once the queue fills every block read is dropped
+            waitFor(() -> acquisition.getDroppedBlocks() >= 3);
+            acquisition.pause();
+            Thread.sleep(100);
+
+            List<Long> queued = new ArrayList<>();
+            SampleBlock block;
+            while((block = acquisition.take(0)) != null){
+                queued.add(block.getSampleIndex(0));
+                acquisition.release(block);
+            }
+            assertEquals(AcquisitionThread.QUEUE_CAPACITY, queued.size());
+            int blockSize = source.getSamplesPerBlock();
+            for(int k = 0; k < queued.size(); k++){
+                assertEquals((long) k * blockSize, (long) queued.get(k));
+            }
+
+            //the dropped blocks are missing from the indices, the next block starts after all of them
+            long dropped = acquisition.getDroppedBlocks();
+            acquisition.collect();
+            assertEquals((queued.size() + dropped) * blockSize, (long) takeIndices(acquisition, 1).get(0));
+        } finally {
+            acquisition.terminate();
+        }
+    }
+}
@@ -148,4 +148,10 @@ class CalculationsTest {
     void calculateAreaCircle() {
         assertEquals(Math.PI * 3.254 * 3.254, Calculations.calculateArea(6.508), DELTA);
     }//added delta
-}
\ No newline at end of file
+
+    @Test
+    void calculateOffsetStress(){
+        assertEquals(200000 * (0.005 - 0.002) + 4, Calculations.calculateOffsetStress(0.005, 200000, 4, 0.002), DELTA);
+        assertEquals(4, Calculations.calculateOffsetStress(0.002, 200000, 4, 0.002), DELTA);
+    }
+}
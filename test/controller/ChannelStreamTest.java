@@ -0,0 +1,117 @@
+package controller;
+
+import model.ChannelConfig;
+import model.SampleBlock;
+import model.SampleSource;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChannelStreamTest {
+
+    private static final double SAMPLE_RATE = 100.0;
+    private static final int DECIMATION = 20;
+    private static final long STEP_INDEX = 1000;
+    private static final int BLOCK_SIZE = 50;
+    private static final double INDEX_DELTA = 2.0;
+    private static final double DELTA = 0.000001;
+
+    /*
+     * A one channel block holding a step from 0 V to 1 V at STEP_INDEX
+     */
+    private static class Block extends SampleBlock {
+        Block(long firstIndex){
+            super(1, BLOCK_SIZE);
+            setSamplesPerChannel(BLOCK_SIZE);
+            setFirstSampleIndex(firstIndex);
+            for(int i = 0; i < BLOCK_SIZE; i++){
+                setSample(0, i, firstIndex + i < STEP_INDEX ? 0.0 : 1.0);
+            }
+        }
+    }
+
+    /*
+     * Runs the step through a stream and returns the sample index the points cross half way at,
+     * interpolating between the points either side
+     */
+    private static double stepCrossing(ChannelStream stream){
+        List<Long> indices = new ArrayList<>();
+        List<Double> volts = new ArrayList<>();
+        for(long first = 0; first < 3 * STEP_INDEX; first += BLOCK_SIZE){
+            stream.filter(new Block(first), 0);
+            for(int i = 0; i < BLOCK_SIZE; i++){
+                if(stream.addFiltered(i)){
+                    indices.add(stream.getSampleIndex());
+                    volts.add(stream.getVoltage());
+                }
+            }
+        }
+        for(int k = 1; k < volts.size(); k++){
+            if(volts.get(k - 1) < 0.5 && volts.get(k) >= 0.5){
+                double before = indices.get(k - 1);
+                double after = indices.get(k);
+                return before + (0.5 - volts.get(k - 1)) / (volts.get(k) - volts.get(k - 1)) * (after - before);
+            }
+        }
+        fail("the points never crossed 0.5 V");
+        return 0.0;
+    }
+
+    private static ChannelStream stream(int filterWindow, String filter){
+        return stream(1, filterWindow, filter);
+    }
+
+    private static ChannelStream stream(double unitsPerVolt, int filterWindow, String filter){
+        ChannelConfig config = new ChannelConfig(ChannelConfig.FORCE, 0, SampleSource.Mode.DIFFERENTIAL, unitsPerVolt, filterWindow, filter);
+        return new ChannelStream(config, 0, DECIMATION, SAMPLE_RATE);
+    }
+
+    @Test
+    void decimatedStepLandsAtItsSample(){
+        ChannelStream stream = stream(0, "None");
+        assertTrue(stream.getDelay() > DECIMATION);
+        //the step's half way point is between the last 0 V sample and the first 1 V sample
+        assertEquals(STEP_INDEX - 0.5, stepCrossing(stream), INDEX_DELTA);
+    }
+
+    @Test
+    void filteredStepLandsAtItsSample(){
+        ChannelStream stream = stream(0, "sg:21:2+ma:5");
+        assertEquals(STEP_INDEX - 0.5, stepCrossing(stream), INDEX_DELTA);
+    }
+
+    @Test
+    void averagedStepLandsAtItsSample(){
+        ChannelStream stream = stream(3, "None");
+        assertEquals(STEP_INDEX - 0.5, stepCrossing(stream), INDEX_DELTA);
+    }
+
+    @Test
+    void valueIsCalibratedFromTheZero(){
+        ChannelStream stream = stream(2, 0, "None");
+        stream.setZero(0.25, 0.0, 0, 0);
+        stepCrossing(stream);
+        //long after the step the points have settled at 1 V, 0.75 V above the zero
+        assertEquals(1.5, stream.getValue(), DELTA);
+    }
+
+    @Test
+    void resetForgetsTheAveragedPoints(){
+        ChannelStream stream = stream(3, "None");
+        stepCrossing(stream);
+        assertEquals(1.0, stream.getVoltage(), DELTA);
+        stream.reset();
+        //the points from before the reset would pull the first new one up towards 1 V
+        boolean pointReady = false;
+        for(long first = 0; !pointReady; first += BLOCK_SIZE){
+            stream.filter(new Block(first), 0);
+            for(int i = 0; i < BLOCK_SIZE && !pointReady; i++){
+                pointReady = stream.addFiltered(i);
+            }
+        }
+        assertEquals(0.0, stream.getVoltage(), DELTA);
+    }
+}
@@ -0,0 +1,96 @@
+package controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecimatorTest {
+
+    private static final double DELTA = 0.000001;
+
+    @Test
+    void factorOfOnePassesSamplesThrough(){
+        Decimator decimator = new Decimator(1);
+        for(double sample : new double[]{1.5, -2, 7}){
+            assertTrue(decimator.addData(sample));
+            assertEquals(sample, decimator.getValue(), DELTA);
+        }
+    }
+
+    @Test
+    void outputsOncePerFactorFromASettledStart(){
+        Decimator decimator = new Decimator(10);
+        int outputs = 0;
+        for(int n = 1; n <= 1000; n++){
+            boolean ready = decimator.addData(3.7);
+            assertEquals(n % 10 == 0, ready);
+            if(ready){
+                outputs++;
+                assertEquals(3.7, decimator.getValue(), DELTA);
+            }
+        }
+        assertEquals(100, outputs);
+    }
+
+    @Test
+    void passesSlowSignalsAndRejectsAliases(){
+        int factor = 20;
+        //a tenth of the output Nyquist frequency comes through, one and a half times it would alias and must not
+        assertEquals(Math.sqrt(0.5), outputRms(factor, 0.1 * 0.5 / factor), 0.03);
+        assertTrue(outputRms(factor, 1.5 * 0.5 / factor) < 0.005);
+    }
+
+    /*
+     * Root mean square of the decimated output for a unit sine, once the filter has filled
+     */
+    private static double outputRms(int factor, double cyclesPerSample){
+        Decimator decimator = new Decimator(factor);
+        double squares = 0.0;
+        int count = 0;
+        for(int n = 0; n < factor * 2000; n++){
+            if(decimator.addData(Math.sin(2 * Math.PI * cyclesPerSample * n)) && n > factor * 100){
+                squares += decimator.getValue() * decimator.getValue();
+                count++;
+            }
+        }
+        return Math.sqrt(squares / count);
+    }
+
+    @Test
+    void resetStartsAgainFromTheNextSample(){
+        Decimator decimator = new Decimator(4);
+        for(int n = 0; n < 6; n++){
+            decimator.addData(100);
+        }
+        decimator.reset();
+        for(int n = 0; n < 3; n++){
+            assertFalse(decimator.addData(-1));
+        }
+        assertTrue(decimator.addData(-1));
+        assertEquals(-1, decimator.getValue(), DELTA);
+    }
+
+    @Test
+    void multirateSplitsLargeFactorsIntoShortSteps(){
+        MultirateDecimator decimator = MultirateDecimator.forFactor(200);
+        assertEquals(3, decimator.getLevels());
+        assertEquals(8, decimator.getFactor(0));
+        assertEquals(40, decimator.getFactor(1));
+        assertEquals(200, decimator.getFactor());
+        assertEquals(1, MultirateDecimator.forFactor(13).getLevels());
+        assertEquals(13, MultirateDecimator.forFactor(13).getFactor());
+    }
+
+    @Test
+    void multirateGivesEveryLevelAtItsOwnRate(){
+        MultirateDecimator decimator = new MultirateDecimator(2, 5);
+        int[] updates = new int[3];
+        for(int n = 0; n < 100; n++){
+            updates[decimator.addData(-4.25)]++;
+        }
+        //50 samples reach no new level, 40 only the first and 10 both
+        assertArrayEquals(new int[]{50, 40, 10}, updates);
+        assertEquals(-4.25, decimator.getValue(0), DELTA);
+        assertEquals(-4.25, decimator.getValue(), DELTA);
+    }
+}
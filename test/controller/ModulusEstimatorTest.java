@@ -0,0 +1,120 @@
+package controller;
+
+import input.test.LinearRegression;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModulusEstimatorTest {
+
+    private static final double DELTA = 0.000001;
+
+    @Test
+    void fitsTheElasticLine(){
+        ModulusEstimator estimator = new ModulusEstimator(0.0005, 0.0025, 0);
+        for(int i = 0; i <= 100; i++){
+            double strain = 0.00003 * i;
+            estimator.add(strain, 200000 * strain + 3);
+        }
+        assertEquals(200000, estimator.getModulus(), 0.001);
+        assertEquals(3, estimator.getIntercept(), 0.0001);
+        assertEquals(1, estimator.getRSquared(), DELTA);
+    }
+
+    @Test
+    void ignoresPointsOutsideTheRange(){
+        ModulusEstimator estimator = new ModulusEstimator(0.001, 0.002, 0);
+        assertFalse(estimator.add(0.0005, 100));
+        assertTrue(estimator.add(0.001, 200));
+        assertTrue(estimator.add(0.002, 400));
+        assertFalse(estimator.add(0.003, 0));
+        assertFalse(estimator.add(0.0015, Double.NaN));
+        assertEquals(2, estimator.getPoints());
+        assertEquals(200000, estimator.getModulus(), 0.001);
+    }
+
+    @Test
+    void waitsForTwoDifferentStrains(){
+        ModulusEstimator estimator = new ModulusEstimator(0, 1, 0);
+        assertTrue(Double.isNaN(estimator.getModulus()));
+        estimator.add(0.5, 10);
+        estimator.add(0.5, 12);
+        assertTrue(Double.isNaN(estimator.getModulus()));
+    }
+
+    @Test
+    void matchesLinearRegressionOnNoisyPoints(){
+        Random random = new Random(3);
+        ModulusEstimator estimator = new ModulusEstimator(0, 0.01, 0);
+        double[] x = new double[500];
+        double[] y = new double[x.length];
+        for(int i = 0; i < x.length; i++){
+            x[i] = 0.00002 * i;
+            y[i] = 29000 * x[i] + random.nextGaussian() * 0.5;
+            estimator.add(x[i], y[i]);
+        }
+        LinearRegression regression = new LinearRegression(x, y);
+        assertEquals(regression.slope(), estimator.getModulus(), regression.slope() * 1e-9);
+        assertEquals(regression.intercept(), estimator.getIntercept(), 1e-9);
+        assertEquals(regression.R2(), estimator.getRSquared(), 1e-9);
+    }
+
+    @Test
+    void slidingFitFollowsTheLatestPoints(){
+        ModulusEstimator estimator = new ModulusEstimator(0, 1, 10);
+        for(int i = 0; i < 1000; i++){
+            double strain = 0.001 * i;
+            //the slope changes halfway, only the last 10 points should count
+            estimator.add(strain, strain < 0.5 ? 1000 * strain : 500 + 50 * (strain - 0.5));
+        }
+        assertEquals(10, estimator.getPoints());
+        assertEquals(50, estimator.getModulus(), 0.0001);
+    }
+
+    /*
+     * Slides a 50 point fit over 10^6 points that switch between a very stiff and a very soft line, then checks
+     * the last window against LinearRegression. Taking the stiff points back off the sums leaves rounding behind
+     * that swamps the soft line unless the sums are rebuilt
+     */
+    @Test
+    void slidingFitStaysExactOverLongRuns(){
+        int window = 50;
+        Random random = new Random(7);
+        ModulusEstimator estimator = new ModulusEstimator(0, 1, window);
+        double[] x = new double[window];
+        double[] y = new double[window];
+        for(int n = 0; n < 1_000_000; n++){
+            double strain = random.nextDouble();
+            double stress = (n / 10_000) % 2 == 0 ? 1e7 * strain + 1e6 : 2 * strain + random.nextGaussian() * 0.01;
+            x[n % window] = strain;
+            y[n % window] = stress;
+            estimator.add(strain, stress);
+        }
+        LinearRegression regression = new LinearRegression(x, y);
+        assertEquals(regression.slope(), estimator.getModulus(), Math.abs(regression.slope()) * 1e-9);
+        assertEquals(regression.intercept(), estimator.getIntercept(), 1e-9);
+        assertEquals(regression.R2(), estimator.getRSquared(), 1e-9);
+    }
+
+    @Test
+    void resetStartsANewFit(){
+        ModulusEstimator estimator = new ModulusEstimator(0, 1, 0);
+        estimator.add(0.1, 10);
+        estimator.add(0.2, 20);
+        estimator.reset();
+        assertEquals(0, estimator.getPoints());
+        assertTrue(Double.isNaN(estimator.getModulus()));
+        estimator.add(0.3, 3);
+        estimator.add(0.4, 5);
+        assertEquals(20, estimator.getModulus(), DELTA);
+    }
+
+    @Test
+    void rejectsBadRanges(){
+        assertThrows(IllegalArgumentException.class, () -> new ModulusEstimator(0.002, 0.001, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ModulusEstimator(0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ModulusEstimator(0, 1, -5));
+    }
+}
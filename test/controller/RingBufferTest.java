@@ -0,0 +1,50 @@
+package controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferTest {
+
+    @Test
+    void keepsItemsOldestFirst(){
+        RingBuffer<Integer> ring = new RingBuffer<>(3);
+        assertNull(ring.add(1));
+        assertNull(ring.add(2));
+        assertEquals(2, ring.size());
+        assertEquals(1, (int) ring.get(0));
+        assertEquals(2, (int) ring.get(1));
+    }
+
+    @Test
+    void evictsOldestWhenFull(){
+        RingBuffer<Integer> ring = new RingBuffer<>(3);
+        for(int i = 1; i <= 3; i++){
+            ring.add(i);
+        }
+        assertEquals(1, (int) ring.add(4));
+        assertEquals(2, (int) ring.add(5));
+        assertEquals(3, ring.size());
+        assertEquals(3, (int) ring.get(0));
+        assertEquals(5, (int) ring.get(2));
+    }
+
+    @Test
+    void clearEmptiesBuffer(){
+        RingBuffer<Integer> ring = new RingBuffer<>(2);
+        ring.add(1);
+        ring.add(2);
+        ring.add(3);
+        ring.clear();
+        assertEquals(0, ring.size());
+        assertNull(ring.add(4));
+        assertEquals(4, (int) ring.get(0));
+    }
+
+    @Test
+    void getOutsideBufferFails(){
+        RingBuffer<Integer> ring = new RingBuffer<>(2);
+        ring.add(1);
+        assertThrows(IndexOutOfBoundsException.class, () -> ring.get(1));
+    }
+}
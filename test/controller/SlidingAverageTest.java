@@ -0,0 +1,64 @@
+package controller;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingAverageTest {
+
+    private static final double DELTA = 0.000001;
+
+    @Test
+    void averagesTheLastWindow(){
+        SlidingAverage average = new SlidingAverage(3);
+        assertEquals(3, average.addData(3), DELTA);
+        assertEquals(4, average.addData(5), DELTA);
+        assertEquals(5, average.addData(7), DELTA);
+        assertEquals(7, average.addData(9), DELTA);
+    }
+
+    @Test
+    void resetEmptiesTheWindow(){
+        SlidingAverage average = new SlidingAverage(3);
+        average.addData(100);
+        average.addData(200);
+        average.reset();
+        assertEquals(1, average.addData(1), DELTA);
+    }
+
+    /*
+     * Feeds 5 * 10^6 samples that switch between a large load and near zero every 10^5 samples, like a
+     * long creep test that is loaded and unloaded, and compares the final average against an exact re-summation.
+     * Plain add-then-subtract totals leave rounding from the large values behind that swamps the small ones,
+     * a plain running total is kept alongside to show these inputs are enough to make it fail
+     */
+    @Test
+    void staysExactOverLongRuns(){
+        int window = 50;
+        SlidingAverage average = new SlidingAverage(window);
+        double[] lastWindow = new double[window];
+        long seed = 42;
+        double result = 0.0;
+        double naiveTotal = 0.0;
+        for(long n = 0; n < 5_000_000L; n++){
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            double noise = (seed >>> 11) * 0x1.0p-53 - 0.5;
+            double sample = (n / 100_000) % 2 == 0 ? 1e6 + noise : noise * 1e-3;
+            naiveTotal += sample - (n >= window ? lastWindow[(int) (n % window)] : 0.0);
+            lastWindow[(int) (n % window)] = sample;
+            result = average.addData(sample);
+        }
+
+        BigDecimal total = BigDecimal.ZERO;
+        for(double sample : lastWindow){
+            total = total.add(new BigDecimal(sample));
+        }
+        double exact = total.divide(new BigDecimal(window), MathContext.DECIMAL128).doubleValue();
+        double tolerance = Math.abs(exact) * 1e-12;
+        assertEquals(exact, result, tolerance);
+        assertTrue(Math.abs(naiveTotal / window - exact) > 1000 * tolerance, "the plain total should have drifted");
+    }
+}
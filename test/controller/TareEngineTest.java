@@ -0,0 +1,113 @@
+package controller;
+
+import model.ChannelConfig;
+import model.SampleBlock;
+import model.SampleSource;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TareEngineTest {
+
+    private static final double DELTA = 0.000001;
+    private static final double SAMPLE_RATE = 1000.0;
+    private static final List<ChannelConfig> CHANNELS = Arrays.asList(
+            new ChannelConfig(ChannelConfig.FORCE, 0, SampleSource.Mode.DIFFERENTIAL, 1, 0),
+            new ChannelConfig(ChannelConfig.ELONGATION, 1, SampleSource.Mode.DIFFERENTIAL, 1, 0));
+
+    /*
+     * A block filled with a known signal on each channel
+     */
+    private static class Block extends SampleBlock {
+        Block(long firstIndex, int samples, Signal force, Signal elongation){
+            super(2, samples);
+            setSamplesPerChannel(samples);
+            setFirstSampleIndex(firstIndex);
+            for(int i = 0; i < samples; i++){
+                setSample(0, i, force.at(firstIndex + i));
+                setSample(1, i, elongation.at(firstIndex + i));
+            }
+        }
+    }
+
+    private interface Signal {
+        double at(long index);
+    }
+
+    private static void feed(TareEngine tare, long firstIndex, Signal force, Signal elongation){
+        for(long index = firstIndex; !tare.isComplete(); index += 100){
+            tare.add(new Block(index, 100, force, elongation));
+        }
+    }
+
+    @Test
+    void measuresMeanSpreadAndDrift(){
+        TareEngine tare = new TareEngine(CHANNELS, 2000, SAMPLE_RATE, 0, 0);
+        //force alternates 0.01 V either side of 1.5 V, elongation ramps 0.002 V a second from -0.2 V
+        feed(tare, 5000, index -> 1.5 + (index % 2 == 0 ? 0.01 : -0.01), index -> -0.2 + 0.002 * (index - 5000) / SAMPLE_RATE);
+        assertTrue(tare.isComplete());
+        assertEquals(2000, tare.getCount());
+
+        assertEquals(1.5, tare.getMean(0), DELTA);
+        assertEquals(0.01, tare.getStandardDeviation(0), 0.0001);
+        assertEquals(0.0, tare.getDrift(0), 0.0001);
+        assertEquals(1.5, tare.getZero(0), 0.0001);
+
+        assertEquals(0.002, tare.getDrift(1), DELTA);
+        assertEquals(0.0, tare.getNoise(1), DELTA);
+        //the zero is where the drift has got to by the end of the window
+        assertEquals(6999, tare.getLastIndex());
+        assertEquals(-0.2 + 0.002 * 1999 / SAMPLE_RATE, tare.getZero(1), DELTA);
+        assertNull(tare.getRejection());
+    }
+
+    @Test
+    void followsTheDriftLongerForLongerWindows(){
+        TareEngine shortTare = new TareEngine(CHANNELS, 1000, SAMPLE_RATE, 0, 0);
+        feed(shortTare, 0, index -> 0.0, index -> 0.0);
+        //the square root of the spread of the sample times, n(n^2 - 1)/12
+        assertEquals((long) Math.sqrt(1000.0 * (1000.0 * 1000.0 - 1) / 12), shortTare.getDriftHorizon());
+
+        TareEngine longTare = new TareEngine(CHANNELS, 4000, SAMPLE_RATE, 0, 0);
+        feed(longTare, 0, index -> 0.0, index -> 0.0);
+        //four times the window follows the drift eight times as long
+        assertEquals(8.0, (double) longTare.getDriftHorizon() / shortTare.getDriftHorizon(), 0.01);
+    }
+
+    @Test
+    void ignoresSamplesPastTheWindow(){
+        TareEngine tare = new TareEngine(CHANNELS, 150, SAMPLE_RATE, 0, 0);
+        tare.add(new Block(0, 100, index -> 1.0, index -> 0.0));
+        tare.add(new Block(100, 100, index -> index < 150 ? 1.0 : 100.0, index -> 0.0));
+        assertEquals(150, tare.getCount());
+        assertEquals(1.0, tare.getMean(0), DELTA);
+    }
+
+    @Test
+    void rejectsNoisyOrDriftingSignals(){
+        TareEngine noisy = new TareEngine(CHANNELS, 1000, SAMPLE_RATE, 0.005, 0);
+        feed(noisy, 0, index -> index % 2 == 0 ? 0.01 : -0.01, index -> 0.0);
+        assertNotNull(noisy.getRejection());
+        assertTrue(noisy.getRejection().startsWith(ChannelConfig.FORCE));
+
+        //a steady ramp is not noise, only drift
+        TareEngine drifting = new TareEngine(CHANNELS, 1000, SAMPLE_RATE, 0.005, 0.01);
+        feed(drifting, 0, index -> 0.0, index -> 0.05 * index / SAMPLE_RATE);
+        assertNotNull(drifting.getRejection());
+        assertTrue(drifting.getRejection().startsWith(ChannelConfig.ELONGATION));
+    }
+
+    @Test
+    void resetStartsANewTare(){
+        TareEngine tare = new TareEngine(CHANNELS, 500, SAMPLE_RATE, 0, 0);
+        feed(tare, 0, index -> 3.0, index -> 3.0);
+        tare.reset();
+        assertFalse(tare.isComplete());
+        feed(tare, 10000, index -> 1.0, index -> 2.0);
+        assertEquals(1.0, tare.getZero(0), DELTA);
+        assertEquals(2.0, tare.getZero(1), DELTA);
+    }
+}
@@ -0,0 +1,116 @@
+package controller;
+
+import controller.Calculations.Units;
+import model.CalibrationCurve;
+import model.PiecewiseLinearCalibration;
+import model.PolynomialCalibration;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestSnapshotTest {
+
+    private static final double DELTA = 0.000001;
+    private static final double POUNDS_PER_VOLT = 1000.0;
+    private static final double INCHES_PER_VOLT = 0.5;
+    private static final CalibrationCurve FORCE = CalibrationCurve.linear(POUNDS_PER_VOLT);
+    private static final CalibrationCurve ELONGATION = CalibrationCurve.linear(INCHES_PER_VOLT);
+
+    /*
+     * Stress and strain worked out step by step the way each point used to be converted
+     */
+    private static double[] convert(Units units, double area, double gaugeLength, double forceVolts, double elongationVolts,
+                                    double forceZero, double elongationZero){
+        double force = POUNDS_PER_VOLT * (forceVolts - forceZero);
+        double elongation = INCHES_PER_VOLT * (elongationVolts - elongationZero);
+        if(units == Units.METRIC){
+            force = Calculations.convertForce(Units.ENGLISH, Units.METRIC, force);
+            elongation = Calculations.convertLength(Units.ENGLISH, Units.METRIC, elongation);
+        }else{
+            force /= 1000;
+        }
+        return new double[]{Calculations.calculateStress(force, area), Calculations.calculateStrain(elongation, gaugeLength)};
+    }
+
+    @Test
+    void matchesStepByStepConversionInEnglishUnits(){
+        double area = Calculations.calculateArea(0.5, 0.25);
+        TestSnapshot snapshot = new TestSnapshot(Units.ENGLISH, area, 2.0, FORCE, ELONGATION);
+        double[] expected = convert(Units.ENGLISH, area, 2.0, 1.3, 0.02, 0, 0);
+        assertEquals(expected[0], snapshot.stress(1.3, 500), DELTA);
+        assertEquals(expected[1], snapshot.strain(0.02, 500), DELTA);
+    }
+
+    @Test
+    void matchesStepByStepConversionInMetricUnits(){
+        double area = Calculations.calculateArea(6.0);
+        TestSnapshot snapshot = new TestSnapshot(Units.METRIC, area, 50.0, FORCE, ELONGATION);
+        double[] expected = convert(Units.METRIC, area, 50.0, 2.1, 0.3, 0, 0);
+        assertEquals(expected[0], snapshot.stress(2.1, 0), DELTA);
+        assertEquals(expected[1], snapshot.strain(0.3, 0), DELTA);
+    }
+
+    @Test
+    void measuresFromTheTaredZeros(){
+        double area = Calculations.calculateArea(6.0);
+        TestSnapshot snapshot = new TestSnapshot(Units.METRIC, area, 50.0, FORCE, ELONGATION)
+                .withZeros(0.2, 0, -0.05, 0, 1000, 0);
+        double[] expected = convert(Units.METRIC, area, 50.0, 2.1, 0.3, 0.2, -0.05);
+        assertEquals(expected[0], snapshot.stress(2.1, 5000), DELTA);
+        assertEquals(expected[1], snapshot.strain(0.3, 5000), DELTA);
+        assertEquals(0, snapshot.stress(0.2, 5000), DELTA);
+    }
+
+    @Test
+    void followsDriftingZeros(){
+        TestSnapshot base = new TestSnapshot(Units.ENGLISH, 1.0, 1.0, FORCE, ELONGATION);
+        TestSnapshot snapshot = base.withZeros(0.1, 0.001, 0.2, -0.0005, 100, Long.MAX_VALUE);
+        //a reading sitting on the drifting zero is always zero stress and strain
+        for(long index = 100; index < 10000; index += 997){
+            assertEquals(0, snapshot.stress(0.1 + 0.001 * (index - 100), index), DELTA);
+            assertEquals(0, snapshot.strain(0.2 - 0.0005 * (index - 100), index), DELTA);
+        }
+        double[] expected = convert(Units.ENGLISH, 1.0, 1.0, 1.0, 0.5, 0.1 + 0.001 * 400, 0.2 - 0.0005 * 400);
+        assertEquals(expected[0], snapshot.stress(1.0, 500), DELTA);
+        assertEquals(expected[1], snapshot.strain(0.5, 500), DELTA);
+    }
+
+    @Test
+    void newZerosReplaceOldOnes(){
+        TestSnapshot base = new TestSnapshot(Units.ENGLISH, 1.0, 1.0, FORCE, ELONGATION);
+        TestSnapshot twice = base.withZeros(0.5, 0.01, 0.5, 0.01, 10, 1000).withZeros(0.1, 0, 0.2, 0, 0, 0);
+        TestSnapshot once = base.withZeros(0.1, 0, 0.2, 0, 0, 0);
+        assertEquals(once.stress(1.0, 300), twice.stress(1.0, 300), DELTA);
+        assertEquals(once.strain(1.0, 300), twice.strain(1.0, 300), DELTA);
+    }
+
+    @Test
+    void measuresCurvesFromTheirZeroReading(){
+        CalibrationCurve force = new PolynomialCalibration(5.0, 900.0, 40.0);
+        CalibrationCurve elongation = new PiecewiseLinearCalibration(new double[]{-1, 0, 1, 2}, new double[]{-0.4, 0, 0.5, 1.2});
+        TestSnapshot snapshot = new TestSnapshot(Units.ENGLISH, 0.2, 2.0, force, elongation).withZeros(0.1, 0, 0.05, 0, 0, 0);
+        double pounds = force.toUnits(2.0) - force.toUnits(0.1);
+        double inches = elongation.toUnits(1.5) - elongation.toUnits(0.05);
+        assertEquals(pounds / 1000 / 0.2, snapshot.stress(2.0, 100), DELTA);
+        assertEquals(inches / 2.0, snapshot.strain(1.5, 100), DELTA);
+        assertEquals(0, snapshot.stress(0.1, 100), DELTA);
+    }
+
+    @Test
+    void takesDriftOffTheVoltageBeforeTheCurve(){
+        CalibrationCurve force = new PolynomialCalibration(0.0, 1000.0, 100.0);
+        TestSnapshot snapshot = new TestSnapshot(Units.ENGLISH, 1.0, 1.0, force, ELONGATION).withZeros(0.2, 0.0001, 0, 0, 50, 5000);
+        //1000 samples on, the zero has drifted up by 0.1 volts
+        assertEquals((force.toUnits(1.0) - force.toUnits(0.2)) / 1000, snapshot.stress(1.1, 1050), DELTA);
+    }
+
+    @Test
+    void holdsTheZeroPastTheDriftHorizon(){
+        TestSnapshot snapshot = new TestSnapshot(Units.ENGLISH, 1.0, 1.0, FORCE, ELONGATION).withZeros(0.1, 0.001, 0.2, -0.0005, 100, 400);
+        //the zeros follow the drift for 400 samples, then stay where they got to
+        assertEquals(0, snapshot.stress(0.1 + 0.001 * 300, 400), DELTA);
+        assertEquals(0, snapshot.stress(0.1 + 0.001 * 400, 500), DELTA);
+        assertEquals(0, snapshot.stress(0.1 + 0.001 * 400, 100000), DELTA);
+        assertEquals(0, snapshot.strain(0.2 - 0.0005 * 400, 100000), DELTA);
+    }
+}
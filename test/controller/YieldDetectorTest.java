@@ -0,0 +1,93 @@
+package controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YieldDetectorTest {
+
+    private static final double DELTA = 0.000001;
+    private static final double MODULUS = 200000;
+    private static final double YIELD = 400;
+
+    /*
+     * Elastic up to the yield stress, then hardening slowly so the 0.2% offset line has something to cross
+     */
+    private static double stress(double strain){
+        double elastic = MODULUS * strain;
+        return elastic <= YIELD ? elastic : YIELD + 1000 * (strain - YIELD / MODULUS);
+    }
+
+    @Test
+    void findsTheOffsetCrossing(){
+        ModulusEstimator fit = new ModulusEstimator(0.0002, 0.0015, 0);
+        YieldDetector detector = new YieldDetector(fit, YieldDetector.DEFAULT_OFFSET);
+        int foundAt = -1;
+        for(int i = 0; i <= 1000; i++){
+            double strain = 0.00001 * i;
+            fit.add(strain, stress(strain));
+            if(detector.add(strain, stress(strain))){
+                foundAt = i;
+            }
+        }
+        assertTrue(detector.isFound());
+        //past the knee at 0.002 the stress is YIELD + 1000 (x - 0.002) and the offset line is MODULUS (x - 0.002)
+        double expectedStrain = 0.002 + YIELD / (MODULUS - 1000);
+        assertEquals(expectedStrain, detector.getYieldStrain(), 1e-9);
+        assertEquals(stress(expectedStrain), detector.getYieldStress(), 1e-6);
+        assertEquals(Math.ceil(expectedStrain / 0.00001), foundAt, DELTA);
+    }
+
+    @Test
+    void interpolatesBetweenSparsePoints(){
+        ModulusEstimator fit = new ModulusEstimator(0, 0.0015, 0);
+        YieldDetector detector = new YieldDetector(fit, 0.002);
+        double[][] points = {{0, 0}, {0.001, 200}, {0.0015, 300}, {0.003, 400}, {0.006, 450}};
+        for(double[] point : points){
+            fit.add(point[0], point[1]);
+            detector.add(point[0], point[1]);
+        }
+        //offset line 200000 (x - 0.002) against the segment from (0.003, 400) to (0.006, 450)
+        double before = 400 - 200000 * (0.003 - 0.002);
+        double after = 450 - 200000 * (0.006 - 0.002);
+        double fraction = before / (before - after);
+        assertEquals(0.003 + fraction * 0.003, detector.getYieldStrain(), DELTA);
+        assertEquals(400 + fraction * 50, detector.getYieldStress(), DELTA);
+    }
+
+    @Test
+    void waitsForTheCurveToCross(){
+        ModulusEstimator fit = new ModulusEstimator(0, 0.002, 0);
+        YieldDetector detector = new YieldDetector(fit, 0.002);
+        for(int i = 0; i <= 100; i++){
+            double strain = 0.00005 * i;
+            fit.add(strain, MODULUS * strain);
+            assertFalse(detector.add(strain, MODULUS * strain));
+        }
+        assertFalse(detector.isFound());
+        assertTrue(Double.isNaN(detector.getYieldStress()));
+    }
+
+    @Test
+    void reportsOnlyTheFirstCrossing(){
+        ModulusEstimator fit = new ModulusEstimator(0, 0.001, 0);
+        YieldDetector detector = new YieldDetector(fit, 0.002);
+        fit.add(0, 0);
+        fit.add(0.001, 100);
+        detector.add(0, 0);
+        detector.add(0.001, 100);
+        assertTrue(detector.add(0.004, 150));
+        double stress = detector.getYieldStress();
+        assertFalse(detector.add(0.006, 100));
+        assertEquals(stress, detector.getYieldStress(), DELTA);
+        detector.reset();
+        assertFalse(detector.isFound());
+    }
+
+    @Test
+    void rejectsBadOffsets(){
+        ModulusEstimator fit = new ModulusEstimator(0, 1, 0);
+        assertThrows(IllegalArgumentException.class, () -> new YieldDetector(fit, 0));
+        assertThrows(IllegalArgumentException.class, () -> new YieldDetector(fit, Double.NaN));
+    }
+}
@@ -0,0 +1,119 @@
+package controller.filter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilterChainTest {
+
+    private static final double DELTA = 0.000001;
+    private static final double SAMPLE_RATE = 1000.0;
+
+    @Test
+    void parseReadsEveryStage(){
+        FilterChain chain = FilterChain.parse("ma:4+EMA:0.5+bw:20.0:4+median:5+sg:7:2", SAMPLE_RATE);
+        assertFalse(chain.isEmpty());
+        assertEquals("ma:4+ema:0.5+bw:20.0:4+median:5+sg:7:2", chain.toString());
+        assertEquals(chain.toString(), FilterChain.parse(chain.toString(), SAMPLE_RATE).toString());
+    }
+
+    @Test
+    void noneLeavesSamplesAlone(){
+        FilterChain chain = FilterChain.parse("None", SAMPLE_RATE);
+        assertTrue(chain.isEmpty());
+        double[] samples = {1, -2, 3};
+        chain.process(samples, 0, samples.length);
+        assertArrayEquals(new double[]{1, -2, 3}, samples, DELTA);
+        assertEquals("None", chain.toString());
+    }
+
+    @Test
+    void parseRejectsBadChains(){
+        assertThrows(IllegalArgumentException.class, () -> FilterChain.parse("lowpass:10", SAMPLE_RATE));
+        assertThrows(IllegalArgumentException.class, () -> FilterChain.parse("ma:four", SAMPLE_RATE));
+        assertThrows(IllegalArgumentException.class, () -> FilterChain.parse("ma:0", SAMPLE_RATE));
+        assertThrows(IllegalArgumentException.class, () -> FilterChain.parse("median:4", SAMPLE_RATE));
+        assertThrows(IllegalArgumentException.class, () -> FilterChain.parse("bw:500", SAMPLE_RATE));
+        assertThrows(IllegalArgumentException.class, () -> FilterChain.parse("bw:10:3", SAMPLE_RATE));
+        assertThrows(IllegalArgumentException.class, () -> FilterChain.parse("sg:5:5", SAMPLE_RATE));
+        assertThrows(IllegalArgumentException.class, () -> FilterChain.parse("ema:1.5", SAMPLE_RATE));
+    }
+
+    @Test
+    void movingAverageAveragesTheLastWindow(){
+        double[] samples = {2, 4, 6, 8};
+        new MovingAverageFilter(2).process(samples, 0, samples.length);
+        assertArrayEquals(new double[]{2, 3, 5, 7}, samples, DELTA);
+    }
+
+    @Test
+    void exponentialStartsFromTheFirstSample(){
+        double[] samples = {10, 20, 20};
+        new ExponentialFilter(0.5).process(samples, 0, samples.length);
+        assertArrayEquals(new double[]{10, 15, 17.5}, samples, DELTA);
+    }
+
+    @Test
+    void medianRemovesSpikes(){
+        double[] samples = {1, 1, 50, 1, 1, -40, 1};
+        new MedianFilter(3).process(samples, 0, samples.length);
+        for(double sample : samples){
+            assertEquals(1, sample, DELTA);
+        }
+    }
+
+    @Test
+    void butterworthPassesSteadyLevelsAndCutsNoise(){
+        ButterworthFilter filter = new ButterworthFilter(10, 4, SAMPLE_RATE);
+        double[] samples = new double[2000];
+        for(int i = 0; i < samples.length; i++){
+            //a 5 V level with a 200 Hz tone on top
+            samples[i] = 5 + Math.sin(2 * Math.PI * 200 * i / SAMPLE_RATE);
+        }
+        filter.process(samples, 0, samples.length);
+        for(int i = 1000; i < samples.length; i++){
+            assertEquals(5, samples[i], 0.001);
+        }
+    }
+
+    @Test
+    void savitzkyGolayFollowsPolynomialsWithHalfWindowLag(){
+        SavitzkyGolayFilter filter = new SavitzkyGolayFilter(7, 2);
+        double[] samples = new double[20];
+        for(int i = 0; i < samples.length; i++){
+            samples[i] = 0.5 * i * i - 3 * i + 2;
+        }
+        filter.process(samples, 0, samples.length);
+        for(int i = 6; i < samples.length; i++){
+            int centre = i - 3;
+            assertEquals(0.5 * centre * centre - 3 * centre + 2, samples[i], DELTA);
+        }
+    }
+
+    @Test
+    void splittingIntoBlocksGivesTheSameOutput(){
+        double[] whole = new double[500];
+        for(int i = 0; i < whole.length; i++){
+            whole[i] = Math.sin(i * 0.1) + (i % 37 == 0 ? 10 : 0);
+        }
+        double[] blocks = whole.clone();
+        String spec = "median:5+bw:50:2+sg:9:3+ema:0.3+ma:3";
+        FilterChain.parse(spec, SAMPLE_RATE).process(whole, 0, whole.length);
+        FilterChain chain = FilterChain.parse(spec, SAMPLE_RATE);
+        for(int offset = 0; offset < blocks.length; offset += 70){
+            chain.process(blocks, offset, Math.min(70, blocks.length - offset));
+        }
+        assertArrayEquals(whole, blocks, DELTA);
+    }
+
+    @Test
+    void resetForgetsHistory(){
+        FilterChain chain = FilterChain.parse("ma:3+bw:50", SAMPLE_RATE);
+        double[] first = {100, 100, 100};
+        chain.process(first, 0, first.length);
+        chain.reset();
+        double[] second = {1, 1, 1};
+        chain.process(second, 0, second.length);
+        assertArrayEquals(new double[]{1, 1, 1}, second, DELTA);
+    }
+}
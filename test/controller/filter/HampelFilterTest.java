@@ -0,0 +1,114 @@
+package controller.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HampelFilterTest {
+
+    private static final double DELTA = 0.000001;
+
+    @Test
+    void indexedMedianMatchesSortingTheWindow(){
+        Random random = new Random(7);
+        for(int window : new int[]{1, 2, 5, 8, 31}){
+            IndexedMedian median = new IndexedMedian(window);
+            double[] recent = new double[window];
+            for(int n = 0; n < 2000; n++){
+                //repeated values as well as spread ones, like a quantised ADC reading
+                double value = random.nextInt(4) == 0 ? random.nextInt(3) : random.nextGaussian();
+                median.add(value);
+                recent[n % window] = value;
+                double[] sorted = Arrays.copyOf(recent, Math.min(n + 1, window));
+                Arrays.sort(sorted);
+                int size = sorted.length;
+                double expected = size % 2 == 1 ? sorted[size / 2] : (sorted[size / 2 - 1] + sorted[size / 2]) / 2;
+                assertEquals(expected, median.getMedian(), DELTA);
+            }
+        }
+    }
+
+    @Test
+    void replacesSpikesAndCountsThem(){
+        Random random = new Random(3);
+        double[] samples = new double[1000];
+        for(int i = 0; i < samples.length; i++){
+            samples[i] = 2.0 + 0.01 * random.nextGaussian();
+        }
+        samples[200] = 2.6;
+        samples[500] = 1.5;
+        samples[501] = 1.45;
+        HampelFilter filter = new HampelFilter(25, 4);
+        filter.process(samples, 0, samples.length);
+        assertEquals(2.0, samples[200], 0.02);
+        assertEquals(2.0, samples[500], 0.02);
+        assertEquals(2.0, samples[501], 0.02);
+        assertEquals(3, filter.getRejected());
+    }
+
+    @Test
+    void followsRealStepsAfterHalfAWindow(){
+        double[] samples = new double[60];
+        for(int i = 0; i < samples.length; i++){
+            samples[i] = (i < 30 ? 0.0 : 5.0) + (i % 3) * 0.01;
+        }
+        new HampelFilter(7, 3).process(samples, 0, samples.length);
+        for(int i = 40; i < samples.length; i++){
+            assertEquals(5.0, samples[i], 0.05);
+        }
+    }
+
+    @Test
+    void keepsOneStepChangesOfAFlatSignal(){
+        //a quiet channel reads the same ADC code every sample, so its MAD is 0 until the minimum holds it up
+        double lsb = HampelFilter.DEFAULT_MIN_DEVIATION;
+        double[] samples = new double[100];
+        for(int i = 0; i < samples.length; i++){
+            samples[i] = 1.0 + (i < 50 ? 0.0 : lsb);
+        }
+        double[] expected = samples.clone();
+        HampelFilter filter = new HampelFilter(9, 3);
+        filter.process(samples, 0, samples.length);
+        assertArrayEquals(expected, samples, 0.0);
+        assertEquals(0, filter.getRejected());
+
+        //a spike well past the minimum is still replaced
+        double[] spiked = expected.clone();
+        spiked[80] += 10 * lsb;
+        filter.process(spiked, 0, spiked.length);
+        assertEquals(1.0 + lsb, spiked[80], DELTA);
+        assertEquals(1, filter.getRejected());
+
+        //without a minimum the step itself looks like a spike
+        double[] unguarded = expected.clone();
+        new HampelFilter(9, 3, 0).process(unguarded, 0, unguarded.length);
+        assertEquals(1.0, unguarded[50], 0.0);
+    }
+
+    @Test
+    void resetKeepsTheCount(){
+        HampelFilter filter = new HampelFilter(3, 3);
+        double[] samples = {1, 1.01, 0.99, 1, 50, 1};
+        filter.process(samples, 0, samples.length);
+        assertEquals(1, filter.getRejected());
+        filter.reset();
+        double[] again = {7, 7, 7};
+        filter.process(again, 0, again.length);
+        assertArrayEquals(new double[]{7, 7, 7}, again, DELTA);
+        assertEquals(1, filter.getRejected());
+    }
+
+    @Test
+    void parsesAsAChainStage(){
+        FilterChain chain = FilterChain.parse("hampel:7+bw:20:4", 1000);
+        assertEquals("hampel:7:3.0+bw:20.0:4", chain.toString());
+        assertEquals(0, chain.getRejected());
+        assertThrows(IllegalArgumentException.class, () -> FilterChain.parse("hampel:2", 1000));
+        assertThrows(IllegalArgumentException.class, () -> FilterChain.parse("hampel:7:0", 1000));
+        assertEquals("hampel:7:3.0:0.001", FilterChain.parse("hampel:7:3:0.001", 1000).toString());
+        assertThrows(IllegalArgumentException.class, () -> FilterChain.parse("hampel:7:3:-1", 1000));
+    }
+}
@@ -0,0 +1,121 @@
+package kirkwood.nidaq.access;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.jna.Memory;
+import com.sun.jna.NativeLong;
+import com.sun.jna.Pointer;
+
+import kirkwood.nidaq.jna.Nicaiu;
+import kirkwood.nidaq.jna.NicaiuDirect;
+
+/**
+ * Runs the bindings against the stub library in the native folder, skipped until it is built with make -C native.
+ */
+class NiDaqTest {
+
+	private static final double DELTA = 0.000001;
+	private static final int CHANNELS = 2;
+	private static final int SAMPLES = 20;
+	private static final double RATE = 1e9; //fast enough that the stub never waits for its clock
+
+	/*
+	 * Points JNA at the stub library, or skips the test if it has not been built. JNA only looks the library up
+	 * the first time it is loaded, so a jna.library.path given on the command line is left alone.
+	 */
+	static void useStubLibrary() {
+		File stub = new File("native", "libnicaiu.so");
+		assumeTrue(stub.isFile(), "The stub library is not built, run make -C native");
+		if(System.getProperty("jna.library.path") == null) {
+			System.setProperty("jna.library.path", stub.getAbsoluteFile().getParent());
+		}
+	}
+
+	/*
+	 * A running continuous task reading the given channels.
+	 */
+	private static Pointer startTask(NiDaq daq, String physicalChannel) throws NiDaqException {
+		Pointer task = daq.createTask("\0");
+		daq.createAIVoltageChannel(task, physicalChannel, "\0", Nicaiu.DAQmx_Val_Diff, -10.0, 10.0, Nicaiu.DAQmx_Val_Volts, null);
+		daq.cfgSampClkTiming(task, "\0", RATE, Nicaiu.DAQmx_Val_Rising, Nicaiu.DAQmx_Val_ContSamps, 10000);
+		daq.startTask(task);
+		return task;
+	}
+
+	/*
+	 * The stub reads sample k of channel c as sin(2 pi k / rate) + c.
+	 */
+	private static void assertStubSamples(double[] samples) {
+		for(int c = 0; c < CHANNELS; c++) {
+			for(int k = 0; k < SAMPLES; k++) {
+				assertEquals(Math.sin(2 * Math.PI * k / RATE) + c, samples[c * SAMPLES + k], DELTA);
+			}
+		}
+	}
+
+	@Test
+	void directAndProxyBindingsReadTheSameSamples() throws NiDaqException {
+		useStubLibrary();
+		assumeTrue(NicaiuDirect.AVAILABLE, "The direct bindings could not be registered");
+		NiDaq daq = new NiDaq();
+		Pointer task = startTask(daq, "Dev1/ai0:" + (CHANNELS - 1));
+		Memory proxyBlock = new Memory(8L * CHANNELS * SAMPLES);
+		Memory directBlock = new Memory(8L * CHANNELS * SAMPLES);
+		Memory read = new Memory(4);
+		try {
+			assertEquals(0, Nicaiu.INSTANCE.DAQmxReadAnalogF64(task, SAMPLES, -1, new NativeLong(Nicaiu.DAQmx_Val_GroupByChannel), proxyBlock, new NativeLong(CHANNELS * SAMPLES), read, null));
+			assertEquals(SAMPLES, read.getInt(0));
+			//restarting the task starts the stub's samples again from the first
+			daq.stopTask(task);
+			daq.startTask(task);
+			read.setInt(0, 0);
+			assertEquals(0, NicaiuDirect.DAQmxReadAnalogF64(task, SAMPLES, -1, Nicaiu.DAQmx_Val_GroupByChannel, directBlock, CHANNELS * SAMPLES, read, null));
+			assertEquals(SAMPLES, read.getInt(0));
+		} finally {
+			daq.stopTask(task);
+			daq.clearTask(task);
+		}
+		double[] proxy = proxyBlock.getDoubleArray(0, CHANNELS * SAMPLES);
+		assertArrayEquals(proxy, directBlock.getDoubleArray(0, CHANNELS * SAMPLES), 0.0);
+		assertStubSamples(proxy);
+	}
+
+	@Test
+	void namesAreTerminatedOnce() {
+		byte[] plain = NiDaq.encode("Dev1/ai0:1");
+		byte[] terminated = NiDaq.encode("Dev1/ai0:1\0");
+		assertArrayEquals(plain, terminated);
+		assertEquals("Dev1/ai0:1".length() + 1, plain.length);
+		assertEquals(0, plain[plain.length - 1]);
+		assertArrayEquals("\0".getBytes(StandardCharsets.UTF_8), NiDaq.encode(""));
+		assertArrayEquals(NiDaq.encode(""), NiDaq.encode("\0"));
+	}
+
+	@Test
+	void terminatedNamesStillReachTheDriver() throws NiDaqException {
+		useStubLibrary();
+		NiDaq daq = new NiDaq();
+		//callers written before names were terminated for them pass "...\0", the driver must see the same channels
+		for(String channel : new String[]{"Dev1/ai0:1", "Dev1/ai0:1\0"}) {
+			Pointer task = startTask(daq, channel);
+			double[] samples = new double[CHANNELS * SAMPLES];
+			IntBuffer read = IntBuffer.wrap(new int[1]);
+			try {
+				daq.readAnalogF64(task, SAMPLES, -1, Nicaiu.DAQmx_Val_GroupByChannel, DoubleBuffer.wrap(samples), samples.length, read);
+			} finally {
+				daq.stopTask(task);
+				daq.clearTask(task);
+			}
+			assertEquals(SAMPLES, read.get(0));
+			assertStubSamples(samples);
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package kirkwood.nidaq.access;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.jna.NativeLibrary;
+import com.sun.jna.Pointer;
+
+import kirkwood.nidaq.jna.Nicaiu;
+
+/**
+ * Runs the cache against the stub library in the native folder, skipped until it is built with make -C native.
+ */
+class TaskCacheTest {
+
+	private static final double RATE = 1e6;
+	private static final int SAMPLES = 10;
+
+	/*
+	 * Tasks the stub has created and not yet cleared.
+	 */
+	private static int openTasks() {
+		return NativeLibrary.getInstance("nicaiu").getFunction("StubGetTaskCount").invokeInt(new Object[0]);
+	}
+
+	private static void setDeviceLost(boolean lost) {
+		NativeLibrary.getInstance("nicaiu").getFunction("StubSetDeviceLost").invokeVoid(new Object[]{lost ? 1 : 0});
+	}
+
+	private static Pointer task(TaskCache cache, String physicalChannel) throws NiDaqException {
+		return cache.getAIVoltageTask(physicalChannel, Nicaiu.DAQmx_Val_Diff, RATE, SAMPLES);
+	}
+
+	private static int read(TaskCache cache, String physicalChannel) throws NiDaqException {
+		return cache.readAnalogF64(physicalChannel, Nicaiu.DAQmx_Val_Diff, RATE, SAMPLES, 1.0, new double[SAMPLES]);
+	}
+
+	@Test
+	void evictsTheLeastRecentlyUsedTask() throws NiDaqException {
+		NiDaqTest.useStubLibrary();
+		int before = openTasks();
+		TaskCache cache = new TaskCache(new NiDaq(), 2);
+		try {
+			Pointer first = task(cache, "Dev1/ai0");
+			task(cache, "Dev1/ai1");
+			//using the first task again leaves the second as the least recently used
+			assertSame(first, task(cache, "Dev1/ai0"));
+			task(cache, "Dev1/ai2");
+			assertEquals(2, cache.size());
+			assertEquals(before + 2, openTasks());
+			assertSame(first, task(cache, "Dev1/ai0"));
+			assertEquals(before + 2, openTasks());
+		} finally {
+			cache.clear();
+		}
+		assertEquals(0, cache.size());
+		assertEquals(before, openTasks());
+	}
+
+	@Test
+	void failedReadDropsTheTask() throws NiDaqException {
+		NiDaqTest.useStubLibrary();
+		int before = openTasks();
+		TaskCache cache = new TaskCache(new NiDaq());
+		try {
+			assertEquals(SAMPLES, read(cache, "Dev1/ai0"));
+			assertEquals(1, cache.size());
+			setDeviceLost(true);
+			try {
+				assertThrows(NiDaqException.class, () -> read(cache, "Dev1/ai0"));
+			} finally {
+				setDeviceLost(false);
+			}
+			assertEquals(0, cache.size());
+			assertEquals(before, openTasks());
+
+			//the next read sets the task up again from scratch
+			assertEquals(SAMPLES, read(cache, "Dev1/ai0"));
+			assertEquals(1, cache.size());
+		} finally {
+			cache.clear();
+		}
+		assertEquals(before, openTasks());
+	}
+
+	@Test
+	void taskTheDriverRejectsIsNotCached() {
+		NiDaqTest.useStubLibrary();
+		int before = openTasks();
+		TaskCache cache = new TaskCache(new NiDaq());
+		//no channel at all only fails once the task is verified
+		assertThrows(NiDaqException.class, () -> task(cache, ""));
+		assertEquals(0, cache.size());
+		assertEquals(before, openTasks());
+	}
+}
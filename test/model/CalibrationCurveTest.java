@@ -0,0 +1,77 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CalibrationCurveTest {
+
+    private static final double DELTA = 0.000001;
+
+    @Test
+    void plainNumberIsAConstant(){
+        CalibrationCurve curve = CalibrationCurve.parse(" 1960.574197 ");
+        assertEquals(1960.574197, curve.toUnits(1), DELTA);
+        assertEquals(2 * 1960.574197, curve.toUnits(2), DELTA);
+        assertEquals("1960.574197", curve.toString());
+    }
+
+    @Test
+    void polynomialUsesEveryCoefficient(){
+        CalibrationCurve curve = CalibrationCurve.parse("poly:1.5:200:-3:0.25");
+        double v = 2.5;
+        assertEquals(1.5 + 200 * v - 3 * v * v + 0.25 * v * v * v, curve.toUnits(v), DELTA);
+        assertEquals(curve.toUnits(-1.3), CalibrationCurve.parse(curve.toString()).toUnits(-1.3), DELTA);
+    }
+
+    @Test
+    void tableInterpolatesBetweenPoints(){
+        CalibrationCurve curve = CalibrationCurve.parse("table:-1/-900:0/0:1/1000:3/2600");
+        assertEquals(-450, curve.toUnits(-0.5), DELTA);
+        assertEquals(1000, curve.toUnits(1), DELTA);
+        assertEquals(1800, curve.toUnits(2), DELTA);
+        assertEquals(curve.toUnits(2.2), CalibrationCurve.parse(curve.toString()).toUnits(2.2), DELTA);
+    }
+
+    @Test
+    void tableCarriesOnPastItsEnds(){
+        CalibrationCurve curve = new PiecewiseLinearCalibration(new double[]{0, 1, 2}, new double[]{0, 100, 300});
+        assertEquals(-50, curve.toUnits(-0.5), DELTA);
+        assertEquals(500, curve.toUnits(3), DELTA);
+    }
+
+    @Test
+    void fitRecoversAPolynomial(){
+        double[] volts = new double[20];
+        double[] units = new double[volts.length];
+        for(int i = 0; i < volts.length; i++){
+            volts[i] = -2 + 0.37 * i;
+            units[i] = 12 + 1950 * volts[i] - 14 * volts[i] * volts[i];
+        }
+        PolynomialCalibration curve = PolynomialCalibration.fit(volts, units, volts.length, 2);
+        double[] coefficients = curve.getCoefficients();
+        assertEquals(12, coefficients[0], 0.0001);
+        assertEquals(1950, coefficients[1], 0.0001);
+        assertEquals(-14, coefficients[2], 0.0001);
+    }
+
+    @Test
+    void fitUsesOnlyTheGivenPoints(){
+        double[] volts = {0, 1, 2, 0, 0};
+        double[] units = {1, 3, 5, 0, 0};
+        PolynomialCalibration curve = PolynomialCalibration.fit(volts, units, 3, 1);
+        assertEquals(2, curve.getCoefficients()[1], DELTA);
+        assertEquals(1, curve.toUnits(0), DELTA);
+    }
+
+    @Test
+    void parseRejectsBadCurves(){
+        assertThrows(IllegalArgumentException.class, () -> CalibrationCurve.parse("abc"));
+        assertThrows(IllegalArgumentException.class, () -> CalibrationCurve.parse("poly:1:x"));
+        assertThrows(IllegalArgumentException.class, () -> CalibrationCurve.parse("table:0/0"));
+        assertThrows(IllegalArgumentException.class, () -> CalibrationCurve.parse("table:1/0:0/5"));
+        assertThrows(IllegalArgumentException.class, () -> CalibrationCurve.parse("table:0/0:1"));
+        assertThrows(IllegalArgumentException.class, () -> CalibrationCurve.parse("spline:0/0:1/1"));
+        assertThrows(IllegalArgumentException.class, () -> PolynomialCalibration.fit(new double[]{1, 2}, new double[]{1, 2}, 2, 2));
+    }
+}
@@ -0,0 +1,63 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChannelConfigTest {
+
+    private static final double DELTA = 0.000001;
+
+    @Test
+    void parseFullChannel(){
+        ChannelConfig channel = ChannelConfig.parse("LVDT,4,RSE,0.25,10");
+        assertEquals("LVDT", channel.getName());
+        assertEquals(4, channel.getChannel());
+        assertEquals(SampleSource.Mode.RSE, channel.getMode());
+        assertEquals(0.25, channel.getCalibration().toUnits(1), DELTA);
+        assertEquals(10, channel.getFilterWindow());
+        assertEquals(ChannelConfig.NO_FILTER, channel.getFilter());
+    }
+
+    @Test
+    void parseWithFilter(){
+        ChannelConfig channel = ChannelConfig.parse("LVDT,4,RSE,0.25,0,median:5+bw:20:4");
+        assertEquals("median:5+bw:20:4", channel.getFilter());
+        assertEquals(channel.getFilter(), ChannelConfig.parse(channel.toString()).getFilter());
+    }
+
+    @Test
+    void parseWithCalibrationCurve(){
+        ChannelConfig channel = ChannelConfig.parse("LoadCell,3,Differential,poly:2:1950:-12,0,None");
+        assertEquals(2 + 1950 - 12, channel.getCalibration().toUnits(1), DELTA);
+        assertEquals(channel.getCalibration().toUnits(0.7), ChannelConfig.parse(channel.toString()).getCalibration().toUnits(0.7), DELTA);
+    }
+
+    @Test
+    void parseWithoutFilterWindow(){
+        ChannelConfig channel = ChannelConfig.parse(" Thermocouple, 5, Differential, 100 ");
+        assertEquals(SampleSource.Mode.DIFFERENTIAL, channel.getMode());
+        assertEquals(0, channel.getFilterWindow());
+    }
+
+    @Test
+    void toStringParsesBack(){
+        ChannelConfig channel = new ChannelConfig("Extensometer2", 2, SampleSource.Mode.DIFFERENTIAL, 0.041814743, 3);
+        ChannelConfig copy = ChannelConfig.parse(channel.toString());
+        assertEquals(channel.getName(), copy.getName());
+        assertEquals(channel.getChannel(), copy.getChannel());
+        assertEquals(channel.getMode(), copy.getMode());
+        assertEquals(channel.getCalibration().toUnits(1), copy.getCalibration().toUnits(1), DELTA);
+        assertEquals(channel.getFilterWindow(), copy.getFilterWindow());
+    }
+
+    @Test
+    void parseRejectsBadChannels(){
+        assertThrows(IllegalArgumentException.class, () -> ChannelConfig.parse("LVDT,4,RSE"));
+        assertThrows(IllegalArgumentException.class, () -> ChannelConfig.parse("LVDT,four,RSE,1"));
+        assertThrows(IllegalArgumentException.class, () -> ChannelConfig.parse("LVDT,4,Bipolar,1"));
+        assertThrows(IllegalArgumentException.class, () -> ChannelConfig.parse("Crosshead LVDT,4,RSE,1"));
+        assertThrows(IllegalArgumentException.class, () -> ChannelConfig.parse("LVDT,4,RSE,1,0,ma:5,extra"));
+        assertThrows(IllegalArgumentException.class, () -> ChannelConfig.parse("LVDT,4,RSE,table:1/1,0,None"));
+    }
+}